@@ -83,11 +83,11 @@ function setupEventListeners() {
 }
 
 /**
- * Load all users
+ * Load users, one page at a time (cursor = next page)
  */
-function loadUsers() {
+function loadUsers(cursor) {
     const token = getTokenFromSession();
-    fetch(`${AUTH_API_BASE}/users`, {
+    fetch(withCursor(`${AUTH_API_BASE}/users`, cursor), {
         method: 'GET',
         headers: {
             'Authorization': `Bearer ${token}`,
@@ -98,14 +98,16 @@ function loadUsers() {
             if (!response.ok) throw new Error('Failed to load users');
             return response.json();
         })
-        .then(data => {
+        .then(page => {
             const tbody = document.getElementById('usersTable');
-            if (!data || data.length === 0) {
+            const data = page.items;
+            if (!cursor && (!data || data.length === 0)) {
                 tbody.innerHTML = '<tr><td colspan="5" class="text-center text-muted">No users found</td></tr>';
+                renderLoadMore(tbody, null);
                 return;
             }
 
-            tbody.innerHTML = data.map(user => `
+            const rows = data.map(user => `
                 <tr>
                     <td>${user.id}</td>
                     <td>${user.username}</td>
@@ -121,16 +123,19 @@ function loadUsers() {
                     </td>
                 </tr>
             `).join('');
+            if (cursor) tbody.insertAdjacentHTML('beforeend', rows);
+            else tbody.innerHTML = rows;
+            renderLoadMore(tbody, page.nextCursor, loadUsers);
         })
         .catch(error => console.error('Error loading users:', error));
 }
 
 /**
- * Load all sellers
+ * Load sellers, one page at a time (cursor = next page)
  */
-function loadSellers() {
+function loadSellers(cursor) {
     const token = getTokenFromSession();
-    fetch(`${ADMIN_API_BASE}/sellers`, {
+    fetch(withCursor(`${ADMIN_API_BASE}/sellers`, cursor), {
         method: 'GET',
         headers: {
             'Authorization': `Bearer ${token}`,
@@ -141,14 +146,16 @@ function loadSellers() {
             if (!response.ok) throw new Error('Failed to load sellers');
             return response.json();
         })
-        .then(data => {
+        .then(page => {
             const tbody = document.getElementById('sellersTable');
-            if (!data || data.length === 0) {
+            const data = page.items;
+            if (!cursor && (!data || data.length === 0)) {
                 tbody.innerHTML = '<tr><td colspan="4" class="text-center text-muted">No sellers found</td></tr>';
+                renderLoadMore(tbody, null);
                 return;
             }
 
-            tbody.innerHTML = data.map(seller => `
+            const rows = data.map(seller => `
                 <tr>
                     <td>${seller.username}</td>
                     <td>${seller.email}</td>
@@ -160,16 +167,19 @@ function loadSellers() {
                     </td>
                 </tr>
             `).join('');
+            if (cursor) tbody.insertAdjacentHTML('beforeend', rows);
+            else tbody.innerHTML = rows;
+            renderLoadMore(tbody, page.nextCursor, loadSellers);
         })
         .catch(error => console.error('Error loading sellers:', error));
 }
 
 /**
- * Load all products
+ * Load products, one page at a time (cursor = next page)
  */
-function loadProducts() {
+function loadProducts(cursor) {
     const token = getTokenFromSession();
-    fetch(`${ADMIN_API_BASE}/products`, {
+    fetch(withCursor(`${ADMIN_API_BASE}/products`, cursor), {
         method: 'GET',
         headers: {
             'Authorization': `Bearer ${token}`,
@@ -180,14 +190,16 @@ function loadProducts() {
             if (!response.ok) throw new Error('Failed to load products');
             return response.json();
         })
-        .then(data => {
+        .then(page => {
             const tbody = document.getElementById('productsTable');
-            if (!data || data.length === 0) {
+            const data = page.items;
+            if (!cursor && (!data || data.length === 0)) {
                 tbody.innerHTML = '<tr><td colspan="7" class="text-center text-muted">No products found</td></tr>';
+                renderLoadMore(tbody, null);
                 return;
             }
 
-            tbody.innerHTML = data.map(product => `
+            const rows = data.map(product => `
                 <tr>
                     <td>${product.id}</td>
                     <td>${product.name}</td>
@@ -205,16 +217,19 @@ function loadProducts() {
                     </td>
                 </tr>
             `).join('');
+            if (cursor) tbody.insertAdjacentHTML('beforeend', rows);
+            else tbody.innerHTML = rows;
+            renderLoadMore(tbody, page.nextCursor, loadProducts);
         })
         .catch(error => console.error('Error loading products:', error));
 }
 
 /**
- * Load all orders
+ * Load orders, one page at a time (cursor = next page)
  */
-function loadOrders() {
+function loadOrders(cursor) {
     const token = getTokenFromSession();
-    fetch(`${ADMIN_API_BASE}/orders`, {
+    fetch(withCursor(`${ADMIN_API_BASE}/orders`, cursor), {
         method: 'GET',
         headers: {
             'Authorization': `Bearer ${token}`,
@@ -225,14 +240,16 @@ function loadOrders() {
             if (!response.ok) throw new Error('Failed to load orders');
             return response.json();
         })
-        .then(data => {
+        .then(page => {
             const tbody = document.getElementById('ordersTable');
-            if (!data || data.length === 0) {
+            const data = page.items;
+            if (!cursor && (!data || data.length === 0)) {
                 tbody.innerHTML = '<tr><td colspan="6" class="text-center text-muted">No orders found</td></tr>';
+                renderLoadMore(tbody, null);
                 return;
             }
 
-            tbody.innerHTML = data.map(order => `
+            const rows = data.map(order => `
                 <tr>
                     <td>${order.id}</td>
                     <td>${order.customer}</td>
@@ -246,6 +263,9 @@ function loadOrders() {
                     </td>
                 </tr>
             `).join('');
+            if (cursor) tbody.insertAdjacentHTML('beforeend', rows);
+            else tbody.innerHTML = rows;
+            renderLoadMore(tbody, page.nextCursor, loadOrders);
         })
         .catch(error => console.error('Error loading orders:', error));
 }
@@ -86,6 +86,38 @@ function authFetch(url, options = {}) {
     return fetch(url, opts);
 }
 
+// ====== Listes paginées ({ items, nextCursor, limit }) ======
+
+/**
+ * Ajoute le curseur de la page suivante à l'URL d'une liste paginée.
+ */
+function withCursor(url, cursor) {
+    if (!cursor) return url;
+    return `${url}${url.includes('?') ? '&' : '?'}cursor=${encodeURIComponent(cursor)}`;
+}
+
+/**
+ * Bouton "Load more" placé après la liste `container` (ou sa table) tant qu'il reste une page ;
+ * onMore(nextCursor) charge la suivante.
+ */
+function renderLoadMore(container, nextCursor, onMore) {
+    const id = `${container.id}LoadMore`;
+    let btn = document.getElementById(id);
+    if (!nextCursor) {
+        if (btn) btn.remove();
+        return;
+    }
+    if (!btn) {
+        btn = document.createElement('button');
+        btn.id = id;
+        btn.type = 'button';
+        btn.className = 'btn btn-outline-primary d-block mx-auto my-3';
+        btn.textContent = 'Load more';
+        (container.closest('table') || container).insertAdjacentElement('afterend', btn);
+    }
+    btn.onclick = () => onMore(nextCursor);
+}
+
 // ====== Protection des pages ======
 
 function requireSeller() {
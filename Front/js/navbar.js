@@ -98,7 +98,8 @@ async function checkRecommendations() {
         const token = getToken();
         if (!token) return;
 
-        const response = await fetch(`${API_BASE}/api/recommendations`, {
+        // async: only the dot is needed, never wait for the AI
+        const response = await fetch(`${API_BASE}/api/recommendations?mode=async`, {
             headers: { 'Authorization': `Bearer ${token}` }
         });
 
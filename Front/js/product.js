@@ -7,7 +7,7 @@ document.addEventListener('DOMContentLoaded', () => {
 async function loadProducts() {
   try {
     const res = await fetch(`${API_BASE}/order-service/products`);
-    const products = await res.json();
+    const products = (await res.json()).items;
 
     const container = document.getElementById('productsContainer');
     if (!container) return;
@@ -4,24 +4,26 @@ document.addEventListener('DOMContentLoaded', () => {
   loadProducts();
 });
 
-async function loadProducts() {
+// One page at a time, the next one on "Load more"
+async function loadProducts(cursor) {
   const container = document.getElementById('productsContainer');
   if (!container) return;
 
   try {
-    const res = await fetch(`${API_BASE}/order-service/products`);
+    const res = await fetch(withCursor(`${API_BASE}/order-service/products`, cursor));
     if (!res.ok) {
       container.innerHTML = '<div class="col-12 text-center"><p>Erreur lors du chargement des produits.</p></div>';
       return;
     }
 
-    const products = await res.json();
-    if (!products || products.length === 0) {
+    const page = await res.json();
+    const products = page.items;
+    if (!cursor && (!products || products.length === 0)) {
       container.innerHTML = '<div class="col-12 text-center"><p>Aucun produit disponible pour le moment.</p></div>';
       return;
     }
 
-    container.innerHTML = '';
+    if (!cursor) container.innerHTML = '';
     products.forEach((p, idx) => {
       const delay = 0.1 + (idx % 4) * 0.2;
       const safeName = String(p.name || '');
@@ -93,8 +95,10 @@ async function loadProducts() {
           </div>
         </div>`;
     });
+    renderLoadMore(container, page.nextCursor, loadProducts);
 
-    // Delegate clicks for dynamically created items
+    // Delegate clicks for dynamically created items (registered once, with the first page)
+    if (cursor) return;
     container.addEventListener('click', (e) => {
       const link = e.target.closest('.add-to-cart');
       if (!link) return;
@@ -2,7 +2,10 @@ document.addEventListener('DOMContentLoaded', () => {
     loadRecommendations();
 });
 
-async function loadRecommendations() {
+// How long to wait before asking again when the server answered with a stale or fallback list
+const RECOMMENDATION_UPGRADE_DELAY_MS = 4000;
+
+async function loadRecommendations(isUpgrade = false) {
     const container = document.getElementById('recommendationsContainer');
     const list = document.getElementById('recommendationList');
     const token = localStorage.getItem('token');
@@ -13,10 +16,13 @@ async function loadRecommendations() {
     }
 
     try {
-        // Show loading state
-        list.innerHTML = '<div class="col-12 text-center"><div class="spinner-border text-primary" role="status"></div><p>Asking AI...</p></div>';
+        // Show loading state (not when upgrading a list already shown)
+        if (!isUpgrade) {
+            list.innerHTML = '<div class="col-12 text-center"><div class="spinner-border text-primary" role="status"></div><p>Asking AI...</p></div>';
+        }
 
-        const response = await fetch(`${API_BASE}/api/recommendations`, {
+        // async: the server answers right away and computes the AI picks in the background
+        const response = await fetch(`${API_BASE}/api/recommendations?mode=async`, {
             headers: {
                 'Authorization': `Bearer ${token}`
             }
@@ -24,8 +30,15 @@ async function loadRecommendations() {
 
         if (response.ok) {
             const products = await response.json();
+            const freshness = response.headers.get('X-Recommendation-Freshness');
             if (products.length > 0) {
                 renderRecommendations(products, container);
+                // Stale or category picks for now: fetch once more to show the AI answer
+                if (!isUpgrade && freshness && freshness !== 'fresh') {
+                    setTimeout(() => loadRecommendations(true), RECOMMENDATION_UPGRADE_DELAY_MS);
+                }
+            } else if (isUpgrade) {
+                return;
             } else {
                 list.innerHTML = '<div class="col-12 text-center"><p>No recommendations available at the moment. Try buying something first!</p></div>';
             }
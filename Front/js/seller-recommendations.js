@@ -84,19 +84,7 @@ function renderTopSoldItems(items) {
 
 async function getProductSuggestions(token, topSoldItems) {
     try {
-        // Get full catalog for context
-        const catalogResponse = await fetch(`${API_BASE}/order-service/products`, {
-            headers: {
-                'Authorization': `Bearer ${token}`
-            }
-        });
-
-        let catalog = [];
-        if (catalogResponse.ok) {
-            catalog = await catalogResponse.json();
-        }
-
-        // Request AI suggestions
+        // Request AI suggestions; the service looks up the seller's inventory itself
         const suggestionsResponse = await fetch(`${API_BASE}/api/seller/recommendations/suggest-products`, {
             method: 'POST',
             headers: {
@@ -104,8 +92,7 @@ async function getProductSuggestions(token, topSoldItems) {
                 'Content-Type': 'application/json'
             },
             body: JSON.stringify({
-                topSoldItems: topSoldItems,
-                currentCatalog: catalog
+                topSoldItems: topSoldItems
             })
         });
 
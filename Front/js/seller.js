@@ -75,7 +75,7 @@ function loadSellerStats() {
         })
         .then(data => {
             // Calculate total sales and unique order count
-            const totalSales = data.reduce((sum, line) => sum + (line.unitPrice || 0), 0);
+            const totalSales = data.reduce((sum, line) => sum + (line.unitPrice || 0) * (line.quantity || 1), 0);
 
             // Count unique orders
             const uniqueOrders = new Set(data.map(line => line.orderId)).size;
@@ -192,7 +192,7 @@ function loadSellerOrders() {
                     <td>${line.orderDate ? new Date(line.orderDate).toLocaleDateString() : new Date().toLocaleDateString()}</td>
                     <td>${line.buyerUsername || 'N/A'}</td>
                     <td>${line.productName || 'Product'}</td>
-                    <td>1</td>
+                    <td>${line.quantity || 1}</td>
                     <td>$${parseFloat(line.unitPrice || 0).toFixed(2)}</td>
                     <td><span class="badge bg-secondary">${line.orderStatus || 'PENDING'}</span></td>
                     <td>
@@ -3,15 +3,21 @@ package com.Shadows.authservice.controller;
 import com.Shadows.authservice.model.Role;
 import com.Shadows.authservice.model.User;
 import com.Shadows.authservice.repository.UserRepository;
+import com.Shadows.authservice.service.PasswordHasher;
+import com.Shadows.authservice.service.PasswordHashingBusyException;
+import com.Shadows.authservice.service.UserImportService;
+import com.Shadows.authservice.service.UserListingService;
 import com.Shadows.authservice.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/auth/api")
@@ -23,32 +29,33 @@ public class UserController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserListingService userListingService;
+
     /**
-     * Get all sellers (users with SHOP role)
+     * Get sellers (users with SHOP role) as a keyset page {items, nextCursor, limit}, 50 by default.
      * Required Authorization header with ADMIN token
      */
     @GetMapping("/users/sellers")
     public ResponseEntity<?> getAllSellers(
-            @RequestHeader(value = "Authorization", required = false) String authorization) {
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
 
         if (!isAdmin(authorization)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
         }
 
         try {
-            List<Map<String, Object>> sellers = userRepository.findAll().stream()
-                    .filter(user -> user.getRole() == Role.SHOP)
-                    .map(user -> {
-                        Map<String, Object> map = new HashMap<>();
-                        map.put("id", user.getId());
-                        map.put("username", user.getUsername());
-                        map.put("email", user.getEmail());
-                        map.put("role", user.getRole());
-                        return map;
-                    })
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.ok(sellers);
+            return ResponseEntity.ok(userListingService.page(Role.SHOP, limit, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error fetching sellers: " + e.getMessage());
@@ -56,35 +63,51 @@ public class UserController {
     }
 
     /**
-     * Get all users (admin only)
+     * Get users (admin only) as a keyset page {items, nextCursor, limit}, 50 by default.
+     * Optional role filter.
      */
     @GetMapping("/users")
     public ResponseEntity<?> getAllUsers(
-            @RequestHeader(value = "Authorization", required = false) String authorization) {
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "role", required = false) Role role,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
 
         if (!isAdmin(authorization)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
         }
 
         try {
-            List<Map<String, Object>> users = userRepository.findAll().stream()
-                    .map(user -> {
-                        Map<String, Object> map = new HashMap<>();
-                        map.put("id", user.getId());
-                        map.put("username", user.getUsername());
-                        map.put("email", user.getEmail());
-                        map.put("role", user.getRole());
-                        return map;
-                    })
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.ok(users);
+            return ResponseEntity.ok(userListingService.page(role, limit, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error fetching users: " + e.getMessage());
         }
     }
 
+    /**
+     * Get count of users, optionally of one role, counted in the database (admin only)
+     */
+    @GetMapping("/users/count")
+    public ResponseEntity<?> getUserCount(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "role", required = false) Role role) {
+
+        if (!isAdmin(authorization)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
+        }
+
+        try {
+            long count = role == null ? userRepository.count() : userRepository.countByRole(role);
+            return ResponseEntity.ok(Collections.singletonMap("count", count));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error counting users: " + e.getMessage());
+        }
+    }
+
     /**
      * Get count of sellers
      */
@@ -97,9 +120,7 @@ public class UserController {
         }
 
         try {
-            long count = userRepository.findAll().stream()
-                    .filter(user -> user.getRole() == Role.SHOP)
-                    .count();
+            long count = userRepository.countByRole(Role.SHOP);
 
             return ResponseEntity.ok(Collections.singletonMap("count", count));
         } catch (Exception e) {
@@ -112,32 +133,16 @@ public class UserController {
      * Check if user is admin
      */
     private boolean isAdmin(String authorization) {
-        System.out.println("[UserController] Checking admin access. Authorization header: " +
-                (authorization == null ? "NULL"
-                        : (authorization.length() > 20 ? authorization.substring(0, 20) + "..." : authorization)));
-
         if (authorization == null || !authorization.startsWith("Bearer ")) {
-            System.out.println("[UserController] Auth header missing or invalid format");
             return false;
         }
 
         String token = authorization.substring(7);
-        System.out.println(
-                "[UserController] Extracted token: " + token.substring(0, Math.min(20, token.length())) + "...");
-
-        boolean isValid = jwtUtil.validateToken(token);
-        System.out.println("[UserController] Token valid: " + isValid);
-
-        if (!isValid) {
+        if (!jwtUtil.validateToken(token)) {
             return false;
         }
 
-        String role = jwtUtil.extractRole(token);
-        System.out.println("[UserController] Extracted role: " + role);
-
-        boolean isAdmin = "ADMIN".equals(role);
-        System.out.println("[UserController] Is admin: " + isAdmin);
-        return isAdmin;
+        return "ADMIN".equals(jwtUtil.extractRole(token));
     }
 
     /**
@@ -189,7 +194,7 @@ public class UserController {
             User newUser = new User();
             newUser.setUsername(username);
             newUser.setEmail(email);
-            newUser.setPassword(new BCryptPasswordEncoder().encode(password));
+            newUser.setPassword(passwordHasher.encode(password));
             newUser.setRole(role);
 
             User savedUser = userRepository.save(newUser);
@@ -201,12 +206,49 @@ public class UserController {
             response.put("role", savedUser.getRole());
 
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Password hashing is busy, please retry in a moment");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error creating user: " + e.getMessage());
         }
     }
 
+    /**
+     * Bulk-create CLIENT/SHOP users from a CSV (username,email,password,role; header optional)
+     * or NDJSON body (admin only). Answers a per-line report; when the import stops early
+     * (row limit, password hashing busy) nextLine says where to resume.
+     */
+    @PostMapping(value = "/users/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importUsers(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+
+        if (!isAdmin(authorization)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
+        }
+
+        UserImportService.Format format = contentType.contains("ndjson")
+                ? UserImportService.Format.NDJSON : UserImportService.Format.CSV;
+        try {
+            UserImportService.Report report = userImportService.importUsers(
+                    new InputStreamReader(body, StandardCharsets.UTF_8), format);
+            return switch (report.outcome()) {
+                case COMPLETE -> ResponseEntity.ok(report);
+                case TOO_MANY_ROWS -> ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(report);
+                case HASHING_BUSY -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .body(report);
+            };
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error importing users: " + e.getMessage());
+        }
+    }
+
     /**
      * Update an existing user (admin only)
      */
@@ -233,7 +275,7 @@ public class UserController {
                 user.setEmail(userRequest.get("email"));
             }
             if (userRequest.containsKey("password") && userRequest.get("password") != null) {
-                user.setPassword(new BCryptPasswordEncoder().encode(userRequest.get("password")));
+                user.setPassword(passwordHasher.encode(userRequest.get("password")));
             }
             if (userRequest.containsKey("role") && userRequest.get("role") != null) {
                 try {
@@ -252,6 +294,10 @@ public class UserController {
             response.put("role", updatedUser.getRole());
 
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Password hashing is busy, please retry in a moment");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error updating user: " + e.getMessage());
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.core.JsonParser;
@@ -12,7 +14,12 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import java.io.IOException;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Role-filtered listings and counts, keyset-paged by id
+        @Index(name = "idx_users_role_id", columnList = "role, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,13 +1,68 @@
 package com.Shadows.authservice.repository;
 
+import com.Shadows.authservice.model.Role;
 import com.Shadows.authservice.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Keyset page of users by id, without the password hash.
+     */
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email, u.role AS role FROM User u "
+            + "WHERE (:role IS NULL OR u.role = :role) AND (:afterId IS NULL OR u.id > :afterId) ORDER BY u.id ASC")
+    List<ListItem> findPage(@Param("role") Role role, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Keyset page of the users with {@code role}, walking idx_users_role_id in id order.
+     */
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email, u.role AS role FROM User u "
+            + "WHERE u.role = :role AND (:afterId IS NULL OR u.id > :afterId) ORDER BY u.id ASC")
+    List<ListItem> findPageByRole(@Param("role") Role role, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Counted from idx_users_role_id alone, without reading the user rows.
+     */
+    long countByRole(Role role);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Swaps in a re-hashed password, unless the password was changed in the meantime.
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    interface ListItem {
+        Long getId();
+
+        String getUsername();
+
+        String getEmail();
+
+        Role getRole();
+    }
+}
@@ -5,8 +5,9 @@ import com.Shadows.authservice.model.User;
 import com.Shadows.authservice.repository.UserRepository;
 import com.Shadows.authservice.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -23,7 +24,7 @@ public class AuthService {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     public ResponseEntity<?> registerUser(User user) {
         try {
@@ -43,12 +44,14 @@ public class AuthService {
             }
 
             // Encode password
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
+            user.setPassword(passwordHasher.encode(user.getPassword()));
 
             // Save user
             User savedUser = userRepository.save(user);
 
             return ResponseEntity.ok("User registered successfully with ID: " + savedUser.getId());
+        } catch (PasswordHashingBusyException e) {
+            return busy();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Registration failed: " + e.getMessage());
         }
@@ -58,7 +61,8 @@ public class AuthService {
         try {
             Optional<User> existingUser = userRepository.findByUsername(user.getUsername());
 
-            if (existingUser.isPresent() && passwordEncoder.matches(user.getPassword(), existingUser.get().getPassword())) {
+            if (existingUser.isPresent() && passwordHasher.matches(user.getPassword(), existingUser.get().getPassword())) {
+                rehashIfNeeded(existingUser.get(), user.getPassword());
                 String token = jwtUtil.generateToken(user.getUsername(), existingUser.get().getRole().name());
                 Map<String, String> response = new HashMap<>();
                 response.put("token", token);
@@ -67,32 +71,44 @@ public class AuthService {
             } else {
                 return ResponseEntity.badRequest().body("Invalid username or password");
             }
+        } catch (PasswordHashingBusyException e) {
+            return busy();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Login failed: " + e.getMessage());
         }
     }
 
+    /**
+     * @throws PasswordHashingBusyException when the password hashing pool is saturated
+     */
     public User register(User user) {
         // Set default role if not present
         if (user.getRole() == null) {
             user.setRole(Role.CLIENT);
         }
         // Encode password
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHasher.encode(user.getPassword()));
         return userRepository.save(user);
     }
 
+    /**
+     * @throws PasswordHashingBusyException when the password hashing pool is saturated
+     */
     public String login(String username, String password) {
         Optional<User> user = userRepository.findByUsername(username);
-        if (user.isPresent() && passwordEncoder.matches(password, user.get().getPassword())) {
+        if (user.isPresent() && passwordHasher.matches(password, user.get().getPassword())) {
+            rehashIfNeeded(user.get(), password);
             return jwtUtil.generateToken(username, user.get().getRole().name());
         }
         return null;
     }
 
+    /**
+     * @throws PasswordHashingBusyException when the password hashing pool is saturated
+     */
     public boolean validateUser(String username, String password) {
         Optional<User> user = userRepository.findByUsername(username);
-        return user.isPresent() && passwordEncoder.matches(password, user.get().getPassword());
+        return user.isPresent() && passwordHasher.matches(password, user.get().getPassword());
     }
 
     public boolean validateToken(String token) {
@@ -103,4 +119,21 @@ public class AuthService {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Brings a hash made with an older work factor up to the current one, off the login path.
+     */
+    private void rehashIfNeeded(User user, String rawPassword) {
+        String current = user.getPassword();
+        if (passwordHasher.needsRehash(current)) {
+            passwordHasher.rehashLater(rawPassword,
+                    newHash -> userRepository.replacePasswordHash(user.getId(), current, newHash));
+        }
+    }
+
+    private static ResponseEntity<String> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many login requests, please retry in a moment");
+    }
+}
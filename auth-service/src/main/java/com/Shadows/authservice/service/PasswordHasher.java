@@ -0,0 +1,185 @@
+package com.Shadows.authservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Runs BCrypt off the request threads.
+ *
+ * Hashes go through a small pool sized to the CPU count with a bounded queue, so a login wave
+ * queues up behind a few busy cores instead of occupying every Tomcat thread, and the token and
+ * user lookups keep being served. When the queue is full, or a hash is not done within the
+ * timeout, callers get a {@link PasswordHashingBusyException} to turn into a quick 503.
+ *
+ * Metrics: auth.password.hash (compute time, by operation), auth.password.hash.wait (time in
+ * the queue), auth.password.hash.queued / .active gauges and auth.password.hash.rejected.
+ */
+@Service
+public class PasswordHasher {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.password.hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private Timer encodeTimer;
+    private Timer matchTimer;
+    private Timer waitTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        matchTimer = Timer.builder("auth.password.hash").tag("operation", "match").register(meterRegistry);
+        waitTimer = Timer.builder("auth.password.hash.wait").register(meterRegistry);
+        rejected = Counter.builder("auth.password.hash.rejected").register(meterRegistry);
+        Gauge.builder("auth.password.hash.queued", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws PasswordHashingBusyException when the pool is saturated
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * @throws PasswordHashingBusyException when the pool is saturated
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        return run(() -> matchTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Whether the hash was made with a lower work factor than the configured one.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return encodedPassword != null && passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Re-hashes with the current work factor in the background and hands the new hash to {@code store}.
+     * Skipped when the pool is saturated: the next successful login tries again.
+     */
+    public void rehashLater(CharSequence rawPassword, Consumer<String> store) {
+        try {
+            executor.execute(() -> {
+                try {
+                    store.accept(encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+                } catch (Exception e) {
+                    log.warn("Password re-hash failed: {}", e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+        }
+    }
+
+    /**
+     * Encodes a batch in parallel, one slice per pool thread, so a bulk import takes at most
+     * one queue slot per thread instead of one per password.
+     *
+     * @throws PasswordHashingBusyException when the pool is saturated
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        if (rawPasswords.isEmpty()) {
+            return List.of();
+        }
+        int slices = Math.min(rawPasswords.size(), executor.getMaxPoolSize());
+        int sliceSize = (rawPasswords.size() + slices - 1) / slices;
+        List<Future<List<String>>> futures = new ArrayList<>(slices);
+        try {
+            for (int from = 0; from < rawPasswords.size(); from += sliceSize) {
+                List<? extends CharSequence> slice = rawPasswords.subList(from, Math.min(rawPasswords.size(), from + sliceSize));
+                futures.add(submit(() -> {
+                    List<String> hashes = new ArrayList<>(slice.size());
+                    for (CharSequence raw : slice) {
+                        hashes.add(encodeTimer.recordCallable(() -> passwordEncoder.encode(raw)));
+                    }
+                    return hashes;
+                }));
+            }
+            List<String> hashes = new ArrayList<>(rawPasswords.size());
+            for (Future<List<String>> future : futures) {
+                hashes.addAll(await(future, timeoutMs * sliceSize));
+            }
+            return hashes;
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        return await(submit(task), timeoutMs);
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing queue is full");
+        }
+    }
+
+    private <T> T await(Future<T> future, long timeoutMs) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.Shadows.authservice.service;
+
+/**
+ * The password hashing pool is saturated; the caller should answer 503 and let the client retry.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
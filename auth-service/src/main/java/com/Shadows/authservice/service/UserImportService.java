@@ -0,0 +1,342 @@
+package com.Shadows.authservice.service;
+
+import com.Shadows.authservice.model.Role;
+import com.Shadows.authservice.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk account creation for partner onboarding.
+ *
+ * The body is read line by line (CSV with an optional header, or NDJSON) and handled in chunks:
+ * each chunk is checked against existing usernames and emails with two IN queries, its
+ * passwords are hashed in parallel on the password pool, and the rows go in with one JDBC
+ * batch (IDENTITY keys keep Hibernate from batching inserts). A chunk that hits a unique key
+ * taken concurrently is retried row by row, so the report still says which rows failed.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO users (username, email, password, role) VALUES (?, ?, ?, ?)";
+    private static final List<String> CSV_COLUMNS = List.of("username", "email", "password", "role");
+
+    public enum Format { CSV, NDJSON }
+
+    public enum RowStatus { CREATED, DUPLICATE, INVALID, FAILED }
+
+    /** COMPLETE, or why the import stopped early */
+    public enum Outcome { COMPLETE, TOO_MANY_ROWS, HASHING_BUSY }
+
+    public record RowResult(long line, String username, RowStatus status, String message) {
+    }
+
+    /**
+     * {@code nextLine} is where to resume when the import stopped early, otherwise null.
+     */
+    public record Report(Outcome outcome, Map<RowStatus, Integer> counts, List<RowResult> rows, Long nextLine) {
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.users.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.users.import.max-rows:20000}")
+    private int maxRows;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Imports CLIENT and SHOP accounts; a missing role means CLIENT.
+     */
+    public Report importUsers(Reader body, Format format) throws IOException {
+        Run run = new Run();
+        BufferedReader reader = new BufferedReader(body);
+        List<String> columns = CSV_COLUMNS;
+        List<Row> chunk = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        int rows = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && rows == 0) {
+                List<String> header = parseCsvLine(line).stream().map(c -> c.trim().toLowerCase(Locale.ROOT)).toList();
+                if (header.contains("username") && header.contains("email")) {
+                    columns = header;
+                    continue;
+                }
+            }
+            if (++rows > maxRows) {
+                if (!chunk.isEmpty() && !flush(chunk, run)) {
+                    return run.stoppedAt(chunk.get(0).line);
+                }
+                return run.report(Outcome.TOO_MANY_ROWS, lineNumber);
+            }
+
+            Row row = format == Format.CSV ? csvRow(lineNumber, line, columns) : jsonRow(lineNumber, line);
+            String problem = row.problem != null ? row.problem : validate(row);
+            if (problem != null) {
+                run.add(row, RowStatus.INVALID, problem);
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                if (!flush(chunk, run)) {
+                    return run.stoppedAt(chunk.get(0).line);
+                }
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (!chunk.isEmpty() && !flush(chunk, run)) {
+            return run.stoppedAt(chunk.get(0).line);
+        }
+        return run.report(Outcome.COMPLETE, null);
+    }
+
+    /**
+     * @return false when the password pool was saturated and nothing from the chunk was written
+     */
+    private boolean flush(List<Row> chunk, Run run) {
+        Set<String> takenUsernames = lowerCase(userRepository.findExistingUsernames(
+                chunk.stream().map(r -> r.username).collect(Collectors.toSet())));
+        Set<String> takenEmails = lowerCase(userRepository.findExistingEmails(
+                chunk.stream().map(r -> r.email).collect(Collectors.toSet())));
+
+        List<Row> fresh = new ArrayList<>(chunk.size());
+        Set<String> chunkUsernames = new HashSet<>();
+        Set<String> chunkEmails = new HashSet<>();
+        for (Row row : chunk) {
+            String username = row.username.toLowerCase(Locale.ROOT);
+            String email = row.email.toLowerCase(Locale.ROOT);
+            if (takenUsernames.contains(username)) {
+                run.add(row, RowStatus.DUPLICATE, "Username already exists");
+            } else if (takenEmails.contains(email)) {
+                run.add(row, RowStatus.DUPLICATE, "Email already exists");
+            } else if (run.usernames.contains(username) || !chunkUsernames.add(username)) {
+                run.add(row, RowStatus.DUPLICATE, "Username appears earlier in the import");
+            } else if (run.emails.contains(email) || !chunkEmails.add(email)) {
+                chunkUsernames.remove(username);
+                run.add(row, RowStatus.DUPLICATE, "Email appears earlier in the import");
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return true;
+        }
+
+        List<String> hashes;
+        try {
+            hashes = passwordHasher.encodeAll(fresh.stream().map(r -> r.password).toList());
+        } catch (PasswordHashingBusyException e) {
+            return false;
+        }
+        List<Object[]> args = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            Row row = fresh.get(i);
+            args.add(new Object[]{row.username, row.email, hashes.get(i), row.role.name()});
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, args));
+            fresh.forEach(row -> run.add(row, RowStatus.CREATED, null));
+        } catch (DataAccessException e) {
+            // Another writer took one of the keys since the check: find out which rows, one by one
+            log.debug("Batch insert failed, retrying row by row: {}", e.getMessage());
+            for (int i = 0; i < fresh.size(); i++) {
+                Row row = fresh.get(i);
+                try {
+                    jdbcTemplate.update(INSERT_SQL, args.get(i));
+                    run.add(row, RowStatus.CREATED, null);
+                } catch (DataIntegrityViolationException duplicate) {
+                    run.add(row, RowStatus.DUPLICATE, "Username or email already exists");
+                } catch (DataAccessException failure) {
+                    run.add(row, RowStatus.FAILED, failure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        fresh.forEach(row -> {
+            run.usernames.add(row.username.toLowerCase(Locale.ROOT));
+            run.emails.add(row.email.toLowerCase(Locale.ROOT));
+        });
+
+        // Inserted behind Hibernate's back: drop cached "no such user" query results
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictQueryRegions();
+        return true;
+    }
+
+    private static String validate(Row row) {
+        if (row.username == null || row.username.isBlank()) {
+            return "Username is required";
+        }
+        if (row.email == null || !row.email.contains("@")) {
+            return "A valid email is required";
+        }
+        if (row.password == null || row.password.isBlank()) {
+            return "Password is required";
+        }
+        if (row.role == Role.ADMIN) {
+            return "Only CLIENT and SHOP accounts can be imported";
+        }
+        return null;
+    }
+
+    private Row jsonRow(long line, String json) {
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            return row(line, text(node, "username"), text(node, "email"), text(node, "password"), text(node, "role"));
+        } catch (IOException e) {
+            return new Row(line, null, null, null, null, "Malformed JSON");
+        }
+    }
+
+    private static Row csvRow(long line, String text, List<String> columns) {
+        List<String> values = parseCsvLine(text);
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < Math.min(columns.size(), values.size()); i++) {
+            fields.put(columns.get(i), values.get(i).trim());
+        }
+        return row(line, fields.get("username"), fields.get("email"), fields.get("password"), fields.get("role"));
+    }
+
+    private static Row row(long line, String username, String email, String password, String role) {
+        Role parsed = Role.CLIENT;
+        if (role != null && !role.isBlank()) {
+            try {
+                parsed = Role.valueOf(role.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return new Row(line, username, email, password, null, "Invalid role. Must be: SHOP, CLIENT");
+            }
+        }
+        return new Row(line, trim(username), trim(email), password, parsed, null);
+    }
+
+    /**
+     * One CSV record per line; fields may be double-quoted, with "" for a quote inside.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static Set<String> lowerCase(List<String> values) {
+        return values.stream().map(v -> v.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+    }
+
+    private record Row(long line, String username, String email, String password, Role role, String problem) {
+    }
+
+    /**
+     * State of one import: results so far, and the keys it already created.
+     */
+    private static final class Run {
+        final List<RowResult> results = new ArrayList<>();
+        final Set<String> usernames = new HashSet<>();
+        final Set<String> emails = new HashSet<>();
+
+        void add(Row row, RowStatus status, String message) {
+            results.add(new RowResult(row.line, row.username, status, message));
+        }
+
+        /**
+         * Report for an import cut short by a busy password pool: everything before {@code line} is final.
+         */
+        Report stoppedAt(long line) {
+            results.removeIf(r -> r.line() >= line);
+            return report(Outcome.HASHING_BUSY, line);
+        }
+
+        Report report(Outcome outcome, Long nextLine) {
+            results.sort(Comparator.comparingLong(RowResult::line));
+            Map<RowStatus, Integer> counts = new HashMap<>();
+            for (RowStatus status : RowStatus.values()) {
+                counts.put(status, 0);
+            }
+            results.forEach(r -> counts.merge(r.status(), 1, Integer::sum));
+            return new Report(outcome, counts, results, nextLine);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.Shadows.authservice.service;
+
+import com.Shadows.authservice.model.Role;
+import com.Shadows.authservice.repository.UserRepository;
+import com.Shadows.authservice.util.KeysetCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset-paginated user listings for the admin endpoints, always one page at a time.
+ */
+@Service
+public class UserListingService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Page {items, nextCursor, limit} of users (optionally of one role), without the password hash.
+     * The limit defaults to {@link KeysetCursor#DEFAULT_LIMIT}; nextCursor is null on the last page.
+     *
+     * @throws IllegalArgumentException on a malformed cursor
+     */
+    public Map<String, Object> page(Role role, Integer limit, String cursor) {
+        int pageSize = KeysetCursor.clampLimit(limit);
+        Long afterId = cursor == null ? null : KeysetCursor.decodeId(cursor);
+        // One extra row tells whether there is a next page
+        Limit fetch = Limit.of(pageSize + 1);
+        List<UserRepository.ListItem> rows = role == null
+                ? userRepository.findPage(null, afterId, fetch)
+                : userRepository.findPageByRole(role, afterId, fetch);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = KeysetCursor.encode(rows.get(pageSize - 1).getId());
+        }
+
+        List<Map<String, Object>> users = rows.stream()
+                .map(user -> {
+                    Map<String, Object> map = new HashMap<>();
+                    map.put("id", user.getId());
+                    map.put("username", user.getUsername());
+                    map.put("email", user.getEmail());
+                    map.put("role", user.getRole());
+                    return map;
+                })
+                .collect(Collectors.toList());
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", users);
+        page.put("nextCursor", nextCursor);
+        page.put("limit", pageSize);
+        return page;
+    }
+}
@@ -1,13 +1,21 @@
 package com.Shadows.authservice.util;
 
+import com.Shadows.jwtcommon.TokenPrincipal;
+import com.Shadows.jwtcommon.TokenVerifier;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 
+/**
+ * Issues tokens; checks go through the shared {@link TokenVerifier}, so a token is verified
+ * once and validateToken / extractUsername / extractRole read the cached principal.
+ */
 @Component
 public class JwtUtil {
 
@@ -17,8 +25,16 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private long expirationTime;
 
+    @Autowired
+    private TokenVerifier tokenVerifier;
+
+    private Key signingKey;
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+        if (signingKey == null) {
+            signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        }
+        return signingKey;
     }
 
     public String generateToken(String username, String role) {
@@ -31,22 +47,16 @@ public class JwtUtil {
                 .compact();
     }
 
+    public Optional<TokenPrincipal> verify(String token) {
+        return tokenVerifier.verify(token);
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return tokenVerifier.require(token).username();
     }
 
     public boolean validateToken(String token, String username) {
-        try {
-            String extractedUsername = extractUsername(token);
-            return (username.equals(extractedUsername) && !isTokenExpired(token));
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return tokenVerifier.verify(token).map(p -> username.equals(p.username())).orElse(false);
     }
 
     /**
@@ -54,40 +64,13 @@ public class JwtUtil {
      * upfront)
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return tokenVerifier.verify(token).isPresent();
     }
 
     /**
      * Extract role from token
      */
     public String extractRole(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .get("role", String.class);
-        } catch (JwtException | IllegalArgumentException e) {
-            return null;
-        }
-    }
-
-    private boolean isTokenExpired(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration()
-                .before(new Date());
+        return tokenVerifier.verify(token).map(TokenPrincipal::role).orElse(null);
     }
-}
\ No newline at end of file
+}
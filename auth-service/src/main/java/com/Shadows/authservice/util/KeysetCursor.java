@@ -0,0 +1,41 @@
+package com.Shadows.authservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque pagination cursor holding the id of the last row of a page, base64url encoded.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Long decodeId(String cursor) {
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Page size to use: DEFAULT_LIMIT when none is given, otherwise clamped to [1, MAX_LIMIT].
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+}
@@ -0,0 +1,111 @@
+package com.Shadows.authservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@TestPropertySource(properties = "app.password.hashing.timeout-ms=2000")
+class PasswordHasherTest {
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private ThreadPoolTaskExecutor passwordHashExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void hashesOnThePoolAndRejectsWhenSaturated() throws InterruptedException {
+        long hashed = hashCount();
+        String hash = passwordHasher.encode("secret");
+        assertTrue(passwordHasher.matches("secret", hash));
+        assertFalse(passwordHasher.matches("wrong", hash));
+        assertEquals(hashed + 3, hashCount());
+
+        // One worker busy and the single queue slot taken: the next hash is refused right away
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        passwordHashExecutor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        passwordHashExecutor.execute(() -> await(release));
+        long start = System.nanoTime();
+        assertThrows(PasswordHashingBusyException.class, () -> passwordHasher.matches("secret", hash));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        assertEquals(1.0, meterRegistry.get("auth.password.hash.rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("auth.password.hash.queued").gauge().value());
+        release.countDown();
+    }
+
+    @Test
+    void hashesFromALowerWorkFactorAreUpgraded() throws InterruptedException {
+        String weak = new BCryptPasswordEncoder(4).encode("secret");
+        assertTrue(passwordHasher.needsRehash(weak));
+
+        AtomicReference<String> stored = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        passwordHasher.rehashLater("secret", newHash -> {
+            stored.set(newHash);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(passwordHasher.needsRehash(stored.get()));
+        assertTrue(passwordHasher.matches("secret", stored.get()));
+    }
+
+    private long hashCount() {
+        return meterRegistry.get("auth.password.hash").timers().stream().mapToLong(t -> t.count()).sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Configuration
+    @Import(PasswordHasher.class)
+    static class Config {
+
+        @Bean
+        BCryptPasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(5);
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor passwordHashExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(1);
+            executor.setMaxPoolSize(1);
+            executor.setQueueCapacity(1);
+            executor.initialize();
+            return executor;
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.Shadows.authservice.service;
+
+import com.Shadows.authservice.model.Role;
+import com.Shadows.authservice.model.User;
+import com.Shadows.authservice.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static com.Shadows.authservice.service.UserImportService.RowStatus.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.users.import.batch-size=2"
+})
+@Import({UserImportService.class, PasswordHasher.class, UserImportServiceTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void csvRowsAreDeduplicatedHashedAndInsertedInBatches() throws IOException {
+        userRepository.save(new User(null, "taken", "taken@shop.com", "x", Role.CLIENT));
+
+        String csv = """
+                email,username,password,role
+                a@shop.com,alice,pw1,SHOP
+                b@shop.com,bob,pw2,
+                c@shop.com,taken,pw3,CLIENT
+
+                a@shop.com,carol,pw4,CLIENT
+                d@shop.com,"dave, jr",pw5,ADMIN
+                e@shop.com,erin,pw6,client
+                """;
+        UserImportService.Report report = userImportService.importUsers(new StringReader(csv), UserImportService.Format.CSV);
+
+        assertEquals(UserImportService.Outcome.COMPLETE, report.outcome());
+        assertEquals(List.of(2L, 3L, 4L, 6L, 7L, 8L), report.rows().stream().map(UserImportService.RowResult::line).toList());
+        assertEquals(List.of(CREATED, CREATED, DUPLICATE, DUPLICATE, INVALID, CREATED),
+                report.rows().stream().map(UserImportService.RowResult::status).toList());
+        assertEquals(3, report.counts().get(CREATED));
+        assertEquals("dave, jr", report.rows().get(4).username());
+
+        assertEquals(4, userRepository.count());
+        User alice = userRepository.findByUsername("alice").orElseThrow();
+        assertEquals(Role.SHOP, alice.getRole());
+        assertTrue(passwordHasher.matches("pw1", alice.getPassword()));
+        assertEquals(Role.CLIENT, userRepository.findByUsername("bob").orElseThrow().getRole());
+    }
+
+    @Test
+    void ndjsonRowsAreImported() throws IOException {
+        String ndjson = """
+                {"username":"frank","email":"f@shop.com","password":"pw","role":"SHOP"}
+                {"username":"gina","email":"g@shop.com"}
+                not json
+                """;
+        UserImportService.Report report = userImportService.importUsers(new StringReader(ndjson), UserImportService.Format.NDJSON);
+
+        assertEquals(List.of(CREATED, INVALID, INVALID),
+                report.rows().stream().map(UserImportService.RowResult::status).toList());
+        assertTrue(userRepository.findByUsername("frank").isPresent());
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        BCryptPasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor passwordHashExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(2);
+            executor.setMaxPoolSize(2);
+            executor.setQueueCapacity(4);
+            executor.initialize();
+            return executor;
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.Shadows.authservice.service;
+
+import com.Shadows.authservice.model.Role;
+import com.Shadows.authservice.model.User;
+import com.Shadows.authservice.repository.UserRepository;
+import com.Shadows.authservice.util.KeysetCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(UserListingService.class)
+class UserListingServiceTest {
+
+    @Autowired
+    private UserListingService userListingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void findPageByRoleWalksOneRoleInIdOrder() {
+        for (int i = 0; i < 7; i++) {
+            save("shop" + i, i % 2 == 0 ? Role.SHOP : Role.CLIENT);
+        }
+
+        List<UserRepository.ListItem> first = userRepository.findPageByRole(Role.SHOP, null, Limit.of(3));
+        assertEquals(List.of("shop0", "shop2", "shop4"), usernames(first));
+        List<UserRepository.ListItem> rest = userRepository.findPageByRole(Role.SHOP, first.get(2).getId(), Limit.of(3));
+        assertEquals(List.of("shop6"), usernames(rest));
+
+        assertEquals(4, userRepository.countByRole(Role.SHOP));
+        assertEquals(3, userRepository.countByRole(Role.CLIENT));
+        assertEquals(0, userRepository.countByRole(Role.ADMIN));
+    }
+
+    @Test
+    void cursorsWalkEverySellerOnce() {
+        for (int i = 0; i < 11; i++) {
+            save("seller" + i, Role.SHOP);
+        }
+        save("client", Role.CLIENT);
+
+        List<Object> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Map<String, Object> page = userListingService.page(Role.SHOP, 4, cursor);
+            assertEquals(4, page.get("limit"));
+            items(page).forEach(u -> {
+                assertEquals(Role.SHOP, u.get("role"));
+                assertFalse(u.containsKey("password"));
+                seen.add(u.get("id"));
+            });
+            cursor = (String) page.get("nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(11, seen.size());
+        assertEquals(11, seen.stream().distinct().count());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void missingLimitStillReturnsOnePage() {
+        for (int i = 0; i < KeysetCursor.DEFAULT_LIMIT + 3; i++) {
+            save("seller" + i, Role.SHOP);
+        }
+
+        Map<String, Object> first = userListingService.page(Role.SHOP, null, null);
+        assertEquals(KeysetCursor.DEFAULT_LIMIT, first.get("limit"));
+        assertEquals(KeysetCursor.DEFAULT_LIMIT, items(first).size());
+        assertNotNull(first.get("nextCursor"));
+
+        Map<String, Object> rest = userListingService.page(null, null, (String) first.get("nextCursor"));
+        assertEquals(3, items(rest).size());
+        assertNull(rest.get("nextCursor"));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> userListingService.page(Role.SHOP, 10, "not-a-cursor"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> items(Map<String, Object> page) {
+        return (List<Map<String, Object>>) page.get("items");
+    }
+
+    private static List<String> usernames(List<UserRepository.ListItem> rows) {
+        return rows.stream().map(UserRepository.ListItem::getUsername).toList();
+    }
+
+    private void save(String username, Role role) {
+        userRepository.save(new User(null, username, username + "@shop.com", "x", role));
+    }
+}
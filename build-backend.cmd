@@ -8,6 +8,8 @@ REM   set "PATH=%JAVA_HOME%\bin;%PATH%"
 
 set ROOT=%~dp0
 
+call :build jwt-common install
+call :build cache-common install
 call :build discovery
 call :build gateway
 call :build auth-service
@@ -19,10 +21,12 @@ exit /b 0
 
 :build
 set MOD=%~1
+set GOAL=%~2
+if "%GOAL%"=="" set GOAL=package
 echo.
 echo ===== Build %MOD% =====
 pushd "%ROOT%%MOD%"
-call mvnw.cmd -q -B clean package -DskipTests
+call mvnw.cmd -q -B clean %GOAL% -DskipTests
 if errorlevel 1 (
   popd
   echo Build echoue: %MOD%
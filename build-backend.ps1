@@ -39,6 +39,8 @@ else {
 }
 
 $modules = @(
+  'jwt-common',
+  'cache-common',
   'discovery',
   'gateway',
   'auth-service',
@@ -60,7 +62,9 @@ foreach ($m in $modules) {
   Write-Host "Build $m" -ForegroundColor Cyan
   Push-Location $moduleDir
   try {
-    & $wrapper -q -B clean package @extraArgs
+    # Shared modules are installed so the services can resolve them
+    $goal = if ($m -in 'jwt-common', 'cache-common') { 'install' } else { 'package' }
+    & $wrapper -q -B clean $goal @extraArgs
   }
   finally {
     Pop-Location
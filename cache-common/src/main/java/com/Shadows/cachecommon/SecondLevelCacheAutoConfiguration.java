@@ -0,0 +1,97 @@
+package com.Shadows.cachecommon;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache for the services that turn it on: local Caffeine caches behind
+ * the JCache API.
+ *
+ * The regions listed in app.cache.entity.regions and the query/timestamps regions are created
+ * here with explicit size and TTL limits (app.cache.*) and statistics on, and the CacheManager
+ * is handed to Hibernate, so nothing depends on provider config files. Hit/miss/put/eviction
+ * counts show up under /actuator/metrics as cache.* (per region).
+ */
+@AutoConfiguration(before = HibernateJpaAutoConfiguration.class)
+@ConditionalOnClass({ConfigSettings.class, CaffeineCachingProvider.class})
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheAutoConfiguration {
+
+    static final String QUERY_REGION = "default-query-results-region";
+    static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${spring.application.name:application}") String applicationName,
+                                              @Value("${app.cache.entity.regions:}") List<String> entityRegions,
+                                              @Value("${app.cache.entity.max-entries:10000}") long entityMaxEntries,
+                                              @Value("${app.cache.entity.ttl-seconds:600}") long entityTtlSeconds,
+                                              @Value("${app.cache.query.max-entries:2000}") long queryMaxEntries,
+                                              @Value("${app.cache.query.ttl-seconds:60}") long queryTtlSeconds) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(applicationName + "-l2"), getClass().getClassLoader(), new Properties());
+        for (String region : entityRegions) {
+            createRegion(cacheManager, region, entityMaxEntries, entityTtlSeconds);
+        }
+        createRegion(cacheManager, QUERY_REGION, queryMaxEntries, queryTtlSeconds);
+        // Update timestamps must never be evicted before the query results that depend on them
+        createRegion(cacheManager, TIMESTAMPS_REGION, 0, 0);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * Per-region meters, tagged layer=hibernate-l2.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class SecondLevelCacheMetricsConfiguration {
+
+        @Bean
+        public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+            return registry -> {
+                for (String name : hibernateCacheManager.getCacheNames()) {
+                    JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(name), Tags.of("layer", "hibernate-l2"));
+                }
+            };
+        }
+    }
+
+    private static void createRegion(CacheManager cacheManager, String name, long maxEntries, long ttlSeconds) {
+        if (cacheManager.getCache(name) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        if (maxEntries > 0) {
+            config.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        if (ttlSeconds > 0) {
+            config.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+        config.setStatisticsEnabled(true);
+        cacheManager.createCache(name, config);
+    }
+}
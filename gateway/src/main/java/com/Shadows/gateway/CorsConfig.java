@@ -25,6 +25,8 @@ public class CorsConfig {
         config.setAllowCredentials(true);
         config.setAllowedHeaders(Arrays.asList("*"));
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        // Lu par le front pour savoir si les recommandations vont être mises à jour
+        config.setExposedHeaders(Arrays.asList("X-Recommendation-Freshness"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
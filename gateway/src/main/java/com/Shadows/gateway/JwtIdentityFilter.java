@@ -0,0 +1,92 @@
+package com.Shadows.gateway;
+
+import com.Shadows.jwtcommon.ForwardedIdentity;
+import com.Shadows.jwtcommon.TokenPrincipal;
+import com.Shadows.jwtcommon.TokenVerifier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies the bearer token once, at the edge.
+ *
+ * A bad or expired token is answered with 401 here, before it reaches a service (except on the
+ * public paths, e.g. login, where a stale token must not block the request). A valid token is
+ * forwarded with signed X-Auth-* identity headers that services can trust instead of verifying
+ * the JWT again. Identity headers sent by clients are always dropped.
+ */
+@Component
+public class JwtIdentityFilter implements GlobalFilter, Ordered {
+
+    private static final String BEARER = "Bearer ";
+
+    @Autowired
+    private TokenVerifier tokenVerifier;
+
+    @Autowired
+    private ForwardedIdentity forwardedIdentity;
+
+    private final List<PathPattern> publicPaths;
+
+    public JwtIdentityFilter(@Value("${gateway.auth.public-paths:/auth/**}") List<String> publicPaths) {
+        PathPatternParser parser = new PathPatternParser();
+        this.publicPaths = publicPaths.stream().map(String::trim).map(parser::parse).collect(Collectors.toList());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        String token = authorization != null && authorization.startsWith(BEARER)
+                ? authorization.substring(BEARER.length()).trim() : null;
+
+        Optional<TokenPrincipal> principal = token == null ? Optional.empty() : tokenVerifier.verify(token);
+        if (token != null && principal.isEmpty() && !isPublic(request)) {
+            return unauthorized(exchange.getResponse());
+        }
+
+        ServerHttpRequest forwarded = request.mutate().headers(headers -> {
+            ForwardedIdentity.HEADERS.forEach(headers::remove);
+            principal.ifPresent(p -> forwardedIdentity.headersFor(p, token).forEach(headers::set));
+        }).build();
+        return chain.filter(exchange.mutate().request(forwarded).build());
+    }
+
+    @Override
+    public int getOrder() {
+        // Before the load-balancer and routing filters
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+
+    private boolean isPublic(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        return publicPaths.stream().anyMatch(p -> p.matches(path));
+    }
+
+    private static Mono<Void> unauthorized(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer body = response.bufferFactory()
+                .wrap("{\"error\":\"Invalid or expired token\"}".getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+}
@@ -0,0 +1,85 @@
+package com.Shadows.gateway;
+
+import com.Shadows.jwtcommon.ForwardedIdentity;
+import com.Shadows.jwtcommon.TokenVerifier;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtIdentityFilterTest {
+
+    private static final String SECRET = "test-secret-key-that-is-at-least-256-bits-long-for-hs256";
+
+    private final ForwardedIdentity forwardedIdentity = new ForwardedIdentity("identity-secret");
+    private final JwtIdentityFilter filter = new JwtIdentityFilter(List.of("/auth/**"));
+    private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.set(exchange);
+        return Mono.empty();
+    };
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "tokenVerifier", new TokenVerifier(SECRET, 100, Duration.ofMinutes(5)));
+        ReflectionTestUtils.setField(filter, "forwardedIdentity", forwardedIdentity);
+    }
+
+    @Test
+    void validTokenIsForwardedWithSignedIdentityAndSpoofedHeadersDropped() {
+        String token = token(SECRET, 60_000);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/order-service/cart")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(ForwardedIdentity.ROLE_HEADER, "ADMIN"));
+
+        filter.filter(exchange, chain).block();
+
+        HttpHeaders headers = forwarded.get().getRequest().getHeaders();
+        assertEquals("alice", headers.getFirst(ForwardedIdentity.USER_HEADER));
+        assertEquals("CLIENT", headers.getFirst(ForwardedIdentity.ROLE_HEADER));
+        assertTrue(forwardedIdentity.verify(headers::getFirst, token).isPresent());
+    }
+
+    @Test
+    void badTokenIsRejectedAtTheEdgeExceptOnPublicPaths() {
+        String expired = token(SECRET, -1_000);
+
+        MockServerWebExchange rejected = MockServerWebExchange.from(MockServerHttpRequest.get("/order-service/cart")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + expired));
+        filter.filter(rejected, chain).block();
+        assertEquals(HttpStatus.UNAUTHORIZED, rejected.getResponse().getStatusCode());
+        assertNull(forwarded.get());
+
+        MockServerWebExchange login = MockServerWebExchange.from(MockServerHttpRequest.post("/auth/login")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + expired)
+                .header(ForwardedIdentity.USER_HEADER, "admin"));
+        filter.filter(login, chain).block();
+        assertNotNull(forwarded.get());
+        assertNull(forwarded.get().getRequest().getHeaders().getFirst(ForwardedIdentity.USER_HEADER));
+    }
+
+    private static String token(String secret, long ttlMs) {
+        return Jwts.builder()
+                .setSubject("alice")
+                .claim("role", "CLIENT")
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMs))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
@@ -0,0 +1,116 @@
+package com.Shadows.jwtcommon;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Identity the gateway forwards after verifying a bearer token, as X-Auth-* request headers.
+ *
+ * The headers carry the username, role and token expiry, plus an HMAC-SHA256 over those values
+ * and the SHA-256 of the bearer token they were derived from. A service that trusts the gateway
+ * checks one small HMAC instead of decoding and verifying the JWT, and the signature ties the
+ * identity to the Authorization header of the same request, so headers cannot be forged or
+ * moved to another token without the shared gateway.identity.secret.
+ */
+public class ForwardedIdentity {
+
+    public static final String USER_HEADER = "X-Auth-User";
+    public static final String ROLE_HEADER = "X-Auth-Role";
+    public static final String EXPIRES_HEADER = "X-Auth-Expires";
+    public static final String SIGNATURE_HEADER = "X-Auth-Signature";
+
+    public static final List<String> HEADERS = List.of(USER_HEADER, ROLE_HEADER, EXPIRES_HEADER, SIGNATURE_HEADER);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+
+    public ForwardedIdentity(String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac m = Mac.getInstance(ALGORITHM);
+                m.init(key);
+                return m;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * Headers to add to a request whose bearer {@code token} was verified as {@code principal}.
+     */
+    public Map<String, String> headersFor(TokenPrincipal principal, String token) {
+        String user = nullToEmpty(principal.username());
+        String role = nullToEmpty(principal.role());
+        String expires = principal.expiresAt() == null ? "" : Long.toString(principal.expiresAt().getEpochSecond());
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(USER_HEADER, user);
+        headers.put(ROLE_HEADER, role);
+        headers.put(EXPIRES_HEADER, expires);
+        headers.put(SIGNATURE_HEADER, sign(user, role, expires, token));
+        return headers;
+    }
+
+    /**
+     * The forwarded principal, if the headers are present, correctly signed for {@code token}
+     * and not expired.
+     *
+     * @param headers header lookup of the incoming request (e.g. {@code request::getHeader})
+     */
+    public Optional<TokenPrincipal> verify(Function<String, String> headers, String token) {
+        String signature = headers.apply(SIGNATURE_HEADER);
+        String user = headers.apply(USER_HEADER);
+        if (signature == null || user == null || user.isEmpty() || token == null) {
+            return Optional.empty();
+        }
+        String role = nullToEmpty(headers.apply(ROLE_HEADER));
+        String expires = nullToEmpty(headers.apply(EXPIRES_HEADER));
+
+        byte[] expected = sign(user, role, expires, token).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII))) {
+            return Optional.empty();
+        }
+
+        Instant expiresAt = null;
+        if (!expires.isEmpty()) {
+            try {
+                expiresAt = Instant.ofEpochSecond(Long.parseLong(expires));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+            if (!expiresAt.isAfter(Instant.now())) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new TokenPrincipal(user, role.isEmpty() ? null : role, expiresAt));
+    }
+
+    private String sign(String user, String role, String expires, String token) {
+        try {
+            byte[] tokenHash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            String payload = user + '\n' + role + '\n' + expires + '\n' + Base64.getEncoder().encodeToString(tokenHash);
+            byte[] signature = mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
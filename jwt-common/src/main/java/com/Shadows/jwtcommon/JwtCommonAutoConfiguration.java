@@ -0,0 +1,52 @@
+package com.Shadows.jwtcommon;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Registers a {@link TokenVerifier} and a {@link ForwardedIdentity} in every service that sets jwt.secret.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "jwt.secret")
+public class JwtCommonAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenVerifier tokenVerifier(@Value("${jwt.secret}") String secret,
+                                       @Value("${jwt.cache.max-entries:10000}") long maxEntries,
+                                       @Value("${jwt.cache.max-ttl-seconds:3600}") long maxTtlSeconds) {
+        return new TokenVerifier(secret, maxEntries, Duration.ofSeconds(maxTtlSeconds));
+    }
+
+    /**
+     * Signs / checks the identity headers the gateway forwards. Uses gateway.identity.secret,
+     * falling back to jwt.secret.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ForwardedIdentity forwardedIdentity(@Value("${gateway.identity.secret:${jwt.secret}}") String secret) {
+        return new ForwardedIdentity(secret);
+    }
+
+    /**
+     * Hit/miss counts of the verified-token cache, as cache.* meters named "jwt.verified".
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class TokenCacheMetricsConfiguration {
+
+        @Bean
+        public MeterBinder tokenCacheMetrics(TokenVerifier tokenVerifier) {
+            return registry -> CaffeineCacheMetrics.monitor(registry, tokenVerifier.cache(), "jwt.verified");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.Shadows.jwtcommon;
+
+import java.time.Instant;
+
+/**
+ * Identity carried by a verified token.
+ *
+ * @param username  token subject
+ * @param role      "role" claim, may be null
+ * @param expiresAt token expiry, null when the token has none
+ */
+public record TokenPrincipal(
+        String username,
+        String role,
+        Instant expiresAt
+) {
+    public boolean hasRole(String expected) {
+        return role != null && role.equalsIgnoreCase(expected);
+    }
+}
@@ -0,0 +1,119 @@
+package com.Shadows.jwtcommon;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Verifies HS256 tokens signed with the shared jwt.secret.
+ *
+ * The signing key and parser are built once. Verified tokens are kept in a bounded cache keyed
+ * by the SHA-256 of the token, each entry expiring with its token (or after maxTtl, whichever
+ * comes first), so the validate / username / role calls of one request, and the following
+ * requests with the same token, cost a hash and a map lookup instead of an HMAC check each.
+ * Invalid tokens are never cached.
+ */
+public class TokenVerifier {
+
+    private final JwtParser parser;
+    private final Cache<String, TokenPrincipal> verified;
+
+    public TokenVerifier(String secret, long maxEntries, Duration maxTtl) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes()))
+                .build();
+        long maxTtlNanos = maxTtl.toNanos();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, TokenPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenPrincipal principal, long currentTime) {
+                        if (principal.expiresAt() == null) {
+                            return maxTtlNanos;
+                        }
+                        long untilExpiry = Duration.between(Instant.now(), principal.expiresAt()).toNanos();
+                        return Math.max(0L, Math.min(untilExpiry, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenPrincipal principal, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenPrincipal principal, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The token's principal, or empty if it is malformed, badly signed or expired.
+     */
+    public Optional<TokenPrincipal> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        String key = hash(token);
+        TokenPrincipal cached = verified.getIfPresent(key);
+        if (cached != null) {
+            if (cached.expiresAt() == null || cached.expiresAt().isAfter(Instant.now())) {
+                return Optional.of(cached);
+            }
+            verified.invalidate(key);
+            return Optional.empty();
+        }
+
+        TokenPrincipal principal;
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            principal = new TokenPrincipal(claims.getSubject(), claims.get("role", String.class),
+                    expiration == null ? null : expiration.toInstant());
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        verified.put(key, principal);
+        return Optional.of(principal);
+    }
+
+    /**
+     * Same as {@link #verify(String)} but throws on an invalid token.
+     *
+     * @throws JwtException if the token cannot be verified
+     */
+    public TokenPrincipal require(String token) {
+        return verify(token).orElseThrow(() -> new JwtException("Invalid or expired token"));
+    }
+
+    public Cache<String, TokenPrincipal> cache() {
+        return verified;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
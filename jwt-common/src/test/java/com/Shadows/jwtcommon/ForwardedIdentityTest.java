@@ -0,0 +1,45 @@
+package com.Shadows.jwtcommon;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForwardedIdentityTest {
+
+    private final ForwardedIdentity forwardedIdentity = new ForwardedIdentity("gateway-identity-secret");
+
+    @Test
+    void signedHeadersRoundTrip() {
+        TokenPrincipal principal = new TokenPrincipal("alice", "SELLER", Instant.now().plusSeconds(600));
+        Map<String, String> headers = forwardedIdentity.headersFor(principal, "token-a");
+
+        TokenPrincipal forwarded = forwardedIdentity.verify(headers::get, "token-a").orElseThrow();
+
+        assertEquals("alice", forwarded.username());
+        assertEquals("SELLER", forwarded.role());
+        assertEquals(principal.expiresAt().getEpochSecond(), forwarded.expiresAt().getEpochSecond());
+    }
+
+    @Test
+    void tamperedForeignOrExpiredHeadersAreRejected() {
+        TokenPrincipal principal = new TokenPrincipal("alice", "CLIENT", Instant.now().plusSeconds(600));
+        Map<String, String> headers = new HashMap<>(forwardedIdentity.headersFor(principal, "token-a"));
+
+        // Same headers presented with another bearer token
+        assertTrue(forwardedIdentity.verify(headers::get, "token-b").isEmpty());
+
+        headers.put(ForwardedIdentity.ROLE_HEADER, "ADMIN");
+        assertTrue(forwardedIdentity.verify(headers::get, "token-a").isEmpty());
+
+        Map<String, String> otherSecret = new ForwardedIdentity("another-secret").headersFor(principal, "token-a");
+        assertTrue(forwardedIdentity.verify(otherSecret::get, "token-a").isEmpty());
+
+        TokenPrincipal expired = new TokenPrincipal("alice", "CLIENT", Instant.now().minusSeconds(1));
+        Map<String, String> stale = forwardedIdentity.headersFor(expired, "token-a");
+        assertTrue(forwardedIdentity.verify(stale::get, "token-a").isEmpty());
+    }
+}
@@ -0,0 +1,54 @@
+package com.Shadows.jwtcommon;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenVerifierTest {
+
+    private static final String SECRET = "test-secret-key-that-is-at-least-256-bits-long-for-hs256";
+
+    private final TokenVerifier verifier = new TokenVerifier(SECRET, 100, Duration.ofMinutes(5));
+
+    @Test
+    void validTokenIsVerifiedOnceThenServedFromCache() {
+        String token = token(SECRET, "alice", "ADMIN", 60_000);
+
+        TokenPrincipal first = verifier.require(token);
+        TokenPrincipal second = verifier.require(token);
+
+        assertEquals("alice", first.username());
+        assertTrue(first.hasRole("admin"));
+        assertSame(first, second);
+        assertEquals(1, verifier.cache().stats().hitCount());
+    }
+
+    @Test
+    void badSignatureAndExpiredTokensAreRejectedAndNotCached() {
+        String forged = token("another-secret-key-that-is-at-least-256-bits-long-too", "mallory", "ADMIN", 60_000);
+        String expired = token(SECRET, "bob", "CLIENT", -1_000);
+
+        assertTrue(verifier.verify(forged).isEmpty());
+        assertTrue(verifier.verify(expired).isEmpty());
+        assertTrue(verifier.verify("not-a-jwt").isEmpty());
+        assertThrows(JwtException.class, () -> verifier.require(forged));
+        assertEquals(0, verifier.cache().estimatedSize());
+    }
+
+    private static String token(String secret, String username, String role, long ttlMs) {
+        return Jwts.builder()
+                .setSubject(username)
+                .claim("role", role)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMs))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
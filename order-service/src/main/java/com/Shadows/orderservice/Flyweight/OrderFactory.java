@@ -3,9 +3,7 @@ package com.Shadows.orderservice.Flyweight;
 import com.Shadows.orderservice.model.Product;
 import com.Shadows.orderservice.model.Order;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class OrderFactory {
@@ -17,9 +15,7 @@ public class OrderFactory {
 
         if (!orderCache.containsKey(key)) {
             Order newOrder = new Order();
-            List<Product> products = new ArrayList<>();
-            products.add(product);
-            newOrder.setProducts(products);
+            newOrder.addLine(product, quantity);
             newOrder.setQuantity(quantity);
             orderCache.put(key, newOrder);
             System.out.println("✅ Nouvelle instance Order créée pour : " + key);
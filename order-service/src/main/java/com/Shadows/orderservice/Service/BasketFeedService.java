@@ -0,0 +1,27 @@
+package com.Shadows.orderservice.Service;
+
+import java.util.List;
+
+public interface BasketFeedService {
+
+    /**
+     * Baskets of orders paid after the cursor ({@code since}, {@code afterId}), oldest payment
+     * first, at most {@code limit} of them. Start from (0, 0) for everything.
+     */
+    Feed paidSince(long since, long afterId, int limit);
+
+    /**
+     * @param since    paid-at (epoch millis) of the last basket returned, to pass back with {@code afterId}
+     * @param afterId  order id of the last basket returned
+     * @param hasMore  more baskets follow; call again with the returned cursor
+     */
+    record Feed(long since, long afterId, boolean hasMore, List<Basket> baskets) {
+    }
+
+    /**
+     * The distinct products of one paid order (deleted products left out), and the units bought
+     * of each: {@code quantities.get(i)} is for {@code productIds.get(i)}.
+     */
+    record Basket(Long orderId, long paidAt, List<Long> productIds, List<Integer> quantities) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.repository.OrderLineRepository;
+import com.Shadows.orderservice.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stream of paid baskets for the recommender's co-purchase index.
+ *
+ * Orders are stamped with paidAt the first time they reach a paid status and read back in
+ * (paidAt, id) order. Baskets paid within the last orders.baskets.settle-ms are held back, so a
+ * transaction that stamped an earlier paidAt but commits a little later is not skipped by a
+ * reader already past it.
+ */
+@Service
+public class BasketFeedServiceImp implements BasketFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(BasketFeedServiceImp.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${orders.baskets.settle-ms:5000}")
+    private long settleMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Stamps paidAt on paid orders that predate it, so they are part of the feed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            int stamped = transactionTemplate.execute(status ->
+                    orderRepository.backfillPaidAt(OrderServiceImp.COMPLETED_STATUSES, new Date()));
+            if (stamped > 0) {
+                log.info("Stamped paidAt on {} paid orders", stamped);
+            }
+        } catch (Exception e) {
+            log.warn("Could not backfill paidAt: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Feed paidSince(long since, long afterId, int limit) {
+        Date until = new Date(System.currentTimeMillis() - settleMs);
+        List<OrderRepository.PaidOrder> orders = orderRepository.findPaidSince(new Date(since), afterId, until,
+                Limit.of(limit + 1));
+        boolean hasMore = orders.size() > limit;
+        if (hasMore) {
+            orders = orders.subList(0, limit);
+        }
+        if (orders.isEmpty()) {
+            return new Feed(since, afterId, false, List.of());
+        }
+
+        // Units per product, in line order
+        Map<Long, Map<Long, Integer>> products = new HashMap<>();
+        for (OrderLineRepository.BasketItem item : orderLineRepository.findBasketItems(
+                orders.stream().map(OrderRepository.PaidOrder::getId).toList())) {
+            products.computeIfAbsent(item.getOrderId(), k -> new LinkedHashMap<>())
+                    .merge(item.getProductId(), Math.max(1, item.getQuantity()), Integer::sum);
+        }
+        List<Basket> baskets = new ArrayList<>(orders.size());
+        for (OrderRepository.PaidOrder order : orders) {
+            Map<Long, Integer> units = products.getOrDefault(order.getId(), Map.of());
+            baskets.add(new Basket(order.getId(), order.getPaidAt().getTime(),
+                    List.copyOf(units.keySet()), List.copyOf(units.values())));
+        }
+        Basket last = baskets.get(baskets.size() - 1);
+        return new Feed(last.paidAt(), last.orderId(), hasMore, baskets);
+    }
+}
@@ -0,0 +1,49 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CatalogChangeService {
+
+    /**
+     * Records that these products were created or updated. Inside a transaction the change
+     * is written with it (one version per transaction); otherwise it is written right away.
+     */
+    void productsChanged(Collection<Long> productIds);
+
+    void productDeleted(Long productId);
+
+    /**
+     * Records a stock change of these products without taking the version lock: the entries are
+     * written with the caller's transaction and get their version from the next flush
+     * (catalog.changes.flush-interval-ms), so checkouts of unrelated products never wait on each other.
+     */
+    void stockChanged(Collection<Long> productIds);
+
+    /**
+     * Current catalog version (0 before anything was recorded).
+     */
+    long currentVersion();
+
+    /**
+     * Products changed or deleted after version {@code since}, at most {@code limit} of them.
+     * Each product appears once, with its current state.
+     */
+    Feed changesSince(long since, int limit);
+
+    /**
+     * @param version  version the caller is up to date with after applying {@code changes}
+     * @param reset    the caller's version is older than the retained history: drop the replica and sync from 0
+     * @param hasMore  more changes follow; call again with {@code since = version}
+     */
+    record Feed(long version, boolean reset, boolean hasMore, List<Entry> changes) {
+    }
+
+    /**
+     * A changed product ({@code product} set) or a deleted one ({@code deleted} true, no product).
+     */
+    record Entry(long version, Long productId, boolean deleted, Product product) {
+    }
+}
@@ -0,0 +1,319 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.CatalogChange;
+import com.Shadows.orderservice.model.CatalogVersion;
+import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.repository.CatalogChangeRepository;
+import com.Shadows.orderservice.repository.CatalogVersionRepository;
+import com.Shadows.orderservice.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Catalog change feed for replicas (recommendation-service, front caches).
+ *
+ * Every transaction that touches products bumps the single catalog_version row once, right
+ * before it commits, and appends one catalog_change row per touched product. The bump keeps
+ * the row locked until commit, so versions are committed in order: once a reader sees version
+ * N, every change up to N is visible and "changes since N" never skips a late commit.
+ *
+ * Stock changes from checkouts would make every checkout wait on that row, so they skip it:
+ * they are appended as pending entries (version 0, plain inserts) and a scheduled flush gives
+ * every committed pending entry the next version in one short transaction of its own.
+ *
+ * A scheduled compaction drops entries superseded by a newer change of the same product, and
+ * delete markers older than the retention period; replicas behind the purged markers are told
+ * to resync from 0.
+ */
+@Service
+public class CatalogChangeServiceImp implements CatalogChangeService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeServiceImp.class);
+
+    private static final int BATCH_SIZE = 200;
+    private static final int FLUSH_BATCH = 1000;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
+
+    @Autowired
+    private CatalogVersionRepository catalogVersionRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${catalog.changes.delete-retention-days:30}")
+    private int deleteRetentionDays;
+
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate newTransactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Seeds the feed with every existing product the first time it runs against a populated catalog.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            if (catalogChangeRepository.count() > 0) {
+                return;
+            }
+            List<Long> ids = productRepository.findAllIds();
+            for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+                List<Long> batch = ids.subList(i, Math.min(ids.size(), i + BATCH_SIZE));
+                transactionTemplate.executeWithoutResult(status -> productsChanged(batch));
+            }
+            if (!ids.isEmpty()) {
+                log.info("Catalog change feed seeded with {} products", ids.size());
+            }
+        } catch (Exception e) {
+            log.warn("Could not seed catalog change feed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void productsChanged(Collection<Long> productIds) {
+        Map<Long, Boolean> changes = new LinkedHashMap<>();
+        for (Long id : productIds) {
+            if (id != null) {
+                changes.put(id, false);
+            }
+        }
+        record(changes);
+    }
+
+    @Override
+    public void productDeleted(Long productId) {
+        if (productId != null) {
+            record(Map.of(productId, true));
+        }
+    }
+
+    @Override
+    public void stockChanged(Collection<Long> productIds) {
+        List<CatalogChange> rows = new ArrayList<>(productIds.size());
+        for (Long id : new LinkedHashSet<>(productIds)) {
+            if (id != null) {
+                rows.add(new CatalogChange(CatalogChange.PENDING, id, false));
+            }
+        }
+        catalogChangeRepository.saveAll(rows);
+    }
+
+    /**
+     * Versions the pending stock changes, one entry per product; duplicates are dropped.
+     */
+    @Scheduled(fixedDelayString = "${catalog.changes.flush-interval-ms:1000}",
+            initialDelayString = "${catalog.changes.flush-interval-ms:1000}")
+    public void flushStockChanges() {
+        try {
+            List<CatalogChangeRepository.PendingChange> pending;
+            do {
+                pending = catalogChangeRepository.findPending(Limit.of(FLUSH_BATCH));
+                Map<Long, Long> latest = new LinkedHashMap<>();
+                List<Long> duplicates = new ArrayList<>();
+                for (CatalogChangeRepository.PendingChange change : pending) {
+                    Long previous = latest.put(change.getProductId(), change.getId());
+                    if (previous != null) {
+                        duplicates.add(previous);
+                    }
+                }
+                if (latest.isEmpty()) {
+                    return;
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    long version = nextVersion();
+                    if (!duplicates.isEmpty()) {
+                        catalogChangeRepository.deleteByIds(duplicates);
+                    }
+                    catalogChangeRepository.assignVersion(latest.values(), version);
+                });
+            } while (pending.size() == FLUSH_BATCH);
+        } catch (Exception e) {
+            log.warn("Could not flush stock changes to the catalog feed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public long currentVersion() {
+        Long version = catalogVersionRepository.findVersion(CatalogVersion.ID);
+        return version == null ? 0L : version;
+    }
+
+    @Override
+    public Feed changesSince(long since, int limit) {
+        return transactionTemplate.execute(status -> {
+            // Read the version first: every change up to it is already committed
+            long current = currentVersion();
+            long compactedThrough = catalogVersionRepository.findById(CatalogVersion.ID)
+                    .map(CatalogVersion::getCompactedThrough).orElse(0L);
+            if (since > 0 && since < compactedThrough) {
+                return new Feed(0L, true, false, List.of());
+            }
+
+            List<CatalogChange> rows = catalogChangeRepository.findLatestSince(since, Limit.of(limit + 1));
+            boolean hasMore = rows.size() > limit;
+            long version = current;
+            if (hasMore) {
+                // Never split a version across pages, the next call resumes after the last one returned
+                long boundary = rows.get(limit).getVersion();
+                List<CatalogChange> page = new ArrayList<>();
+                for (CatalogChange c : rows.subList(0, limit)) {
+                    if (c.getVersion() != boundary) {
+                        page.add(c);
+                    }
+                }
+                if (page.isEmpty()) {
+                    page = catalogChangeRepository.findLatestSince(boundary - 1, Limit.unlimited()).stream()
+                            .filter(c -> c.getVersion() == boundary)
+                            .collect(Collectors.toList());
+                }
+                rows = page;
+                version = rows.get(rows.size() - 1).getVersion();
+            }
+
+            List<Long> changedIds = rows.stream().filter(c -> !c.isDeleted())
+                    .map(CatalogChange::getProductId).collect(Collectors.toList());
+            Map<Long, Product> products = productRepository.findAllById(changedIds).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+            List<Entry> entries = new ArrayList<>(rows.size());
+            for (CatalogChange c : rows) {
+                Product product = c.isDeleted() ? null : products.get(c.getProductId());
+                // A product missing here was deleted by a change that is not visible yet
+                entries.add(new Entry(c.getVersion(), c.getProductId(), product == null, product));
+            }
+            return new Feed(version, false, hasMore, entries);
+        });
+    }
+
+    /**
+     * Drops superseded entries, then delete markers past the retention period.
+     */
+    @Scheduled(fixedDelayString = "${catalog.changes.compact-interval-ms:3600000}",
+            initialDelayString = "${catalog.changes.compact-interval-ms:3600000}")
+    public void compact() {
+        try {
+            int removed = 0;
+            List<Long> superseded;
+            while (!(superseded = catalogChangeRepository.findSupersededIds(Limit.of(1000))).isEmpty()) {
+                List<Long> batch = superseded;
+                removed += transactionTemplate.execute(status -> catalogChangeRepository.deleteByIds(batch));
+            }
+
+            Date before = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(deleteRetentionDays));
+            Long purgeThrough = catalogChangeRepository.findMaxDeletedVersionBefore(before);
+            if (purgeThrough != null) {
+                removed += transactionTemplate.execute(status -> {
+                    catalogVersionRepository.raiseCompactedThrough(CatalogVersion.ID, purgeThrough);
+                    return catalogChangeRepository.deleteDeletedThrough(purgeThrough);
+                });
+            }
+            if (removed > 0) {
+                log.info("Catalog change feed compacted ({} entries removed)", removed);
+            }
+        } catch (Exception e) {
+            log.warn("Could not compact catalog change feed: {}", e.getMessage());
+        }
+    }
+
+    private void record(Map<Long, Boolean> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTemplate.executeWithoutResult(status -> write(changes));
+            return;
+        }
+
+        // Collect everything the transaction touches and write it once, just before commit,
+        // so the version row is only locked for the commit itself
+        @SuppressWarnings("unchecked")
+        Map<Long, Boolean> pending = (Map<Long, Boolean>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Long, Boolean> created = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CatalogChangeServiceImp.this);
+                }
+            });
+            pending = created;
+        }
+        pending.putAll(changes);
+    }
+
+    private void write(Map<Long, Boolean> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        long version = nextVersion();
+        List<CatalogChange> rows = new ArrayList<>(changes.size());
+        changes.forEach((id, deleted) -> rows.add(new CatalogChange(version, id, deleted)));
+        catalogChangeRepository.saveAll(rows);
+    }
+
+    /**
+     * Bumps the version row (locking it until the caller commits) and returns the new version.
+     */
+    private long nextVersion() {
+        if (catalogVersionRepository.increment(CatalogVersion.ID) == 0) {
+            createVersionRow();
+            catalogVersionRepository.increment(CatalogVersion.ID);
+        }
+        return catalogVersionRepository.findVersion(CatalogVersion.ID);
+    }
+
+    /**
+     * Creates the version row in its own transaction; losing the race to another writer is fine.
+     */
+    private void createVersionRow() {
+        try {
+            newTransactionTemplate.executeWithoutResult(status ->
+                    catalogVersionRepository.saveAndFlush(new CatalogVersion(CatalogVersion.ID, 0L, 0L)));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Catalog version row created concurrently");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.Order;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public interface DashboardStatsService {
+
+    void orderCreated(Order order);
+
+    void orderStatusChanged(String oldStatus, String newStatus, BigDecimal amount);
+
+    void orderDeleted(Order order);
+
+    void productCreated(String seller);
+
+    void productDeleted(String seller);
+
+    /**
+     * Current counters, read from memory.
+     */
+    Snapshot snapshot();
+
+    /**
+     * Rebuilds every counter from the orders and product tables, to repair any drift.
+     */
+    Snapshot recompute();
+
+    class Snapshot {
+        public long totalProducts;
+        public long totalSellers;
+        public long totalOrders;
+        public BigDecimal totalRevenue;
+        public Map<String, Long> ordersByStatus;
+        public Map<String, BigDecimal> revenueByStatus;
+    }
+}
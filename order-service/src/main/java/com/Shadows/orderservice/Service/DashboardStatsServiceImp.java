@@ -0,0 +1,334 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.DashboardStat;
+import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.repository.DashboardStatRepository;
+import com.Shadows.orderservice.repository.OrderRepository;
+import com.Shadows.orderservice.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admin dashboard counters kept up to date by the order and product write paths.
+ *
+ * Every change is applied to in-memory atomic counters right away (after commit when a
+ * transaction is running) and queued as a delta. A scheduled flush adds the queued deltas
+ * to the dashboard_stat rows with in-place UPDATEs, then re-reads the table so each
+ * instance also picks up what the others flushed. Reading the dashboard never touches the
+ * orders or product tables; {@link #recompute()} rebuilds everything from them if the
+ * counters ever drift (e.g. a crash before a flush).
+ */
+@Service
+public class DashboardStatsServiceImp implements DashboardStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStatsServiceImp.class);
+
+    static final String PRODUCTS = "products";
+    static final String ORDER_COUNT_PREFIX = "orders.count.";
+    static final String ORDER_AMOUNT_PREFIX = "orders.amount.";
+    static final String SELLER_PREFIX = "seller.products.";
+
+    @Autowired
+    private DashboardStatRepository dashboardStatRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    /** Deltas not yet written to dashboard_stat */
+    private final ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private volatile Counters counters = new Counters();
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Loads the persisted counters once the app (and the product seeder) is up,
+     * building them from scratch the first time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            if (dashboardStatRepository.count() == 0) {
+                recompute();
+            } else {
+                reload();
+            }
+        } catch (Exception e) {
+            log.warn("Could not load dashboard stats: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void orderCreated(Order order) {
+        String status = statusKey(order.getStatus());
+        long cents = toCents(order.getTotalAmount());
+        afterCommit(() -> {
+            add(ORDER_COUNT_PREFIX + status, 1);
+            add(ORDER_AMOUNT_PREFIX + status, cents);
+        });
+    }
+
+    @Override
+    public void orderStatusChanged(String oldStatus, String newStatus, BigDecimal amount) {
+        String from = statusKey(oldStatus);
+        String to = statusKey(newStatus);
+        if (from.equals(to)) {
+            return;
+        }
+        long cents = toCents(amount);
+        afterCommit(() -> {
+            add(ORDER_COUNT_PREFIX + from, -1);
+            add(ORDER_AMOUNT_PREFIX + from, -cents);
+            add(ORDER_COUNT_PREFIX + to, 1);
+            add(ORDER_AMOUNT_PREFIX + to, cents);
+        });
+    }
+
+    @Override
+    public void orderDeleted(Order order) {
+        String status = statusKey(order.getStatus());
+        long cents = toCents(order.getTotalAmount());
+        afterCommit(() -> {
+            add(ORDER_COUNT_PREFIX + status, -1);
+            add(ORDER_AMOUNT_PREFIX + status, -cents);
+        });
+    }
+
+    @Override
+    public void productCreated(String seller) {
+        afterCommit(() -> {
+            add(PRODUCTS, 1);
+            if (seller != null) {
+                add(SELLER_PREFIX + seller, 1);
+            }
+        });
+    }
+
+    @Override
+    public void productDeleted(String seller) {
+        afterCommit(() -> {
+            add(PRODUCTS, -1);
+            if (seller != null) {
+                add(SELLER_PREFIX + seller, -1);
+            }
+        });
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        return counters.snapshot();
+    }
+
+    @Override
+    public synchronized Snapshot recompute() {
+        Map<String, Long> values = new HashMap<>();
+        values.put(PRODUCTS, productRepository.count());
+        for (OrderRepository.StatusTotal t : orderRepository.sumTotalAmountByStatus()) {
+            String status = statusKey(t.getStatus());
+            values.merge(ORDER_COUNT_PREFIX + status, t.getOrders(), Long::sum);
+            values.merge(ORDER_AMOUNT_PREFIX + status, toCents(t.getTotal()), Long::sum);
+        }
+        for (ProductRepository.SellerProductCount s : productRepository.countProductsBySeller()) {
+            values.merge(SELLER_PREFIX + s.getSeller(), s.getProducts(), Long::sum);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            dashboardStatRepository.deleteAllInBatch();
+            List<DashboardStat> rows = new ArrayList<>(values.size());
+            values.forEach((k, v) -> rows.add(new DashboardStat(k, v)));
+            dashboardStatRepository.saveAll(rows);
+        });
+
+        // The fresh totals already include every queued change
+        pending.clear();
+        counters = Counters.of(values);
+        log.info("Dashboard stats recomputed ({} counters)", values.size());
+        return counters.snapshot();
+    }
+
+    /**
+     * Writes queued deltas, then refreshes the in-memory counters from the table.
+     */
+    @Scheduled(fixedDelayString = "${dashboard.stats.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<String, Long> deltas = new HashMap<>();
+        for (String key : pending.keySet()) {
+            LongAdder adder = pending.get(key);
+            if (adder == null) {
+                continue;
+            }
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                deltas.put(key, delta);
+            }
+        }
+
+        if (!deltas.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    // Sorted keys: concurrent flushes from other instances lock rows in the same order
+                    for (Map.Entry<String, Long> e : new TreeMap<>(deltas).entrySet()) {
+                        if (dashboardStatRepository.addToValue(e.getKey(), e.getValue()) == 0) {
+                            dashboardStatRepository.save(new DashboardStat(e.getKey(), e.getValue()));
+                        }
+                    }
+                });
+            } catch (Exception e) {
+                // Keep the deltas for the next run
+                deltas.forEach((k, v) -> pending.computeIfAbsent(k, x -> new LongAdder()).add(v));
+                log.warn("Could not flush dashboard stats: {}", e.getMessage());
+                return;
+            }
+        }
+
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Could not reload dashboard stats: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private void reload() {
+        Map<String, Long> values = new HashMap<>();
+        for (DashboardStat s : dashboardStatRepository.findAll()) {
+            values.put(s.getStatKey(), s.getStatValue());
+        }
+        // Changes made since the last flush are not in the table yet
+        pending.forEach((k, adder) -> values.merge(k, adder.sum(), Long::sum));
+        counters = Counters.of(values);
+    }
+
+    private void add(String key, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        pending.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        counters.add(key, delta);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String statusKey(String status) {
+        return status == null || status.isBlank() ? "UNKNOWN" : status.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * In-memory view: product count and per-status order counters, plus per-seller
+     * product counts with a running count of sellers that have at least one product.
+     */
+    private static final class Counters {
+        private final ConcurrentHashMap<String, AtomicLong> values = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, AtomicLong> sellers = new ConcurrentHashMap<>();
+        private final AtomicLong activeSellers = new AtomicLong();
+
+        static Counters of(Map<String, Long> values) {
+            Counters c = new Counters();
+            values.forEach(c::add);
+            return c;
+        }
+
+        void add(String key, long delta) {
+            if (key.startsWith(SELLER_PREFIX)) {
+                long after = sellers.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+                long before = after - delta;
+                if (before <= 0 && after > 0) {
+                    activeSellers.incrementAndGet();
+                } else if (before > 0 && after <= 0) {
+                    activeSellers.decrementAndGet();
+                }
+            } else {
+                values.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+            }
+        }
+
+        Snapshot snapshot() {
+            Snapshot s = new Snapshot();
+            s.ordersByStatus = new TreeMap<>();
+            s.revenueByStatus = new TreeMap<>();
+            long orders = 0;
+            long cents = 0;
+            for (Map.Entry<String, AtomicLong> e : values.entrySet()) {
+                String key = e.getKey();
+                long v = e.getValue().get();
+                if (key.startsWith(ORDER_COUNT_PREFIX)) {
+                    if (v != 0) {
+                        s.ordersByStatus.put(key.substring(ORDER_COUNT_PREFIX.length()), v);
+                    }
+                    orders += v;
+                } else if (key.startsWith(ORDER_AMOUNT_PREFIX)) {
+                    if (v != 0) {
+                        s.revenueByStatus.put(key.substring(ORDER_AMOUNT_PREFIX.length()), fromCents(v));
+                    }
+                    cents += v;
+                }
+            }
+            AtomicLong products = values.get(PRODUCTS);
+            s.totalProducts = products != null ? products.get() : 0L;
+            s.totalSellers = activeSellers.get();
+            s.totalOrders = orders;
+            s.totalRevenue = fromCents(cents);
+            return s;
+        }
+    }
+}
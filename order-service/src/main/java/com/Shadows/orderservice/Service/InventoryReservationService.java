@@ -0,0 +1,19 @@
+package com.Shadows.orderservice.Service;
+
+import java.util.Map;
+
+public interface InventoryReservationService {
+
+    /**
+     * Takes the requested quantities (productId -> units) out of stock, all or nothing.
+     *
+     * @throws InsufficientStockException if any product cannot cover its quantity
+     * @throws ReservationTimeoutException if the product locks could not be acquired in time
+     */
+    void reserve(Map<Long, Integer> quantities);
+
+    /**
+     * Puts previously reserved quantities back into stock (e.g. when the order could not be saved).
+     */
+    void release(Map<Long, Integer> quantities);
+}
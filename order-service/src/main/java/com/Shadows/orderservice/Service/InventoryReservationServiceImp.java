@@ -0,0 +1,202 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock reservation for checkout.
+ *
+ * The database is the source of truth: each product is decremented with a conditional
+ * UPDATE (quantity >= requested), so two checkouts can never both take the last units,
+ * even across several order-service instances. On top of that, requests for the same
+ * product are serialized in-process through a fixed set of striped locks, so hot products
+ * queue here instead of piling up on row locks, while unrelated products rarely share a stripe.
+ *
+ * Stock updates are plain SQL rather than JPQL bulk updates, which would drop the whole
+ * Product second-level cache region on every checkout; only the touched products are
+ * evicted, once the transaction has committed. Stock changes go to the catalog feed as pending
+ * entries, without the feed's global version lock.
+ */
+@Service
+public class InventoryReservationServiceImp implements InventoryReservationService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CatalogChangeService catalogChangeService;
+
+    @Value("${inventory.reservation.lock-stripes:64}")
+    private int lockStripes;
+
+    @Value("${inventory.reservation.lock-timeout-ms:2000}")
+    private long lockTimeoutMs;
+
+    private ReentrantLock[] stripes;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        stripes = new ReentrantLock[Math.max(1, lockStripes)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void reserve(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return;
+        }
+        // Sorted by product id: rows are always updated in the same order, which keeps
+        // multi-product checkouts from deadlocking each other in the database.
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+
+        List<ReentrantLock> held = lockAll(ordered);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map.Entry<Long, Integer> e : ordered.entrySet()) {
+                    int qty = e.getValue();
+                    if (decrementStock(e.getKey(), qty) == 0) {
+                        Integer available = productRepository.findQuantityById(e.getKey());
+                        throw new InsufficientStockException(e.getKey(), available == null ? 0 : available, qty);
+                    }
+                }
+                markSoldOut(ordered.keySet());
+                evictAfterCommit(ordered.keySet());
+                catalogChangeService.stockChanged(ordered.keySet());
+            });
+        } finally {
+            unlockAll(held);
+        }
+    }
+
+    @Override
+    public void release(Map<Long, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+
+        List<ReentrantLock> held = lockAll(ordered);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map.Entry<Long, Integer> e : ordered.entrySet()) {
+                    incrementStock(e.getKey(), e.getValue());
+                }
+                markBackInStock(ordered.keySet());
+                evictAfterCommit(ordered.keySet());
+                catalogChangeService.stockChanged(ordered.keySet());
+            });
+        } finally {
+            unlockAll(held);
+        }
+    }
+
+    /**
+     * Takes {@code qty} units out of stock.
+     * Returns 0 when the product does not exist or has fewer than {@code qty} units left.
+     */
+    private int decrementStock(Long id, int qty) {
+        return jdbcTemplate.update("UPDATE product SET quantity = quantity - :qty WHERE id = :id AND quantity >= :qty",
+                new MapSqlParameterSource("id", id).addValue("qty", qty));
+    }
+
+    private int incrementStock(Long id, int qty) {
+        return jdbcTemplate.update("UPDATE product SET quantity = COALESCE(quantity, 0) + :qty WHERE id = :id",
+                new MapSqlParameterSource("id", id).addValue("qty", qty));
+    }
+
+    private void markSoldOut(Collection<Long> ids) {
+        jdbcTemplate.update("UPDATE product SET status = :status WHERE id IN (:ids) AND quantity <= 0",
+                new MapSqlParameterSource("ids", ids).addValue("status", ProductStatus.OUT_OF_STOCK.name()));
+    }
+
+    private void markBackInStock(Collection<Long> ids) {
+        jdbcTemplate.update("UPDATE product SET status = :status WHERE id IN (:ids) AND quantity > 0 AND status = :soldOut",
+                new MapSqlParameterSource("ids", ids)
+                        .addValue("status", ProductStatus.AVAILABLE.name())
+                        .addValue("soldOut", ProductStatus.OUT_OF_STOCK.name()));
+    }
+
+    private void evictAfterCommit(Collection<Long> ids) {
+        List<Long> copy = List.copyOf(ids);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                copy.forEach(id -> entityManagerFactory.getCache().evict(Product.class, id));
+            }
+        });
+    }
+
+    private List<ReentrantLock> lockAll(Map<Long, Integer> ordered) {
+        // Acquire stripes in index order so two checkouts never wait on each other in a cycle
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Long productId : ordered.keySet()) {
+            indexes.add(stripeIndex(productId));
+        }
+
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        try {
+            for (int index : indexes) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new ReservationTimeoutException("Timed out waiting for stock lock");
+                }
+                held.add(lock);
+            }
+            return held;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unlockAll(held);
+            throw new ReservationTimeoutException("Interrupted while waiting for stock lock");
+        } catch (RuntimeException e) {
+            unlockAll(held);
+            throw e;
+        }
+    }
+
+    private static void unlockAll(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+        held.clear();
+    }
+
+    private int stripeIndex(Long productId) {
+        int h = productId.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, stripes.length);
+    }
+}
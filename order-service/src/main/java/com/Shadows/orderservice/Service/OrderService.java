@@ -1,7 +1,12 @@
 package com.Shadows.orderservice.Service;
 
+import com.Shadows.orderservice.model.Category;
 import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.repository.OrderLineRepository;
+import com.Shadows.orderservice.repository.OrderRepository;
+import com.Shadows.orderservice.util.KeysetPage;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,5 +18,62 @@ public interface OrderService {
     void deleteOrder(Long id);
     List<Order> getOrdersByUsername(String username);
     List<Order> getOrdersByProductOwner(String username);
-    void updateOrderStatus(Long id, String status);
+
+    /**
+     * The seller's order lines in completed orders (PAID, WAITING_DELIVERY, SHIPPED), ordered by order id.
+     */
+    List<OrderLineRepository.SellerSaleRow> getSellerSales(String seller);
+
+    /**
+     * The {@code limit} most sold products (units in completed orders), optionally of one seller
+     * or category and paid within [from, to).
+     */
+    List<OrderLineRepository.ProductUnits> getTopSold(String seller, Category category, Date from, Date to, int limit);
+    Optional<Order> updateOrderStatus(Long id, String status);
+
+    /**
+     * Same as {@link #updateOrderStatus(Long, String)}, applied at most once per idempotency key:
+     * a retried request with a key already applied leaves the order as it is.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException when the same key is being applied concurrently
+     */
+    Optional<Order> updateOrderStatus(Long id, String status, String idempotencyKey);
+
+    /**
+     * Applies many status transitions in one transaction, on behalf of {@code username} with {@code role},
+     * and returns one result per transition, in request order. The rules of the single-order endpoints apply:
+     * admins may set any status, owners PAID / WAITING_DELIVERY / CANCELLED, and sellers SHIPPED on a
+     * PAID or WAITING_DELIVERY order containing one of their products.
+     */
+    List<TransitionResult> transitionStatuses(List<StatusTransition> transitions, String username, String role);
+
+    /**
+     * Move order {@code orderId} to {@code newStatus}; when {@code expectedStatus} is set, only if it is still in it.
+     */
+    record StatusTransition(Long orderId, String expectedStatus, String newStatus) {
+    }
+
+    /**
+     * @param status the order status after the call (null when the order does not exist)
+     */
+    record TransitionResult(Long orderId, TransitionOutcome outcome, String status) {
+    }
+
+    enum TransitionOutcome {
+        UPDATED,
+        UNCHANGED,  // already in the requested status
+        CONFLICT,   // not in the expected status (or not shippable)
+        NOT_FOUND,
+        FORBIDDEN,
+        INVALID     // missing id/status or order listed twice
+    }
+
+    /**
+     * Keyset-paginated order listing; limit defaults to KeysetCursor.DEFAULT_LIMIT.
+     * Sort is "oldest" (default) or "newest"; {@code to} is exclusive.
+     *
+     * @throws IllegalArgumentException on an unknown sort or a malformed cursor
+     */
+    KeysetPage<OrderRepository.ListItem> listOrders(String status, String customer, String seller,
+                                                    Date from, Date to, String sort, String cursor, Integer limit);
 }
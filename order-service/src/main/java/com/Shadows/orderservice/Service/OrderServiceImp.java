@@ -1,20 +1,87 @@
 package com.Shadows.orderservice.Service;
 
+import com.Shadows.orderservice.model.AppliedRequest;
+import com.Shadows.orderservice.model.Category;
 import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.repository.AppliedRequestRepository;
+import com.Shadows.orderservice.repository.OrderLineRepository;
 import com.Shadows.orderservice.repository.OrderRepository;
+import com.Shadows.orderservice.util.KeysetCursor;
+import com.Shadows.orderservice.util.KeysetPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class OrderServiceImp implements OrderService{
+
+    private static final Logger log = LoggerFactory.getLogger(OrderServiceImp.class);
+
+    /** Orders that count as a sale for the seller dashboards */
+    public static final List<String> COMPLETED_STATUSES = List.of("PAID", "WAITING_DELIVERY", "SHIPPED");
+
+    /** Statuses an order owner may set */
+    static final Set<String> OWNER_STATUSES = Set.of("PAID", "WAITING_DELIVERY", "CANCELLED");
+
+    /** Statuses a seller may ship from */
+    static final Set<String> SHIPPABLE_STATUSES = Set.of("PAID", "WAITING_DELIVERY");
+
+    /** Ids per IN list of the bulk status statements */
+    private static final int IN_CHUNK = 500;
+
     @Autowired
     private OrderRepository orderRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private AppliedRequestRepository appliedRequestRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** How long applied idempotency keys are remembered; retries must arrive within this window */
+    @Value("${orders.idempotency.retention-hours:72}")
+    private long idempotencyRetentionHours;
+
     @Override
+    @Transactional
     public Order createOrder(Order order) {
-        return  orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        dashboardStatsService.orderCreated(saved);
+        return saved;
     }
 
     @Override
@@ -35,9 +102,13 @@ public class OrderServiceImp implements OrderService{
     }
 
     @Override
+    @Transactional
     public void deleteOrder(Long id) {
-        orderRepository.deleteById(id) ;
-
+        Optional<Order> order = orderRepository.findById(id);
+        if (order.isPresent()) {
+            orderRepository.delete(order.get());
+            dashboardStatsService.orderDeleted(order.get());
+        }
     }
 
     @Override
@@ -51,12 +122,210 @@ public class OrderServiceImp implements OrderService{
     }
 
     @Override
-    public void updateOrderStatus(Long id, String status) {
-        Optional<Order> order = orderRepository.findById(id);
-        if (order.isPresent()) {
-            Order o = order.get();
-            o.setStatus(status);
-            orderRepository.save(o);
+    public List<OrderLineRepository.SellerSaleRow> getSellerSales(String seller) {
+        return orderLineRepository.findSellerSales(seller, COMPLETED_STATUSES);
+    }
+
+    @Override
+    public List<OrderLineRepository.ProductUnits> getTopSold(String seller, Category category, Date from, Date to, int limit) {
+        return orderLineRepository.findTopSold(COMPLETED_STATUSES, seller, category, from, to, Limit.of(limit));
+    }
+
+    @Override
+    @Transactional
+    public Optional<Order> updateOrderStatus(Long id, String status) {
+        Order o = entityManager.find(Order.class, id);
+        if (o == null) {
+            return Optional.empty();
+        }
+        // Re-read under a row lock held until commit (the request may already hold a stale copy):
+        // concurrent changes to the same order queue up and are each counted once
+        entityManager.refresh(o, LockModeType.PESSIMISTIC_WRITE);
+        String previous = o.getStatus();
+        if (status != null && status.equals(previous)) {
+            return Optional.of(o);
+        }
+        // paidAt is stamped by the entity on flush
+        o.setStatus(status);
+        dashboardStatsService.orderStatusChanged(previous, status, o.getTotalAmount());
+        return Optional.of(o);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Order> updateOrderStatus(Long id, String status, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return updateOrderStatus(id, status);
+        }
+        if (!orderRepository.existsById(id) || appliedRequestRepository.existsById(idempotencyKey)) {
+            return orderRepository.findById(id);
+        }
+        // Flushed right away so a concurrent request with the same key fails on the primary key
+        appliedRequestRepository.saveAndFlush(new AppliedRequest(idempotencyKey, new Date()));
+        return updateOrderStatus(id, status);
+    }
+
+    /**
+     * Locks the listed orders (in id order, so two bulk calls never deadlock), decides every
+     * transition against the locked state, then applies them with one conditional UPDATE per
+     * (current status, new status) pair instead of one load/save per order.
+     */
+    @Override
+    @Transactional
+    public List<TransitionResult> transitionStatuses(List<StatusTransition> transitions, String username, String role) {
+        boolean admin = "ADMIN".equalsIgnoreCase(role);
+        Set<Long> ids = new TreeSet<>();
+        boolean shipping = false;
+        for (StatusTransition t : transitions) {
+            if (isValid(t)) {
+                ids.add(t.orderId());
+                shipping |= "SHIPPED".equals(normalizeStatus(t.newStatus()));
+            }
+        }
+        Map<Long, LockedOrder> orders = lockOrders(ids);
+        Set<Long> sellerOrders = admin || !shipping || orders.isEmpty() || username == null
+                ? Set.of()
+                : new HashSet<>(orderLineRepository.findOrderIdsWithSeller(orders.keySet(), username));
+
+        List<TransitionResult> results = new ArrayList<>(transitions.size());
+        Map<List<String>, List<Long>> updates = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (StatusTransition t : transitions) {
+            if (!isValid(t)) {
+                results.add(new TransitionResult(t == null ? null : t.orderId(), TransitionOutcome.INVALID, null));
+                continue;
+            }
+            Long id = t.orderId();
+            LockedOrder order = orders.get(id);
+            if (order == null) {
+                results.add(new TransitionResult(id, TransitionOutcome.NOT_FOUND, null));
+                continue;
+            }
+            String newStatus = normalizeStatus(t.newStatus());
+            boolean owner = username != null && username.equalsIgnoreCase(order.username());
+            boolean asOwner = owner && OWNER_STATUSES.contains(newStatus);
+            boolean asSeller = "SHIPPED".equals(newStatus) && sellerOrders.contains(id);
+            if (!admin && !asOwner && !asSeller) {
+                results.add(new TransitionResult(id, TransitionOutcome.FORBIDDEN, null));
+                continue;
+            }
+            if (!seen.add(id)) {
+                results.add(new TransitionResult(id, TransitionOutcome.INVALID, order.status()));
+                continue;
+            }
+            String current = order.status();
+            if (newStatus.equalsIgnoreCase(current)) {
+                results.add(new TransitionResult(id, TransitionOutcome.UNCHANGED, current));
+                continue;
+            }
+            boolean expectedMismatch = t.expectedStatus() != null && !t.expectedStatus().trim().equalsIgnoreCase(current);
+            boolean notShippable = !admin && !asOwner && (current == null
+                    || !SHIPPABLE_STATUSES.contains(current.toUpperCase(Locale.ROOT)));
+            if (expectedMismatch || notShippable) {
+                results.add(new TransitionResult(id, TransitionOutcome.CONFLICT, current));
+                continue;
+            }
+            updates.computeIfAbsent(Arrays.asList(current, newStatus), k -> new ArrayList<>()).add(id);
+            results.add(new TransitionResult(id, TransitionOutcome.UPDATED, newStatus));
+        }
+
+        updates.forEach((pair, orderIds) -> {
+            String from = pair.get(0);
+            String to = pair.get(1);
+            int updated = 0;
+            for (List<Long> chunk : chunks(orderIds)) {
+                MapSqlParameterSource params = new MapSqlParameterSource("ids", chunk)
+                        .addValue("status", to)
+                        .addValue("expected", from);
+                updated += jdbcTemplate.update(from == null
+                        ? "UPDATE orders SET status = :status WHERE id IN (:ids) AND status IS NULL"
+                        : "UPDATE orders SET status = :status WHERE id IN (:ids) AND status = :expected", params);
+                if (Order.isPaidStatus(to)) {
+                    orderRepository.markPaid(chunk, new Date());
+                }
+            }
+            // The rows are locked, so every order still has the status we read
+            if (updated != orderIds.size()) {
+                throw new IllegalStateException("Bulk status update touched " + updated + " of " + orderIds.size() + " orders");
+            }
+            for (Long id : orderIds) {
+                dashboardStatsService.orderStatusChanged(from, to, orders.get(id).totalAmount());
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Forgets idempotency keys older than the retention window.
+     */
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${orders.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeAppliedRequests() {
+        try {
+            Date before = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(idempotencyRetentionHours));
+            int removed = appliedRequestRepository.deleteAppliedBefore(before);
+            if (removed > 0) {
+                log.info("Purged {} applied request keys", removed);
+            }
+        } catch (Exception e) {
+            log.warn("Could not purge applied request keys: {}", e.getMessage());
+        }
+    }
+
+    private Map<Long, LockedOrder> lockOrders(Set<Long> ids) {
+        Map<Long, LockedOrder> orders = new HashMap<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(ids))) {
+            jdbcTemplate.query("SELECT id, username, status, total_amount FROM orders WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                    new MapSqlParameterSource("ids", chunk),
+                    rs -> {
+                        long id = rs.getLong("id");
+                        orders.put(id, new LockedOrder(rs.getString("username"), rs.getString("status"),
+                                rs.getBigDecimal("total_amount")));
+                    });
+        }
+        return orders;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += IN_CHUNK) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + IN_CHUNK)));
+        }
+        return chunks;
+    }
+
+    private static boolean isValid(StatusTransition t) {
+        return t != null && t.orderId() != null && t.newStatus() != null && !t.newStatus().isBlank();
+    }
+
+    private static String normalizeStatus(String status) {
+        return status.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private record LockedOrder(String username, String status, BigDecimal totalAmount) {
+    }
+
+    @Override
+    public KeysetPage<OrderRepository.ListItem> listOrders(String status, String customer, String seller,
+                                                           Date from, Date to, String sort, String cursor, Integer limit) {
+        int pageSize = KeysetCursor.clampLimit(limit);
+        // One extra row tells whether there is a next page
+        Limit fetch = Limit.of(pageSize + 1);
+        Long afterId = cursor == null ? null : KeysetCursor.decodeId(cursor);
+        String order = sort == null || sort.isBlank() ? "oldest" : sort.toLowerCase(Locale.ROOT);
+
+        List<OrderRepository.ListItem> rows;
+        switch (order) {
+            case "oldest" -> rows = orderRepository.findPageOldestFirst(status, customer, seller, from, to, afterId, fetch);
+            case "newest" -> rows = orderRepository.findPageNewestFirst(status, customer, seller, from, to, afterId, fetch);
+            default -> throw new IllegalArgumentException("Unknown sort: " + sort);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null, pageSize);
         }
+        rows = rows.subList(0, pageSize);
+        return new KeysetPage<>(rows, KeysetCursor.encode(rows.get(pageSize - 1).getId()), pageSize);
     }
-}
\ No newline at end of file
+}
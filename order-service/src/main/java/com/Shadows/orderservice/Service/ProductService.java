@@ -1,7 +1,11 @@
 package com.Shadows.orderservice.Service;
 
 
+import com.Shadows.orderservice.model.Category;
 import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.ProductRepository;
+import com.Shadows.orderservice.util.KeysetPage;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,4 +23,13 @@ public interface ProductService {
     void deleteProduct(Long id);
 
     List<Product> getProductsByAddedBy(String addedBy);
+
+    /**
+     * Keyset-paginated product listing; limit defaults to KeysetCursor.DEFAULT_LIMIT.
+     * Sort is one of "id" (default), "newest", "price_asc", "price_desc".
+     *
+     * @throws IllegalArgumentException on an unknown sort or a malformed cursor
+     */
+    KeysetPage<ProductRepository.ListItem> listProducts(ProductStatus status, Category category, String seller,
+                                                        String sort, String cursor, Integer limit);
 }
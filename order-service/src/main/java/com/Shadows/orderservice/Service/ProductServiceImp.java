@@ -1,15 +1,23 @@
 package com.Shadows.orderservice.Service;
 
-import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.model.Cart;
+import com.Shadows.orderservice.model.Category;
 import com.Shadows.orderservice.model.Product;
-import com.Shadows.orderservice.repository.OrderRepository;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.OrderLineRepository;
 import com.Shadows.orderservice.repository.ProductRepository;
+import com.Shadows.orderservice.util.KeysetCursor;
+import com.Shadows.orderservice.util.KeysetPage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -19,12 +27,28 @@ public class ProductServiceImp implements ProductService{
     private ProductRepository productRepository;
 
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CatalogChangeService catalogChangeService;
 
     @Override
+    @Transactional
     // Créer un nouveau produit
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        boolean isNew = product.getId() == null;
+        Product saved = productRepository.save(product);
+        if (isNew) {
+            dashboardStatsService.productCreated(saved.getAddedBy());
+        }
+        catalogChangeService.productsChanged(List.of(saved.getId()));
+        return saved;
     }
     @Override
     // Récupérer tous les produits
@@ -37,9 +61,12 @@ public class ProductServiceImp implements ProductService{
         return productRepository.findById(id);
     }
     @Override
+    @Transactional
     // Mettre à jour un produit
     public Product updateProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogChangeService.productsChanged(List.of(saved.getId()));
+        return saved;
     }
     @Override
     @Transactional
@@ -47,14 +74,14 @@ public class ProductServiceImp implements ProductService{
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id).orElse(null);
         if (product != null) {
-            List<Order> orders = product.getOrders();
-            if (orders != null) {
-                for (Order order : orders) {
-                    order.getProducts().remove(product);
-                    orderRepository.save(order);
-                }
-            }
-            productRepository.deleteById(id);
+            // Past orders keep their lines (name and price snapshot), only the product link is dropped
+            orderLineRepository.detachProduct(id);
+            productRepository.delete(product);
+            // Cached cart contents only hold product ids, drop them so no cart points at the deleted row
+            entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                    .evictCollectionData(Cart.class.getName() + ".products");
+            dashboardStatsService.productDeleted(product.getAddedBy());
+            catalogChangeService.productDeleted(id);
         }
     }
 
@@ -62,4 +89,48 @@ public class ProductServiceImp implements ProductService{
     public List<Product> getProductsByAddedBy(String addedBy) {
         return productRepository.findByAddedBy(addedBy);
     }
+
+    @Override
+    public KeysetPage<ProductRepository.ListItem> listProducts(ProductStatus status, Category category, String seller,
+                                                               String sort, String cursor, Integer limit) {
+        int pageSize = KeysetCursor.clampLimit(limit);
+        // One extra row tells whether there is a next page
+        Limit fetch = Limit.of(pageSize + 1);
+        String order = sort == null || sort.isBlank() ? "id" : sort.toLowerCase(Locale.ROOT);
+
+        List<ProductRepository.ListItem> rows;
+        switch (order) {
+            case "id" -> rows = productRepository.findPageByIdAsc(status, category, seller,
+                    cursor == null ? null : KeysetCursor.decodeId(cursor), fetch);
+            case "newest" -> rows = productRepository.findPageByIdDesc(status, category, seller,
+                    cursor == null ? null : KeysetCursor.decodeId(cursor), fetch);
+            case "price_asc", "price_desc" -> {
+                Double afterPrice = null;
+                Long afterId = null;
+                if (cursor != null) {
+                    String[] parts = KeysetCursor.decode(cursor, 2);
+                    try {
+                        afterPrice = Double.valueOf(parts[0]);
+                        afterId = Long.valueOf(parts[1]);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid cursor");
+                    }
+                }
+                rows = "price_asc".equals(order)
+                        ? productRepository.findPageByPriceAsc(status, category, seller, afterPrice, afterId, fetch)
+                        : productRepository.findPageByPriceDesc(status, category, seller, afterPrice, afterId, fetch);
+            }
+            default -> throw new IllegalArgumentException("Unknown sort: " + sort);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null, pageSize);
+        }
+        rows = rows.subList(0, pageSize);
+        ProductRepository.ListItem last = rows.get(pageSize - 1);
+        String next = order.startsWith("price")
+                ? KeysetCursor.encode(last.getPrice() == null ? 0.0 : last.getPrice(), last.getId())
+                : KeysetCursor.encode(last.getId());
+        return new KeysetPage<>(rows, next, pageSize);
+    }
 }
@@ -0,0 +1,8 @@
+package com.Shadows.orderservice.Service;
+
+public class ReservationTimeoutException extends RuntimeException {
+
+    public ReservationTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.Shadows.orderservice.Service;
+
+public interface UserDirectoryService {
+
+    /**
+     * User and seller counts from auth-service, fetched concurrently and cached for a short time.
+     * Never waits longer than the configured deadline: a slow or failing auth-service yields the
+     * last known values (flagged stale), or null counts if none were ever fetched.
+     */
+    UserCounts counts(String authorization);
+
+    /**
+     * @param stale at least one count is an older cached value (or unknown)
+     */
+    record UserCounts(Long users, Long sellers, boolean stale) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.client.AuthServiceClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cached, concurrent lookups of auth-service counts for the admin dashboard.
+ *
+ * Each count is cached for clients.auth.cache-ttl-ms. Once expired, the next caller starts one
+ * refresh on the downstream pool (concurrent callers share it) and waits at most
+ * clients.auth.deadline-ms; past that, or on error, the previous value is served and the
+ * refresh keeps going in the background to update the cache.
+ */
+@Service
+public class UserDirectoryServiceImp implements UserDirectoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectoryServiceImp.class);
+
+    static final String USERS = "users";
+    static final String SELLERS = "sellers";
+
+    @Autowired
+    private AuthServiceClient authServiceClient;
+
+    @Autowired
+    @Qualifier("downstreamExecutor")
+    private TaskExecutor downstreamExecutor;
+
+    @Value("${clients.auth.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    @Value("${clients.auth.deadline-ms:1500}")
+    private long deadlineMs;
+
+    private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public UserCounts counts(String authorization) {
+        CompletableFuture<Count> users = count(USERS, () -> countOf(authServiceClient.countUsers(authorization)));
+        CompletableFuture<Count> sellers = count(SELLERS, () -> countOf(authServiceClient.countSellers(authorization)));
+        Count u = users.join();
+        Count s = sellers.join();
+        return new UserCounts(u.value(), s.value(), u.stale() || s.stale());
+    }
+
+    private CompletableFuture<Count> count(String key, Supplier<Long> call) {
+        Cached cached = cache.get(key);
+        if (cached != null && System.currentTimeMillis() - cached.fetchedAt() < cacheTtlMs) {
+            return CompletableFuture.completedFuture(new Count(cached.value(), false));
+        }
+        return refresh(key, call)
+                .thenApply(value -> new Count(value, false))
+                .completeOnTimeout(null, deadlineMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> null)
+                .thenApply(count -> count != null ? count : lastKnown(key));
+    }
+
+    /**
+     * Starts a downstream call for {@code key} unless one is already running.
+     */
+    private CompletableFuture<Long> refresh(String key, Supplier<Long> call) {
+        CompletableFuture<Long> created = new CompletableFuture<>();
+        CompletableFuture<Long> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            return running;
+        }
+        created.whenComplete((value, error) -> {
+            inFlight.remove(key, created);
+            if (value != null) {
+                cache.put(key, new Cached(value, System.currentTimeMillis()));
+            } else {
+                log.warn("Could not fetch {} count from auth-service: {}", key,
+                        error != null ? error.getMessage() : "empty response");
+            }
+        });
+        try {
+            downstreamExecutor.execute(() -> {
+                try {
+                    created.complete(call.get());
+                } catch (Throwable e) {
+                    created.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Pool saturated
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private Count lastKnown(String key) {
+        Cached cached = cache.get(key);
+        return new Count(cached == null ? null : cached.value(), true);
+    }
+
+    private static Long countOf(Map<String, Long> body) {
+        return body == null ? null : body.get("count");
+    }
+
+    private record Cached(long value, long fetchedAt) {
+    }
+
+    private record Count(Long value, boolean stale) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.Shadows.orderservice.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import com.Shadows.orderservice.util.KeysetPage;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Map;
+
+/**
+ * auth-service endpoints used by order-service, called through the gateway with the caller's token.
+ * Runs on the pooled Apache HttpClient 5 configured under spring.cloud.openfeign.*.
+ */
+@FeignClient(name = "auth-service", url = "${clients.auth.url:${gateway.url:http://localhost:8222}}")
+public interface AuthServiceClient {
+
+    @GetMapping("/auth/api/users/count")
+    Map<String, Long> countUsers(@RequestHeader("Authorization") String authorization);
+
+    @GetMapping("/auth/api/users/sellers")
+    KeysetPage<Map<String, Object>> getSellers(@RequestHeader("Authorization") String authorization,
+                                               @RequestParam(value = "limit", required = false) Integer limit,
+                                               @RequestParam(value = "cursor", required = false) String cursor);
+
+    @GetMapping("/auth/api/users/sellers/count")
+    Map<String, Long> countSellers(@RequestHeader("Authorization") String authorization);
+}
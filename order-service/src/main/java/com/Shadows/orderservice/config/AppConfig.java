@@ -1,14 +1,28 @@
 package com.Shadows.orderservice.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+/**
+ * Inter-service clients: Feign clients in the client package and the pool that runs
+ * independent downstream calls concurrently.
+ */
 @Configuration
+@EnableFeignClients(basePackages = "com.Shadows.orderservice.client")
 public class AppConfig {
 
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    @Bean(name = "downstreamExecutor")
+    public ThreadPoolTaskExecutor downstreamExecutor(@Value("${clients.executor.threads:8}") int threads,
+                                                     @Value("${clients.executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("downstream-");
+        executor.initialize();
+        return executor;
     }
 }
@@ -1,5 +1,6 @@
 package com.Shadows.orderservice.config;
 
+import com.Shadows.orderservice.Service.ProductService;
 import com.Shadows.orderservice.model.Category;
 import com.Shadows.orderservice.model.Product;
 import com.Shadows.orderservice.model.ProductStatus;
@@ -17,6 +18,9 @@ public class ProductSeeder implements CommandLineRunner {
         @Autowired
         private ProductRepository productRepository;
 
+        @Autowired
+        private ProductService productService;
+
         @Override
         public void run(String... args) throws Exception {
                 // Check if products already exist
@@ -80,6 +84,6 @@ public class ProductSeeder implements CommandLineRunner {
                 product.setCreatedAt(Date.valueOf(LocalDate.now()));
                 product.setExpieryDate(Date.valueOf(LocalDate.now().plusDays(30)));
 
-                productRepository.save(product);
+                productService.createProduct(product);
         }
 }
@@ -16,7 +16,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/order-service/cart")
@@ -96,11 +101,20 @@ public class CartController {
                 double total = cart.getProducts().stream()
                         .mapToDouble(Product::getPrice)
                         .sum();
-                order.setPrice(String.valueOf(total));
+                order.setTotalAmount(BigDecimal.valueOf(total).setScale(2, RoundingMode.HALF_UP));
                 order.setQuantity(cart.getProducts().size());
                 order.setUsername(username);
                 
-                order.getProducts().addAll(cart.getProducts());
+                // One line per distinct product, the cart may hold the same product several times
+                Map<Long, Product> distinct = new LinkedHashMap<>();
+                Map<Long, Integer> counts = new HashMap<>();
+                for (Product p : cart.getProducts()) {
+                    distinct.putIfAbsent(p.getId(), p);
+                    counts.merge(p.getId(), 1, Integer::sum);
+                }
+                for (Product p : distinct.values()) {
+                    order.addLine(p, counts.get(p.getId()));
+                }
                 
                 orderService.createOrder(order);
                 cartService.clearCart(username);
@@ -6,6 +6,7 @@ import org.springframework.ui.Model;
 import com.Shadows.orderservice.model.Order;
 import com.Shadows.orderservice.Service.OrderServiceImp;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -89,7 +90,8 @@ public class OrderController {
     public ResponseEntity<String> updateOrderStatusApi(
             @PathVariable Long id,
             @RequestParam String status,
-            @RequestHeader(value = "Authorization", required = false) String authorization
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
         String token = null;
         if (authorization != null && authorization.startsWith("Bearer ")) {
@@ -122,7 +124,12 @@ public class OrderController {
             }
         }
 
-        orderService.updateOrderStatus(id, status);
+        try {
+            orderService.updateOrderStatus(id, status, idempotencyKey);
+        } catch (DataIntegrityViolationException e) {
+            // The same key was applied by a concurrent retry
+            return ResponseEntity.ok("Status already updated");
+        }
         return ResponseEntity.ok("Status updated");
     }
 }
\ No newline at end of file
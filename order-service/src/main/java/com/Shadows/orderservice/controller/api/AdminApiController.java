@@ -1,17 +1,31 @@
 package com.Shadows.orderservice.controller.api;
 
+import com.Shadows.orderservice.Service.DashboardStatsService;
+import com.Shadows.orderservice.client.AuthServiceClient;
+import com.Shadows.orderservice.Service.OrderService;
+import com.Shadows.orderservice.Service.ProductService;
+import com.Shadows.orderservice.Service.UserDirectoryService;
+import com.Shadows.orderservice.model.Category;
 import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.model.OrderLine;
 import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.OrderLineRepository;
 import com.Shadows.orderservice.repository.OrderRepository;
 import com.Shadows.orderservice.repository.ProductRepository;
 import com.Shadows.orderservice.util.JwtUtil;
+import com.Shadows.orderservice.util.KeysetPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,20 +33,34 @@ import java.util.stream.Collectors;
 @RequestMapping("/order-service/api/admin")
 public class AdminApiController {
 
+    private static final Logger log = LoggerFactory.getLogger(AdminApiController.class);
+
     @Autowired
     private ProductRepository productRepository;
 
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
-    @Value("${gateway.url:http://localhost:8222}")
-    private String gatewayUrl;
+    @Autowired
+    private UserDirectoryService userDirectoryService;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private AuthServiceClient authServiceClient;
 
     /**
      * Get admin dashboard statistics
@@ -46,44 +74,127 @@ public class AdminApiController {
         }
 
         try {
-            long totalProducts = productRepository.count();
-            long totalOrders = orderRepository.count();
+            // Maintained counters, no table scans
+            DashboardStatsService.Snapshot snapshot = dashboardStatsService.snapshot();
+            return ResponseEntity.ok(toStatsBody(snapshot, userDirectoryService.counts(authorization)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error fetching stats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the dashboard counters from the orders and product tables (admin only)
+     */
+    @PostMapping("/dashboard/stats/recompute")
+    public ResponseEntity<?> recomputeDashboardStats(
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+
+        if (!isAdmin(authorization)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
+        }
+
+        try {
+            DashboardStatsService.Snapshot snapshot = dashboardStatsService.recompute();
+            return ResponseEntity.ok(toStatsBody(snapshot, userDirectoryService.counts(authorization)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error recomputing stats: " + e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> toStatsBody(DashboardStatsService.Snapshot snapshot,
+                                                   UserDirectoryService.UserCounts users) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalUsers", users.users());
+        stats.put("registeredSellers", users.sellers());
+        // auth-service was slow or down, user counts are the last known ones
+        stats.put("userCountsStale", users.stale());
+        stats.put("totalSellers", snapshot.totalSellers);
+        stats.put("totalOrders", snapshot.totalOrders);
+        stats.put("totalRevenue", String.format("$%.2f", snapshot.totalRevenue));
+        stats.put("totalProducts", snapshot.totalProducts);
+        stats.put("ordersByStatus", snapshot.ordersByStatus);
+        stats.put("revenueByStatus", snapshot.revenueByStatus);
+        return stats;
+    }
+
+    /**
+     * Revenue totals: overall, per order status and per day (from/to as yyyy-MM-dd, default last 30 days)
+     */
+    @GetMapping("/revenue")
+    public ResponseEntity<?> getRevenue(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
 
-            // Calculate total revenue from orders
-            double totalRevenue = orderRepository.findAll().stream()
-                    .mapToDouble(order -> order.getTotal())
-                    .sum();
+        if (!isAdmin(authorization)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
+        }
 
-            // Get seller count from auth-service
-            long totalSellers = getSellerCountFromAuthService(authorization);
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "'from' must not be after 'to'"));
+        }
 
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalUsers", getTotalUsersFromAuthService(authorization));
-            stats.put("totalSellers", totalSellers);
-            stats.put("totalOrders", totalOrders);
-            stats.put("totalRevenue", String.format("$%.2f", totalRevenue));
-            stats.put("totalProducts", totalProducts);
+        try {
+            List<Map<String, Object>> byStatus = orderRepository.sumTotalAmountByStatus().stream()
+                    .map(t -> {
+                        Map<String, Object> map = new HashMap<>();
+                        map.put("status", t.getStatus());
+                        map.put("orders", t.getOrders());
+                        map.put("total", t.getTotal());
+                        return map;
+                    })
+                    .collect(Collectors.toList());
 
-            return ResponseEntity.ok(stats);
+            // Upper bound is exclusive: the whole 'to' day is included
+            Date fromDate = Date.from(start.atStartOfDay(ZoneId.systemDefault()).toInstant());
+            Date toDate = Date.from(end.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            List<Map<String, Object>> byDay = orderRepository.sumTotalAmountByDay(fromDate, toDate).stream()
+                    .map(t -> {
+                        Map<String, Object> map = new HashMap<>();
+                        map.put("day", t.getDay() != null ? t.getDay().toString() : null);
+                        map.put("orders", t.getOrders());
+                        map.put("total", t.getTotal());
+                        return map;
+                    })
+                    .collect(Collectors.toList());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("totalRevenue", orderRepository.sumTotalAmount());
+            response.put("byStatus", byStatus);
+            response.put("from", start.toString());
+            response.put("to", end.toString());
+            response.put("byDay", byDay);
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error fetching stats: " + e.getMessage());
+                    .body("Error fetching revenue: " + e.getMessage());
         }
     }
 
     /**
-     * Get all products for admin
+     * Get products for admin, as a keyset page (limit defaults to 50, nextCursor for the next page)
      */
     @GetMapping("/products")
     public ResponseEntity<?> getAllProducts(
-            @RequestHeader(value = "Authorization", required = false) String authorization) {
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "status", required = false) ProductStatus status,
+            @RequestParam(value = "category", required = false) Category category,
+            @RequestParam(value = "seller", required = false) String seller,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
 
         if (!isAdmin(authorization)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
         }
 
         try {
-            List<Map<String, Object>> products = productRepository.findAll().stream()
+            KeysetPage<ProductRepository.ListItem> page = productService.listProducts(status, category, seller, sort, cursor, limit);
+            List<Map<String, Object>> products = page.items().stream()
                     .map(p -> {
                         Map<String, Object> map = new HashMap<>();
                         map.put("id", p.getId());
@@ -97,7 +208,9 @@ public class AdminApiController {
                     })
                     .collect(Collectors.toList());
 
-            return ResponseEntity.ok(products);
+            return ResponseEntity.ok(new KeysetPage<>(products, page.nextCursor(), page.limit()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error fetching products: " + e.getMessage());
@@ -105,30 +218,58 @@ public class AdminApiController {
     }
 
     /**
-     * Get all orders for admin
+     * Get orders for admin, as a keyset page (limit defaults to 50, nextCursor for the next page).
+     * Filters: status, customer, seller, from/to (yyyy-MM-dd, both inclusive); sort "oldest" or "newest".
      */
     @GetMapping("/orders")
     public ResponseEntity<?> getAllOrders(
-            @RequestHeader(value = "Authorization", required = false) String authorization) {
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "customer", required = false) String customer,
+            @RequestParam(value = "seller", required = false) String seller,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
 
         if (!isAdmin(authorization)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
         }
 
         try {
-            List<Map<String, Object>> orders = orderRepository.findAll().stream()
+            Date fromDate = from == null ? null : Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant());
+            Date toDate = to == null ? null : Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            KeysetPage<OrderRepository.ListItem> page = orderService.listOrders(
+                    status, customer, seller, fromDate, toDate, sort, cursor, limit);
+            List<OrderRepository.ListItem> all = page.items();
+
+            // Load the lines of this page in one query instead of one lazy load per order
+            Map<Long, List<String>> itemsByOrder = new HashMap<>();
+            if (!all.isEmpty()) {
+                List<Long> ids = all.stream().map(OrderRepository.ListItem::getId).collect(Collectors.toList());
+                for (OrderLine l : orderLineRepository.findByOrderIds(ids)) {
+                    itemsByOrder.computeIfAbsent(l.getOrder().getId(), k -> new ArrayList<>())
+                            .add(l.getProductName() + " (x" + l.getQuantity() + ")");
+                }
+            }
+
+            List<Map<String, Object>> orders = all.stream()
                     .map(o -> {
                         Map<String, Object> map = new HashMap<>();
                         map.put("id", o.getId());
                         map.put("customer", o.getUsername());
-                        map.put("date", o.getOrderDate());
-                        map.put("total", String.format("$%.2f", o.getTotal()));
+                        map.put("date", o.getDate());
+                        map.put("total", String.format("$%.2f", o.getTotalAmount() != null ? o.getTotalAmount() : BigDecimal.ZERO));
                         map.put("status", o.getStatus());
+                        map.put("items", itemsByOrder.getOrDefault(o.getId(), Collections.emptyList()));
                         return map;
                     })
                     .collect(Collectors.toList());
 
-            return ResponseEntity.ok(orders);
+            return ResponseEntity.ok(new KeysetPage<>(orders, page.nextCursor(), page.limit()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error fetching orders: " + e.getMessage());
@@ -136,66 +277,51 @@ public class AdminApiController {
     }
 
     /**
-     * Get all sellers (users with SHOP role) from auth-service
+     * Get sellers (users with SHOP role) from auth-service, as a keyset page passed through from it
      */
     @GetMapping("/sellers")
     public ResponseEntity<?> getAllSellers(
-            @RequestHeader(value = "Authorization", required = false) String authorization) {
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
 
         if (!isAdmin(authorization)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
         }
 
         try {
-            // Call auth-service to get sellers with real emails
-            String authServiceUrl = gatewayUrl + "/auth/api/users/sellers";
+            // Product counts of every seller in one grouped query
+            Map<String, Long> productCounts = productRepository.countProductsBySeller().stream()
+                    .collect(Collectors.toMap(ProductRepository.SellerProductCount::getSeller,
+                            ProductRepository.SellerProductCount::getProducts));
 
+            // Call auth-service to get sellers with real emails
             try {
-                ResponseEntity<List> response = restTemplate.getForEntity(
-                        authServiceUrl,
-                        List.class,
-                        new org.springframework.http.HttpEntity<>(
-                                new org.springframework.http.HttpHeaders() {
-                                    {
-                                        set("Authorization", authorization);
-                                    }
-                                }));
-
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    // Add product count for each seller
-                    List<Map<String, Object>> sellersWithProducts = new ArrayList<>();
-                    for (Object seller : response.getBody()) {
-                        if (seller instanceof Map) {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> sellerMap = (Map<String, Object>) seller;
-                            String username = (String) sellerMap.get("username");
-                            long productCount = productRepository.findByAddedBy(username).size();
-                            sellerMap.put("productCount", productCount);
-                            sellersWithProducts.add(sellerMap);
-                        }
+                KeysetPage<Map<String, Object>> sellersWithProducts = authServiceClient.getSellers(authorization, limit, cursor);
+                if (sellersWithProducts != null && sellersWithProducts.items() != null) {
+                    for (Map<String, Object> sellerMap : sellersWithProducts.items()) {
+                        String username = (String) sellerMap.get("username");
+                        sellerMap.put("productCount", productCounts.getOrDefault(username, 0L));
                     }
                     return ResponseEntity.ok(sellersWithProducts);
                 }
             } catch (Exception e) {
                 // Fallback if auth-service is unavailable
-                System.err.println("Auth-service unavailable, using fallback: " + e.getMessage());
+                log.warn("Auth-service unavailable, using fallback: {}", e.getMessage());
             }
 
-            // Fallback: Get unique sellers from products
-            List<Map<String, Object>> sellers = productRepository.findAll().stream()
-                    .map(Product::getAddedBy)
-                    .distinct()
+            // Fallback: Get unique sellers from products (one row per seller, returned as a single page)
+            List<Map<String, Object>> sellers = productCounts.entrySet().stream()
                     .map(seller -> {
                         Map<String, Object> map = new HashMap<>();
-                        map.put("username", seller);
-                        map.put("email", seller + "@nblb.com");
-                        long productCount = productRepository.findByAddedBy(seller).size();
-                        map.put("productCount", productCount);
+                        map.put("username", seller.getKey());
+                        map.put("email", seller.getKey() + "@nblb.com");
+                        map.put("productCount", seller.getValue());
                         return map;
                     })
                     .collect(Collectors.toList());
 
-            return ResponseEntity.ok(sellers);
+            return ResponseEntity.ok(new KeysetPage<>(sellers, null, sellers.size()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error fetching sellers: " + e.getMessage());
@@ -272,7 +398,7 @@ public class AdminApiController {
                 }
             }
 
-            Product savedProduct = productRepository.save(product);
+            Product savedProduct = productService.createProduct(product);
 
             Map<String, Object> response = new HashMap<>();
             response.put("id", savedProduct.getId());
@@ -333,7 +459,7 @@ public class AdminApiController {
                 product.setStatus(com.Shadows.orderservice.model.ProductStatus.valueOf(statusStr));
             }
 
-            Product updatedProduct = productRepository.save(product);
+            Product updatedProduct = productService.updateProduct(product);
 
             Map<String, Object> response = new HashMap<>();
             response.put("id", updatedProduct.getId());
@@ -368,7 +494,7 @@ public class AdminApiController {
                 return ResponseEntity.notFound().build();
             }
 
-            productRepository.deleteById(id);
+            productService.deleteProduct(id);
             return ResponseEntity.ok(Collections.singletonMap("message", "Product deleted successfully"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -400,10 +526,7 @@ public class AdminApiController {
                 return ResponseEntity.badRequest().body("Status is required");
             }
 
-            Order order = orderOptional.get();
-            order.setStatus(newStatus);
-
-            Order updatedOrder = orderRepository.save(order);
+            Order updatedOrder = orderService.updateOrderStatus(id, newStatus).orElse(orderOptional.get());
 
             Map<String, Object> response = new HashMap<>();
             response.put("id", updatedOrder.getId());
@@ -435,65 +558,4 @@ public class AdminApiController {
         String role = jwtUtil.extractRole(token);
         return "ADMIN".equals(role);
     }
-
-    /**
-     * Get total seller count from auth-service
-     */
-    private long getSellerCountFromAuthService(String authorization) {
-        try {
-            String authServiceUrl = gatewayUrl + "/auth/api/users/sellers/count";
-            ResponseEntity<Map> response = restTemplate.getForEntity(
-                    authServiceUrl,
-                    Map.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Object count = response.getBody().get("count");
-                if (count instanceof Number) {
-                    return ((Number) count).longValue();
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Could not fetch seller count from auth-service: " + e.getMessage());
-        }
-
-        // Fallback
-        return getSellerCount();
-    }
-
-    /**
-     * Get total user count from auth-service
-     */
-    private long getTotalUsersFromAuthService(String authorization) {
-        try {
-            String authServiceUrl = gatewayUrl + "/auth/api/users";
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.set("Authorization", authorization);
-            org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(headers);
-
-            ResponseEntity<List> response = restTemplate.exchange(
-                    authServiceUrl,
-                    org.springframework.http.HttpMethod.GET,
-                    entity,
-                    List.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody().size();
-            }
-        } catch (Exception e) {
-            System.err.println("Could not fetch user count from auth-service: " + e.getMessage());
-        }
-
-        // Fallback
-        return productRepository.count() + orderRepository.count() + 4;
-    }
-
-    /**
-     * Get count of sellers (fallback)
-     */
-    private long getSellerCount() {
-        return productRepository.findAll().stream()
-                .map(Product::getAddedBy)
-                .distinct()
-                .count();
-    }
 }
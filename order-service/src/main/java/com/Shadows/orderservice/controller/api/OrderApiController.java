@@ -1,12 +1,25 @@
 package com.Shadows.orderservice.controller.api;
 
+import com.Shadows.orderservice.Service.BasketFeedService;
+import com.Shadows.orderservice.Service.InsufficientStockException;
+import com.Shadows.orderservice.Service.InventoryReservationService;
+import com.Shadows.orderservice.Service.OrderService;
 import com.Shadows.orderservice.Service.OrderServiceImp;
+import com.Shadows.orderservice.Service.ProductService;
+import com.Shadows.orderservice.Service.ReservationTimeoutException;
+import com.Shadows.orderservice.model.Category;
 import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.model.OrderLine;
 import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.OrderLineRepository;
 import com.Shadows.orderservice.repository.ProductRepository;
+import com.Shadows.orderservice.controller.api.dto.TopSoldDto;
 import com.Shadows.orderservice.util.JwtUtil;
+import com.Shadows.orderservice.util.KeysetPage;
 import com.Shadows.orderservice.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +27,8 @@ import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -21,18 +36,31 @@ import java.util.stream.Collectors;
 @RequestMapping("/order-service/api")
 public class OrderApiController {
 
+    private static final int MAX_BULK_TRANSITIONS = 1000;
+    private static final int MAX_BASKETS_PAGE = 1000;
+    private static final int MAX_TOP_SOLD = 100;
+
     @Autowired
     private OrderServiceImp orderService;
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductService productService;
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private BasketFeedService basketFeedService;
+
     @GetMapping("/orders/me")
     public ResponseEntity<?> getMyOrders(
             @RequestHeader(value = "Authorization", required = false) String authorization) {
@@ -49,16 +77,11 @@ public class OrderApiController {
             OrderSummary s = new OrderSummary();
             s.id = o.getId();
             s.status = o.getStatus();
-            s.total = safeParseDouble(o.getPrice());
+            s.total = o.getTotal();
             s.orderDate = o.getDate() != null ? Instant.ofEpochMilli(o.getDate().getTime()).toString() : null;
-            if (o.getProducts() != null) {
-                // Convert full list with duplicates into "Product (x3)" format
-                Map<String, Long> counts = o.getProducts().stream()
-                        .map(Product::getName)
-                        .collect(Collectors.groupingBy(name -> name, Collectors.counting()));
-
-                s.productNames = counts.entrySet().stream()
-                        .map(e -> e.getKey() + " (x" + e.getValue() + ")")
+            if (o.getLines() != null) {
+                s.productNames = o.getLines().stream()
+                        .map(l -> l.getProductName() + " (x" + l.getQuantity() + ")")
                         .collect(Collectors.toList());
             }
             summaries.add(s);
@@ -118,21 +141,11 @@ public class OrderApiController {
         int totalQuantity = 0;
 
         for (Map.Entry<Long, Integer> e : requestedQty.entrySet()) {
-            Long productId = e.getKey();
-            int qty = e.getValue();
-            Product p = byId.get(productId);
+            Product p = byId.get(e.getKey());
             if (p == null)
                 continue;
 
-            int stock = p.getQuantity() == null ? 0 : p.getQuantity();
-            if (qty > stock) {
-                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
-                        "error", "Insufficient stock",
-                        "productId", productId,
-                        "available", stock,
-                        "requested", qty));
-            }
-
+            int qty = e.getValue();
             BigDecimal price = BigDecimal.valueOf(p.getPrice() == null ? 0.0 : p.getPrice());
             total = total.add(price.multiply(BigDecimal.valueOf(qty)));
             totalQuantity += qty;
@@ -140,19 +153,19 @@ public class OrderApiController {
 
         total = total.setScale(2, RoundingMode.HALF_UP);
 
-        // Decrement stock (best-effort single-threaded approach)
-        for (Map.Entry<Long, Integer> e : requestedQty.entrySet()) {
-            Product p = byId.get(e.getKey());
-            if (p == null)
-                continue;
-            int newQty = (p.getQuantity() == null ? 0 : p.getQuantity()) - e.getValue();
-            p.setQuantity(newQty);
-            if (newQty <= 0) {
-                p.setQuantity(0);
-                p.setStatus(com.Shadows.orderservice.model.ProductStatus.OUT_OF_STOCK);
-            }
+        // Atomic per-product stock decrement; fails without touching stock if any item is short
+        try {
+            inventoryReservationService.reserve(requestedQty);
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Insufficient stock",
+                    "productId", e.getProductId(),
+                    "available", e.getAvailable(),
+                    "requested", e.getRequested()));
+        } catch (ReservationTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Inventory busy, please retry"));
         }
-        productRepository.saveAll(products);
 
         Order order = new Order();
         order.setUsername(username);
@@ -160,24 +173,24 @@ public class OrderApiController {
         order.setDate(new Date());
         order.setRef((int) (Math.random() * 100000));
         order.setQuantity(totalQuantity);
-        order.setPrice(total.toPlainString());
+        order.setTotalAmount(total);
 
-        // Populate products list with frequency replication (Hack for ManyToMany
-        // quantity)
-        // If user bought 3 Apples, we add the Apple reference 3 times to the list
-        List<Product> orderProducts = new ArrayList<>();
+        // One line per distinct product, carrying the quantity and the unit price paid
         for (Map.Entry<Long, Integer> e : requestedQty.entrySet()) {
             Product p = byId.get(e.getKey());
             if (p != null) {
-                int count = e.getValue();
-                for (int i = 0; i < count; i++) {
-                    orderProducts.add(p);
-                }
+                order.addLine(p, e.getValue());
             }
         }
-        order.setProducts(orderProducts);
 
-        Order saved = orderService.createOrder(order);
+        Order saved;
+        try {
+            saved = orderService.createOrder(order);
+        } catch (RuntimeException e) {
+            // Give the units back, otherwise they stay reserved for an order that does not exist
+            inventoryReservationService.release(requestedQty);
+            throw e;
+        }
 
         return ResponseEntity.ok(Map.of(
                 "orderId", saved.getId(),
@@ -198,36 +211,20 @@ public class OrderApiController {
         }
 
         String seller = jwtUtil.extractUsername(token);
-        List<Order> orders = orderService.getOrdersByProductOwner(seller);
 
         // Return individual product sales lines for order dashboard display
         List<SaleLine> lines = new ArrayList<>();
-        for (Order o : orders) {
-            String status = Optional.ofNullable(o.getStatus()).orElse("");
-            if (!("PAID".equalsIgnoreCase(status)
-                    || "WAITING_DELIVERY".equalsIgnoreCase(status)
-                    || "SHIPPED".equalsIgnoreCase(status))) {
-                continue;
-            }
-
-            if (o.getProducts() == null)
-                continue;
-            for (Product p : o.getProducts()) {
-                if (p == null)
-                    continue;
-                if (!seller.equalsIgnoreCase(Optional.ofNullable(p.getAddedBy()).orElse("")))
-                    continue;
-
-                SaleLine line = new SaleLine();
-                line.orderId = o.getId();
-                line.orderStatus = o.getStatus();
-                line.orderDate = o.getDate() != null ? Instant.ofEpochMilli(o.getDate().getTime()).toString() : null;
-                line.buyerUsername = o.getUsername();
-                line.productId = p.getId();
-                line.productName = p.getName();
-                line.unitPrice = p.getPrice();
-                lines.add(line);
-            }
+        for (OrderLineRepository.SellerSaleRow row : orderService.getSellerSales(seller)) {
+            SaleLine line = new SaleLine();
+            line.orderId = row.getOrderId();
+            line.orderStatus = row.getOrderStatus();
+            line.orderDate = row.getOrderDate() != null ? Instant.ofEpochMilli(row.getOrderDate().getTime()).toString() : null;
+            line.buyerUsername = row.getBuyerUsername();
+            line.productId = row.getProductId();
+            line.productName = row.getProductName();
+            line.quantity = row.getQuantity();
+            line.unitPrice = row.getUnitPrice() != null ? row.getUnitPrice().doubleValue() : null;
+            lines.add(line);
         }
 
         return ResponseEntity.ok(lines);
@@ -247,44 +244,23 @@ public class OrderApiController {
         }
 
         String seller = jwtUtil.extractUsername(token);
-        List<Order> orders = orderService.getOrdersByProductOwner(seller);
 
-        // Return grouped orders with product names aggregated
+        // Return grouped orders with the seller's product names aggregated
         // This is used by recommendation service for top-sold analysis
+        // Rows come ordered by order id, so each order's lines are contiguous
         List<OrderSummary> summaries = new ArrayList<>();
-        for (Order o : orders) {
-            String status = Optional.ofNullable(o.getStatus()).orElse("");
-
-            // Filter for completed orders only
-            if (!("PAID".equalsIgnoreCase(status)
-                    || "WAITING_DELIVERY".equalsIgnoreCase(status)
-                    || "SHIPPED".equalsIgnoreCase(status))) {
-                continue;
-            }
-
-            if (o.getProducts() == null || o.getProducts().isEmpty())
-                continue;
-
-            // Collect seller's products in this order
-            List<String> sellerProductNames = new ArrayList<>();
-            for (Product p : o.getProducts()) {
-                if (p == null)
-                    continue;
-                if (seller.equalsIgnoreCase(Optional.ofNullable(p.getAddedBy()).orElse(""))) {
-                    sellerProductNames.add(p.getName());
-                }
-            }
-
-            // Only add to summaries if seller has products in this order
-            if (!sellerProductNames.isEmpty()) {
-                OrderSummary summary = new OrderSummary();
-                summary.id = o.getId();
-                summary.status = o.getStatus();
-                summary.total = safeParseDouble(o.getPrice());
-                summary.orderDate = o.getDate() != null ? Instant.ofEpochMilli(o.getDate().getTime()).toString() : null;
-                summary.productNames = sellerProductNames;
-                summaries.add(summary);
+        OrderSummary current = null;
+        for (OrderLineRepository.SellerSaleRow row : orderService.getSellerSales(seller)) {
+            if (current == null || !current.id.equals(row.getOrderId())) {
+                current = new OrderSummary();
+                current.id = row.getOrderId();
+                current.status = row.getOrderStatus();
+                current.total = row.getOrderTotal() != null ? row.getOrderTotal().doubleValue() : 0.0;
+                current.orderDate = row.getOrderDate() != null ? Instant.ofEpochMilli(row.getOrderDate().getTime()).toString() : null;
+                current.productNames = new ArrayList<>();
+                summaries.add(current);
             }
+            current.productNames.add(row.getProductName());
         }
 
         return ResponseEntity.ok(summaries);
@@ -303,8 +279,21 @@ public class OrderApiController {
      * Get all products (public access for sellers and customers)
      */
     @GetMapping("/products")
-    public ResponseEntity<?> getAllProducts() {
-        List<Map<String, Object>> products = productRepository.findAll().stream()
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(value = "status", required = false) ProductStatus status,
+            @RequestParam(value = "category", required = false) Category category,
+            @RequestParam(value = "seller", required = false) String seller,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        KeysetPage<ProductRepository.ListItem> page;
+        try {
+            page = productService.listProducts(status, category, seller, sort, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        List<Map<String, Object>> products = page.items().stream()
                 .map(p -> {
                     Map<String, Object> map = new HashMap<>();
                     map.put("id", p.getId());
@@ -320,7 +309,7 @@ public class OrderApiController {
                 })
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok(new KeysetPage<>(products, page.nextCursor(), page.limit()));
     }
 
     /**
@@ -401,7 +390,7 @@ public class OrderApiController {
                 }
             }
 
-            Product saved = productRepository.save(product);
+            Product saved = productService.createProduct(product);
 
             Map<String, Object> response = new HashMap<>();
             response.put("id", saved.getId());
@@ -469,7 +458,7 @@ public class OrderApiController {
                 product.setStatus(com.Shadows.orderservice.model.ProductStatus.valueOf(statusStr));
             }
 
-            Product updated = productRepository.save(product);
+            Product updated = productService.updateProduct(product);
 
             Map<String, Object> response = new HashMap<>();
             response.put("id", updated.getId());
@@ -509,7 +498,7 @@ public class OrderApiController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not your product"));
         }
 
-        productRepository.deleteById(id);
+        productService.deleteProduct(id);
         return ResponseEntity.ok(Map.of("message", "Product deleted"));
     }
 
@@ -535,8 +524,10 @@ public class OrderApiController {
         Order order = opt.get();
 
         // Verify that this order contains products from this seller
-        boolean hasSellerProduct = order.getProducts() != null &&
-                order.getProducts().stream()
+        boolean hasSellerProduct = order.getLines() != null &&
+                order.getLines().stream()
+                        .map(OrderLine::getProduct)
+                        .filter(Objects::nonNull)
                         .anyMatch(p -> seller.equalsIgnoreCase(Optional.ofNullable(p.getAddedBy()).orElse("")));
 
         if (!hasSellerProduct) {
@@ -551,8 +542,7 @@ public class OrderApiController {
                     .body(Map.of("error", "Order cannot be shipped. Current status: " + currentStatus));
         }
 
-        order.setStatus("SHIPPED");
-        Order updated = orderRepository.save(order);
+        Order updated = orderService.updateOrderStatus(id, "SHIPPED").orElse(order);
 
         Map<String, Object> response = new HashMap<>();
         response.put("id", updated.getId());
@@ -562,14 +552,123 @@ public class OrderApiController {
         return ResponseEntity.ok(response);
     }
 
-    private static double safeParseDouble(String value) {
-        if (value == null)
-            return 0.0;
-        try {
-            return Double.parseDouble(value);
-        } catch (Exception ignored) {
-            return 0.0;
+    /**
+     * Applies many order status transitions at once (seller shipping, payment reconciliation, admin).
+     * Same rules as the single-order endpoints; returns one outcome per transition, in request order.
+     */
+    @PostMapping("/orders/status/bulk")
+    public ResponseEntity<?> bulkUpdateOrderStatus(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestBody BulkStatusRequest request) {
+        String token = extractBearerToken(authorization);
+        if (token == null || !jwtUtil.validateToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Missing/invalid token"));
+        }
+        if (request == null || request.transitions == null || request.transitions.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No transitions"));
+        }
+        if (request.transitions.size() > MAX_BULK_TRANSITIONS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + MAX_BULK_TRANSITIONS + " transitions per request"));
+        }
+
+        List<OrderService.TransitionResult> results = orderService.transitionStatuses(request.transitions,
+                jwtUtil.extractUsername(token), jwtUtil.extractRole(token));
+
+        Map<String, Long> counts = new TreeMap<>();
+        for (OrderService.TransitionResult r : results) {
+            counts.merge(r.outcome().name(), 1L, Long::sum);
         }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("counts", counts);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * The most sold products by units in completed orders, aggregated by product id in the database.
+     * Filters: seller, category, and a paid-on window [from, to] (ISO dates, both inclusive).
+     * Sellers only see their own products; admins any seller's; clients the overall or category ranking.
+     */
+    @GetMapping("/products/top-sold")
+    public ResponseEntity<?> getTopSold(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "seller", required = false) String seller,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        String token = extractBearerToken(authorization);
+        if (token == null || !jwtUtil.validateToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Missing/invalid token"));
+        }
+
+        String role = Optional.ofNullable(jwtUtil.extractRole(token)).orElse("");
+        String username = jwtUtil.extractUsername(token);
+        String scopeSeller = seller == null || seller.isBlank() ? null : seller.trim();
+        if ("SHOP".equalsIgnoreCase(role) || "SELLER".equalsIgnoreCase(role)) {
+            if (scopeSeller != null && !scopeSeller.equalsIgnoreCase(username)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Forbidden"));
+            }
+            scopeSeller = username;
+        } else if (scopeSeller != null && !"ADMIN".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Forbidden"));
+        }
+
+        Category scopeCategory = null;
+        if (category != null && !category.isBlank()) {
+            try {
+                scopeCategory = Category.valueOf(category.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Unknown category: " + category));
+            }
+        }
+        Date fromDate = from == null ? null : Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Date toDate = to == null ? null : Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+        List<TopSoldDto> topSold = orderService.getTopSold(scopeSeller, scopeCategory, fromDate, toDate,
+                        Math.max(1, Math.min(limit, MAX_TOP_SOLD))).stream()
+                .map(row -> new TopSoldDto(row.getProductId(), row.getUnits()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(topSold);
+    }
+
+    /**
+     * Products bought together in paid orders, for the recommender's co-purchase index; no buyer data,
+     * but the whole sales history, so only for services (role SERVICE) and admins.
+     * Start with since=0&afterId=0, then pass back the returned cursor.
+     */
+    @GetMapping("/orders/baskets")
+    public ResponseEntity<?> getPaidBaskets(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+            @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        String token = extractBearerToken(authorization);
+        if (token == null || !jwtUtil.validateToken(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Missing/invalid token"));
+        }
+        String role = Optional.ofNullable(jwtUtil.extractRole(token)).orElse("");
+        if (!"SERVICE".equalsIgnoreCase(role) && !"ADMIN".equalsIgnoreCase(role)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Forbidden"));
+        }
+
+        if (since < 0 || afterId < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "since and afterId must be >= 0"));
+        }
+        BasketFeedService.Feed feed = basketFeedService.paidSince(since, afterId,
+                Math.max(1, Math.min(limit, MAX_BASKETS_PAGE)));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("since", feed.since());
+        body.put("afterId", feed.afterId());
+        body.put("hasMore", feed.hasMore());
+        body.put("baskets", feed.baskets());
+        return ResponseEntity.ok(body);
+    }
+
+    public static class BulkStatusRequest {
+        public List<OrderService.StatusTransition> transitions;
     }
 
     public static class CheckoutRequest {
@@ -597,6 +696,7 @@ public class OrderApiController {
         public String buyerUsername;
         public Long productId;
         public String productName;
+        public int quantity;
         public Double unitPrice;
     }
 }
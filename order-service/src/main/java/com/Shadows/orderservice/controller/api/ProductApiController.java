@@ -1,11 +1,15 @@
 package com.Shadows.orderservice.controller.api;
 
+import com.Shadows.orderservice.Service.CatalogChangeService;
 import com.Shadows.orderservice.Service.ProductServiceImp;
+import com.Shadows.orderservice.controller.api.dto.CatalogChangeDto;
 import com.Shadows.orderservice.controller.api.dto.ProductDto;
+import com.Shadows.orderservice.model.Category;
 import com.Shadows.orderservice.model.Product;
 import com.Shadows.orderservice.model.ProductStatus;
 import com.Shadows.orderservice.repository.ProductRepository;
 import com.Shadows.orderservice.util.JwtUtil;
+import com.Shadows.orderservice.util.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,7 +18,9 @@ import org.springframework.web.bind.annotation.*;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -31,9 +37,66 @@ public class ProductApiController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private CatalogChangeService catalogChangeService;
+
+    private static final int MAX_CHANGES_PAGE = 1000;
+
+    /**
+     * Catalog listing as a keyset page {items, nextCursor, limit}; pass nextCursor back for the next page.
+     */
     @GetMapping("/products")
-    public List<ProductDto> getProducts() {
-        return productService.getAllProducts().stream().map(ProductApiController::toDto).collect(Collectors.toList());
+    public ResponseEntity<?> getProducts(
+            @RequestParam(value = "status", required = false) ProductStatus status,
+            @RequestParam(value = "category", required = false) Category category,
+            @RequestParam(value = "seller", required = false) String seller,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        KeysetPage<ProductRepository.ListItem> page;
+        try {
+            page = productService.listProducts(status, category, seller, sort, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        List<ProductDto> items = page.items().stream().map(ProductApiController::toDto).collect(Collectors.toList());
+        return ResponseEntity.ok(new KeysetPage<>(items, page.nextCursor(), page.limit()));
+    }
+
+    /**
+     * Current catalog version, for cheap "has anything changed?" polling.
+     */
+    @GetMapping("/products/version")
+    public ResponseEntity<?> getCatalogVersion() {
+        return ResponseEntity.ok(Map.of("version", catalogChangeService.currentVersion()));
+    }
+
+    /**
+     * Products created, updated (including stock) or deleted after catalog version {@code since}.
+     * Start with since=0 for a full sync, then pass back the returned version. When "reset" is
+     * true the replica is older than the retained history and must be rebuilt from since=0.
+     */
+    @GetMapping("/products/changes")
+    public ResponseEntity<?> getCatalogChanges(
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        if (since < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "since must be >= 0"));
+        }
+        CatalogChangeService.Feed feed = catalogChangeService.changesSince(since,
+                Math.max(1, Math.min(limit, MAX_CHANGES_PAGE)));
+
+        List<CatalogChangeDto> changes = feed.changes().stream()
+                .map(e -> new CatalogChangeDto(e.version(), e.productId(), e.deleted(),
+                        e.product() == null ? null : toDto(e.product())))
+                .collect(Collectors.toList());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", feed.version());
+        body.put("reset", feed.reset());
+        body.put("hasMore", feed.hasMore());
+        body.put("changes", changes);
+        return ResponseEntity.ok(body);
     }
 
     @GetMapping("/my-products")
@@ -112,6 +175,22 @@ public class ProductApiController {
         );
     }
 
+    private static ProductDto toDto(ProductRepository.ListItem p) {
+        return new ProductDto(
+                p.getId(),
+                p.getName(),
+                p.getPrice(),
+                p.getDescription(),
+                p.getQuantity(),
+                p.getImageUrl(),
+                p.getCategory(),
+                p.getStatus(),
+                p.getAddedBy(),
+                p.getCreatedAt(),
+                p.getExpieryDate()
+        );
+    }
+
     private static String extractBearerToken(String authorization) {
         if (authorization == null) return null;
         String prefix = "Bearer ";
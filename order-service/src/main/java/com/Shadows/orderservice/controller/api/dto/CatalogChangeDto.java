@@ -0,0 +1,12 @@
+package com.Shadows.orderservice.controller.api.dto;
+
+/**
+ * One entry of the catalog change feed; {@code product} is null when {@code deleted} is true.
+ */
+public record CatalogChangeDto(
+        long version,
+        Long productId,
+        boolean deleted,
+        ProductDto product
+) {
+}
@@ -0,0 +1,10 @@
+package com.Shadows.orderservice.controller.api.dto;
+
+/**
+ * Units of a product sold in completed orders.
+ */
+public record TopSoldDto(
+        Long productId,
+        long units
+) {
+}
@@ -0,0 +1,28 @@
+package com.Shadows.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Idempotency key of a state-changing request already applied (e.g. a status update relayed by payment).
+ */
+@Table(name = "applied_request", indexes = {
+        @Index(name = "idx_applied_request_applied_at", columnList = "applied_at")
+})
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppliedRequest {
+    @Id
+    @Column(name = "idempotency_key", length = 191)
+    private String idempotencyKey;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "applied_at", nullable = false)
+    private Date appliedAt;
+}
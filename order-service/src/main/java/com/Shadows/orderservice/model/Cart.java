@@ -2,12 +2,16 @@ package com.Shadows.orderservice.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cart")
 public class Cart {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -16,6 +20,7 @@ public class Cart {
     private String username;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cart.products")
     @JoinTable(
             name = "cart_products",
             joinColumns = @JoinColumn(name = "cart_id"),
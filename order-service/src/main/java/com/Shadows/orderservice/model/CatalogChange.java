@@ -0,0 +1,45 @@
+package com.Shadows.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * One entry of the catalog change feed: product {@code productId} was created/updated
+ * (or deleted) in catalog version {@code version}.
+ */
+@Table(name = "catalog_change", indexes = {
+        @Index(name = "idx_catalog_change_version", columnList = "version"),
+        @Index(name = "idx_catalog_change_product", columnList = "product_id, version")
+})
+@Entity
+@Data
+@NoArgsConstructor
+public class CatalogChange {
+    /** Version of a stock change written by a checkout and not versioned by the flush yet */
+    public static final long PENDING = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private boolean deleted;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date changedAt;
+
+    public CatalogChange(long version, Long productId, boolean deleted) {
+        this.version = version;
+        this.productId = productId;
+        this.deleted = deleted;
+        this.changedAt = new Date();
+    }
+}
@@ -0,0 +1,28 @@
+package com.Shadows.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single-row catalog version counter. {@code compactedThrough} is the highest version whose
+ * delete markers have been purged; replicas older than that must resync from version 0.
+ */
+@Table(name = "catalog_version")
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogVersion {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "compacted_through", nullable = false)
+    private long compactedThrough;
+}
@@ -0,0 +1,23 @@
+package com.Shadows.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One persisted admin dashboard counter (e.g. "products", "orders.count.PAID", "seller.products.freshmart").
+ */
+@Table(name = "dashboard_stat")
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardStat {
+    @Id
+    @Column(name = "stat_key", length = 191)
+    private String statKey;
+
+    @Column(name = "stat_value", nullable = false)
+    private long statValue;
+}
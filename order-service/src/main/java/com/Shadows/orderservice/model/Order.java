@@ -5,20 +5,34 @@ import lombok.Data;
 
 import org.springframework.format.annotation.DateTimeFormat;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status", columnList = "status"),
+        @Index(name = "idx_orders_date", columnList = "date"),
+        @Index(name = "idx_orders_username", columnList = "username"),
+        @Index(name = "idx_orders_paid_at", columnList = "paid_at, id")
+})
 @Entity
 @Data
 
 public class Order {
+    /** PAID and the statuses that follow it (same as OrderServiceImp.COMPLETED_STATUSES) */
+    private static final Set<String> PAID_STATUSES = Set.of("PAID", "WAITING_DELIVERY", "SHIPPED");
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private int ref;
-    private String price;
+
+    @Column(name = "total_amount", precision = 12, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
     private int quantity;
 
     @DateTimeFormat(pattern = "yyyy-MM-dd")
@@ -27,11 +41,44 @@ public class Order {
     private String username;
     private String status = "PENDING";
 
-    @ManyToMany
-    @JoinTable(name = "order_products", joinColumns = @JoinColumn(name = "order_id"), inverseJoinColumns = @JoinColumn(name = "product_id"))
+    /**
+     * When the order first reached a paid status; feeds the basket stream of the recommender
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "paid_at")
+    private Date paidAt;
+
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
     @lombok.ToString.Exclude
     @lombok.EqualsAndHashCode.Exclude
-    private List<Product> products = new ArrayList<>();
+    private List<OrderLine> lines = new ArrayList<>();
+
+    /**
+     * Add a line for {@code quantity} units of a product, snapshotting its name and current price
+     */
+    public OrderLine addLine(Product product, int quantity) {
+        OrderLine line = new OrderLine();
+        line.setOrder(this);
+        line.setProduct(product);
+        line.setProductName(product.getName());
+        line.setQuantity(quantity);
+        line.setUnitPrice(BigDecimal.valueOf(product.getPrice() == null ? 0.0 : product.getPrice()));
+        lines.add(line);
+        return line;
+    }
+
+    public static boolean isPaidStatus(String status) {
+        return status != null && PAID_STATUSES.contains(status.toUpperCase(Locale.ROOT));
+    }
+
+    @PrePersist
+    @PreUpdate
+    void stampPaidAt() {
+        if (paidAt == null && isPaidStatus(status)) {
+            paidAt = new Date();
+        }
+    }
 
     /**
      * Get order date (alias for 'date' field for compatibility)
@@ -44,11 +91,7 @@ public class Order {
      * Get total amount as double
      */
     public double getTotal() {
-        try {
-            return Double.parseDouble(price != null ? price : "0.0");
-        } catch (NumberFormatException e) {
-            return 0.0;
-        }
+        return totalAmount != null ? totalAmount.doubleValue() : 0.0;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.Shadows.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * One product of an order with the quantity bought and the price paid per unit.
+ * Name and price are copied at checkout so the order stays readable after the product changes or is deleted.
+ */
+@Table(name = "order_line", indexes = {
+        // Covers the per-product sums of the top-sold query
+        @Index(name = "idx_order_line_product_order_qty", columnList = "product_id, order_id, quantity")
+})
+@Entity
+@Data
+public class OrderLine {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false)
+    @lombok.ToString.Exclude
+    @lombok.EqualsAndHashCode.Exclude
+    private Order order;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id")
+    @lombok.ToString.Exclude
+    @lombok.EqualsAndHashCode.Exclude
+    private Product product;
+
+    private String productName;
+    private int quantity;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal unitPrice;
+
+    /**
+     * Id of the product, or null once the product has been deleted
+     */
+    public Long getProductId() {
+        return product != null ? product.getId() : null;
+    }
+}
@@ -3,11 +3,19 @@ package com.Shadows.orderservice.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.sql.Date;
-import java.util.List;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
+@Table(indexes = {
+        @Index(name = "idx_product_category", columnList = "category"),
+        @Index(name = "idx_product_status", columnList = "status"),
+        @Index(name = "idx_product_added_by", columnList = "added_by")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,13 +32,4 @@ public class Product {
     private String addedBy;
     private Date createdAt;
     private Date expieryDate;
-
-
-
-    @ManyToMany(mappedBy = "products")
-    @lombok.ToString.Exclude
-    @lombok.EqualsAndHashCode.Exclude
-    private List< Order> orders;
-
-
 }
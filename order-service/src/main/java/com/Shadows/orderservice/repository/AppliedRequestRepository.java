@@ -0,0 +1,16 @@
+package com.Shadows.orderservice.repository;
+
+import com.Shadows.orderservice.model.AppliedRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+
+public interface AppliedRequestRepository extends JpaRepository<AppliedRequest, String> {
+
+    @Modifying
+    @Query("DELETE FROM AppliedRequest r WHERE r.appliedAt < :before")
+    int deleteAppliedBefore(@Param("before") Date before);
+}
@@ -0,0 +1,58 @@
+package com.Shadows.orderservice.repository;
+
+import com.Shadows.orderservice.model.CatalogChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    /**
+     * Latest change of every product changed after {@code since}, oldest first.
+     */
+    @Query("SELECT c FROM CatalogChange c WHERE c.version > :since AND NOT EXISTS "
+            + "(SELECT 1 FROM CatalogChange n WHERE n.productId = c.productId AND n.version > c.version) "
+            + "ORDER BY c.version ASC, c.productId ASC")
+    List<CatalogChange> findLatestSince(@Param("since") long since, Limit limit);
+
+    /**
+     * Ids of entries already superseded by a newer change of the same product (pending ones are never superseded).
+     */
+    @Query("SELECT c.id FROM CatalogChange c WHERE c.version > 0 AND EXISTS "
+            + "(SELECT 1 FROM CatalogChange n WHERE n.productId = c.productId AND n.version > c.version)")
+    List<Long> findSupersededIds(Limit limit);
+
+    /**
+     * Committed stock changes waiting for a version, oldest first. A plain read: it takes no
+     * locks, so it never waits for checkouts in progress.
+     */
+    @Query("SELECT c.id AS id, c.productId AS productId FROM CatalogChange c WHERE c.version = 0 ORDER BY c.id")
+    List<PendingChange> findPending(Limit limit);
+
+    @Modifying
+    @Query("UPDATE CatalogChange c SET c.version = :version WHERE c.id IN :ids")
+    int assignVersion(@Param("ids") Collection<Long> ids, @Param("version") long version);
+
+    interface PendingChange {
+        Long getId();
+
+        Long getProductId();
+    }
+
+    @Query("SELECT MAX(c.version) FROM CatalogChange c WHERE c.deleted = true AND c.changedAt < :before")
+    Long findMaxDeletedVersionBefore(@Param("before") Date before);
+
+    @Modifying
+    @Query("DELETE FROM CatalogChange c WHERE c.deleted = true AND c.version <= :version")
+    int deleteDeletedThrough(@Param("version") long version);
+
+    @Modifying
+    @Query("DELETE FROM CatalogChange c WHERE c.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
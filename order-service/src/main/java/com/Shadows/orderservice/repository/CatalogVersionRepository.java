@@ -0,0 +1,25 @@
+package com.Shadows.orderservice.repository;
+
+import com.Shadows.orderservice.model.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Long> {
+
+    /**
+     * Bumps the catalog version. The row stays locked until the caller commits, so versions
+     * become visible in the order they were handed out. Returns 0 when the row does not exist yet.
+     */
+    @Modifying
+    @Query("UPDATE CatalogVersion v SET v.version = v.version + 1 WHERE v.id = :id")
+    int increment(@Param("id") Long id);
+
+    @Query("SELECT v.version FROM CatalogVersion v WHERE v.id = :id")
+    Long findVersion(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE CatalogVersion v SET v.compactedThrough = :version WHERE v.id = :id AND v.compactedThrough < :version")
+    int raiseCompactedThrough(@Param("id") Long id, @Param("version") long version);
+}
@@ -0,0 +1,18 @@
+package com.Shadows.orderservice.repository;
+
+import com.Shadows.orderservice.model.DashboardStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface DashboardStatRepository extends JpaRepository<DashboardStat, String> {
+
+    /**
+     * Adds a delta in place, so several order-service instances can flush into the same row.
+     * Returns 0 when the key does not exist yet.
+     */
+    @Modifying
+    @Query("UPDATE DashboardStat s SET s.statValue = s.statValue + :delta WHERE s.statKey = :key")
+    int addToValue(@Param("key") String key, @Param("delta") long delta);
+}
@@ -0,0 +1,102 @@
+package com.Shadows.orderservice.repository;
+
+import com.Shadows.orderservice.model.Category;
+import com.Shadows.orderservice.model.OrderLine;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface OrderLineRepository extends JpaRepository<OrderLine, Long> {
+
+    /**
+     * The seller's lines in orders with one of the given statuses, one row per line,
+     * read straight from order_line/orders/product without loading the orders.
+     */
+    @Query("SELECT o.id AS orderId, o.date AS orderDate, o.status AS orderStatus, o.username AS buyerUsername, "
+            + "o.totalAmount AS orderTotal, p.id AS productId, l.productName AS productName, "
+            + "l.quantity AS quantity, l.unitPrice AS unitPrice "
+            + "FROM OrderLine l JOIN l.order o JOIN l.product p "
+            + "WHERE p.addedBy = :seller AND o.status IN :statuses "
+            + "ORDER BY o.id, l.id")
+    List<SellerSaleRow> findSellerSales(@Param("seller") String seller, @Param("statuses") Collection<String> statuses);
+
+    @Query("SELECT l FROM OrderLine l WHERE l.order.id IN :orderIds ORDER BY l.id")
+    List<OrderLine> findByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Units sold per product in orders with one of the given statuses, most sold first;
+     * seller, category and the paid-at window [from, to) are optional filters.
+     */
+    @Query("SELECT p.id AS productId, SUM(l.quantity) AS units FROM OrderLine l JOIN l.order o JOIN l.product p "
+            + "WHERE o.status IN :statuses "
+            + "AND (:seller IS NULL OR p.addedBy = :seller) "
+            + "AND (:category IS NULL OR p.category = :category) "
+            + "AND (:from IS NULL OR o.paidAt >= :from) "
+            + "AND (:to IS NULL OR o.paidAt < :to) "
+            + "GROUP BY p.id ORDER BY SUM(l.quantity) DESC, p.id")
+    List<ProductUnits> findTopSold(@Param("statuses") Collection<String> statuses, @Param("seller") String seller,
+                                   @Param("category") Category category, @Param("from") Date from,
+                                   @Param("to") Date to, Limit limit);
+
+    /**
+     * (order id, product id, units) of the lines of these orders, skipping products deleted since.
+     */
+    @Query("SELECT l.order.id AS orderId, l.product.id AS productId, l.quantity AS quantity FROM OrderLine l "
+            + "WHERE l.order.id IN :orderIds AND l.product IS NOT NULL ORDER BY l.order.id, l.id")
+    List<BasketItem> findBasketItems(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Ids, among {@code orderIds}, of the orders containing at least one product of {@code seller}.
+     */
+    @Query("SELECT DISTINCT l.order.id FROM OrderLine l "
+            + "WHERE l.order.id IN :orderIds AND lower(l.product.addedBy) = lower(:seller)")
+    List<Long> findOrderIdsWithSeller(@Param("orderIds") Collection<Long> orderIds, @Param("seller") String seller);
+
+    /**
+     * Keeps the lines (with their name/price snapshot) of orders that referenced a deleted product.
+     */
+    @Modifying
+    @Query("UPDATE OrderLine l SET l.product = null WHERE l.product.id = :productId")
+    int detachProduct(@Param("productId") Long productId);
+
+    interface ProductUnits {
+        Long getProductId();
+
+        long getUnits();
+    }
+
+    interface BasketItem {
+        Long getOrderId();
+
+        Long getProductId();
+
+        int getQuantity();
+    }
+
+    interface SellerSaleRow {
+        Long getOrderId();
+
+        Date getOrderDate();
+
+        String getOrderStatus();
+
+        String getBuyerUsername();
+
+        BigDecimal getOrderTotal();
+
+        Long getProductId();
+
+        String getProductName();
+
+        int getQuantity();
+
+        BigDecimal getUnitPrice();
+    }
+}
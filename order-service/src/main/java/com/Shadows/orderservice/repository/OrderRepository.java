@@ -1,15 +1,117 @@
 package com.Shadows.orderservice.repository;
 
 import com.Shadows.orderservice.model.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    String LIST_SELECT = "SELECT o.id AS id, o.ref AS ref, o.username AS username, o.date AS date, "
+            + "o.totalAmount AS totalAmount, o.quantity AS quantity, o.status AS status FROM Order o ";
+
+    String LIST_FILTER = "WHERE (:status IS NULL OR o.status = :status) "
+            + "AND (:customer IS NULL OR o.username = :customer) "
+            + "AND (:from IS NULL OR o.date >= :from) "
+            + "AND (:to IS NULL OR o.date < :to) "
+            + "AND (:seller IS NULL OR EXISTS (SELECT 1 FROM OrderLine l WHERE l.order = o AND l.product.addedBy = :seller)) ";
+
     List<Order> findByUsername(String username);
 
-    @Query("SELECT DISTINCT o FROM Order o JOIN o.products p WHERE p.addedBy = :username")
+    // Keyset pages by id (ids grow with creation time, so id order is creation order)
+
+    @Query(LIST_SELECT + LIST_FILTER + "AND (:afterId IS NULL OR o.id < :afterId) ORDER BY o.id DESC")
+    List<ListItem> findPageNewestFirst(@Param("status") String status, @Param("customer") String customer,
+                                       @Param("seller") String seller, @Param("from") Date from, @Param("to") Date to,
+                                       @Param("afterId") Long afterId, Limit limit);
+
+    @Query(LIST_SELECT + LIST_FILTER + "AND (:afterId IS NULL OR o.id > :afterId) ORDER BY o.id ASC")
+    List<ListItem> findPageOldestFirst(@Param("status") String status, @Param("customer") String customer,
+                                       @Param("seller") String seller, @Param("from") Date from, @Param("to") Date to,
+                                       @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT DISTINCT o FROM Order o JOIN o.lines l WHERE l.product.addedBy = :username")
     List<Order> findOrdersByProductOwner(@Param("username") String username);
-}
\ No newline at end of file
+
+    /**
+     * Stamps paidAt on orders moved to a paid status by a bulk statement (entity callbacks do not run there).
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.paidAt = :paidAt WHERE o.id IN :ids AND o.paidAt IS NULL")
+    int markPaid(@Param("ids") Collection<Long> ids, @Param("paidAt") Date paidAt);
+
+    /**
+     * Paid orders from before paidAt existed: their order date stands in for the payment time.
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.paidAt = COALESCE(o.date, :now) WHERE o.paidAt IS NULL AND o.status IN :statuses")
+    int backfillPaidAt(@Param("statuses") Collection<String> statuses, @Param("now") Date now);
+
+    /**
+     * Keyset page of paid orders by (paidAt, id), paid after the cursor and no later than {@code until}.
+     */
+    @Query("SELECT o.id AS id, o.paidAt AS paidAt FROM Order o "
+            + "WHERE o.paidAt IS NOT NULL AND o.paidAt <= :until "
+            + "AND (o.paidAt > :since OR (o.paidAt = :since AND o.id > :afterId)) "
+            + "ORDER BY o.paidAt, o.id")
+    List<PaidOrder> findPaidSince(@Param("since") Date since, @Param("afterId") long afterId,
+                                  @Param("until") Date until, Limit limit);
+
+    @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o")
+    BigDecimal sumTotalAmount();
+
+    @Query("SELECT o.status AS status, COUNT(o) AS orders, COALESCE(SUM(o.totalAmount), 0) AS total "
+            + "FROM Order o GROUP BY o.status")
+    List<StatusTotal> sumTotalAmountByStatus();
+
+    @Query("SELECT extract(date from o.date) AS day, COUNT(o) AS orders, COALESCE(SUM(o.totalAmount), 0) AS total "
+            + "FROM Order o WHERE o.date >= :from AND o.date < :to "
+            + "GROUP BY extract(date from o.date) ORDER BY extract(date from o.date)")
+    List<DayTotal> sumTotalAmountByDay(@Param("from") Date from, @Param("to") Date to);
+
+    interface ListItem {
+        Long getId();
+
+        int getRef();
+
+        String getUsername();
+
+        Date getDate();
+
+        BigDecimal getTotalAmount();
+
+        int getQuantity();
+
+        String getStatus();
+    }
+
+    interface PaidOrder {
+        Long getId();
+
+        Date getPaidAt();
+    }
+
+    interface StatusTotal {
+        String getStatus();
+
+        long getOrders();
+
+        BigDecimal getTotal();
+    }
+
+    interface DayTotal {
+        LocalDate getDay();
+
+        long getOrders();
+
+        BigDecimal getTotal();
+    }
+}
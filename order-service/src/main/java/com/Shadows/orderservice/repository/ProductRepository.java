@@ -1,11 +1,88 @@
 package com.Shadows.orderservice.repository;
 
+import com.Shadows.orderservice.model.Category;
 import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Date;
 import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    String LIST_SELECT = "SELECT p.id AS id, p.name AS name, p.price AS price, p.description AS description, "
+            + "p.quantity AS quantity, p.imageUrl AS imageUrl, p.category AS category, p.status AS status, "
+            + "p.addedBy AS addedBy, p.createdAt AS createdAt, p.expieryDate AS expieryDate FROM Product p ";
+
+    String LIST_FILTER = "WHERE (:status IS NULL OR p.status = :status) "
+            + "AND (:category IS NULL OR p.category = :category) "
+            + "AND (:seller IS NULL OR p.addedBy = :seller) ";
+
     List<Product> findByAddedBy(String addedBy);
-}
 
+    // Keyset pages: rows strictly after the cursor, only the listed columns
+
+    @Query(LIST_SELECT + LIST_FILTER + "AND (:afterId IS NULL OR p.id > :afterId) ORDER BY p.id ASC")
+    List<ListItem> findPageByIdAsc(@Param("status") ProductStatus status, @Param("category") Category category,
+                                   @Param("seller") String seller, @Param("afterId") Long afterId, Limit limit);
+
+    @Query(LIST_SELECT + LIST_FILTER + "AND (:afterId IS NULL OR p.id < :afterId) ORDER BY p.id DESC")
+    List<ListItem> findPageByIdDesc(@Param("status") ProductStatus status, @Param("category") Category category,
+                                    @Param("seller") String seller, @Param("afterId") Long afterId, Limit limit);
+
+    @Query(LIST_SELECT + LIST_FILTER + "AND (:afterId IS NULL OR COALESCE(p.price, 0) > :afterPrice "
+            + "OR (COALESCE(p.price, 0) = :afterPrice AND p.id > :afterId)) "
+            + "ORDER BY COALESCE(p.price, 0) ASC, p.id ASC")
+    List<ListItem> findPageByPriceAsc(@Param("status") ProductStatus status, @Param("category") Category category,
+                                      @Param("seller") String seller, @Param("afterPrice") Double afterPrice,
+                                      @Param("afterId") Long afterId, Limit limit);
+
+    @Query(LIST_SELECT + LIST_FILTER + "AND (:afterId IS NULL OR COALESCE(p.price, 0) < :afterPrice "
+            + "OR (COALESCE(p.price, 0) = :afterPrice AND p.id < :afterId)) "
+            + "ORDER BY COALESCE(p.price, 0) DESC, p.id DESC")
+    List<ListItem> findPageByPriceDesc(@Param("status") ProductStatus status, @Param("category") Category category,
+                                       @Param("seller") String seller, @Param("afterPrice") Double afterPrice,
+                                       @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT p.addedBy AS seller, COUNT(p) AS products FROM Product p WHERE p.addedBy IS NOT NULL GROUP BY p.addedBy")
+    List<SellerProductCount> countProductsBySeller();
+
+    @Query("SELECT p.id FROM Product p")
+    List<Long> findAllIds();
+
+    @Query("SELECT p.quantity FROM Product p WHERE p.id = :id")
+    Integer findQuantityById(@Param("id") Long id);
+
+    interface ListItem {
+        Long getId();
 
+        String getName();
+
+        Double getPrice();
+
+        String getDescription();
+
+        Integer getQuantity();
+
+        String getImageUrl();
+
+        Category getCategory();
+
+        ProductStatus getStatus();
+
+        String getAddedBy();
+
+        Date getCreatedAt();
+
+        Date getExpieryDate();
+    }
+
+    interface SellerProductCount {
+        String getSeller();
+
+        long getProducts();
+    }
+}
@@ -0,0 +1,62 @@
+package com.Shadows.orderservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque pagination cursor: the sort key values of the last row of a page, base64url encoded.
+ * Clients pass it back as-is to get the next page.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(Object... values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0)
+                sb.append('|');
+            sb.append(values[i] == null ? "" : values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed or does not hold {@code parts} values
+     */
+    public static String[] decode(String cursor, int parts) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] values = raw.split("\\|", -1);
+        if (values.length != parts) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return values;
+    }
+
+    public static Long decodeId(String cursor) {
+        try {
+            return Long.valueOf(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Page size to use: DEFAULT_LIMIT when none is given, otherwise clamped to [1, MAX_LIMIT].
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+}
@@ -0,0 +1,13 @@
+package com.Shadows.orderservice.util;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing; {@code nextCursor} is null on the last page.
+ */
+public record KeysetPage<T>(
+        List<T> items,
+        String nextCursor,
+        Integer limit
+) {
+}
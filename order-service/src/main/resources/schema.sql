@@ -4,3 +4,39 @@
 
 ALTER TABLE product MODIFY category VARCHAR(50);
 ALTER TABLE product MODIFY status VARCHAR(30);
+
+-- Order lines: one row per distinct product of an order (replaces the per-unit rows of order_products).
+-- Created here so the migration below can run before Hibernate updates the schema.
+CREATE TABLE IF NOT EXISTS order_line (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NULL,
+    product_name VARCHAR(255),
+    quantity INT NOT NULL,
+    unit_price DECIMAL(12,2),
+    KEY idx_order_line_order (order_id),
+    KEY idx_order_line_product_order_qty (product_id, order_id, quantity)
+);
+
+-- Per-product sums of the top-sold query read this index alone. Tables created before it had a
+-- product_id-only key: add the covering one, then drop the old key it makes redundant.
+CREATE INDEX idx_order_line_product_order_qty ON order_line (product_id, order_id, quantity);
+DROP INDEX idx_order_line_product ON order_line;
+
+-- Collapse the duplicated order_products rows into counted lines (skips orders already migrated)
+INSERT INTO order_line (order_id, product_id, product_name, quantity, unit_price)
+SELECT op.order_id, op.product_id, p.name, COUNT(*), p.price
+FROM order_products op
+JOIN product p ON p.id = op.product_id
+WHERE NOT EXISTS (SELECT 1 FROM order_line ol WHERE ol.order_id = op.order_id)
+GROUP BY op.order_id, op.product_id, p.name, p.price;
+
+-- Drop the migrated join rows so they no longer block product/order deletes
+DELETE FROM order_products WHERE order_id IN (SELECT order_id FROM order_line);
+
+-- Order totals: numeric total_amount replaces the VARCHAR price column.
+-- Only well-formed amounts are converted; anything else becomes 0 like the old parse fallback.
+ALTER TABLE orders ADD COLUMN total_amount DECIMAL(12,2) NULL;
+UPDATE orders SET total_amount = CAST(TRIM(price) AS DECIMAL(12,2))
+WHERE total_amount IS NULL AND TRIM(price) REGEXP '^-?[0-9]+([.][0-9]+)?$';
+UPDATE orders SET total_amount = 0 WHERE total_amount IS NULL;
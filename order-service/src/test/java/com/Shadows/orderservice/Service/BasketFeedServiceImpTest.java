@@ -0,0 +1,114 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.DashboardStatRepository;
+import com.Shadows.orderservice.repository.OrderRepository;
+import com.Shadows.orderservice.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "orders.baskets.settle-ms=0"
+})
+@Import({BasketFeedServiceImp.class, OrderServiceImp.class, DashboardStatsServiceImp.class, ProductServiceImp.class,
+        CatalogChangeServiceImp.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BasketFeedServiceImpTest {
+
+    @Autowired
+    private BasketFeedServiceImp basketFeedService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DashboardStatRepository dashboardStatRepository;
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        dashboardStatRepository.deleteAll();
+    }
+
+    @Test
+    void basketsArriveOnceEachInPaymentOrder() throws InterruptedException {
+        Product milk = productRepository.save(product("Milk"));
+        Product bread = productRepository.save(product("Bread"));
+        Product eggs = productRepository.save(product("Eggs"));
+
+        Order paidAtCheckout = orderRepository.save(order("PAID", milk, bread, milk));
+        Order pending = orderRepository.save(order("PENDING", eggs, bread));
+        Order cancelled = orderRepository.save(order("CANCELLED", eggs));
+        Thread.sleep(5);
+
+        // Created before the first one but paid after it
+        orderService.updateOrderStatus(pending.getId(), "PAID");
+        List<OrderService.TransitionResult> bulk = orderService.transitionStatuses(List.of(
+                new OrderService.StatusTransition(cancelled.getId(), null, "SHIPPED")), "admin", "ADMIN");
+        assertEquals(OrderService.TransitionOutcome.UPDATED, bulk.get(0).outcome());
+
+        List<BasketFeedService.Basket> baskets = new ArrayList<>();
+        long since = 0;
+        long afterId = 0;
+        BasketFeedService.Feed feed;
+        do {
+            feed = basketFeedService.paidSince(since, afterId, 2);
+            baskets.addAll(feed.baskets());
+            since = feed.since();
+            afterId = feed.afterId();
+        } while (feed.hasMore());
+
+        assertEquals(List.of(paidAtCheckout.getId(), pending.getId(), cancelled.getId()),
+                baskets.stream().map(BasketFeedService.Basket::orderId).toList());
+        assertEquals(List.of(milk.getId(), bread.getId()), baskets.get(0).productIds());
+        assertEquals(List.of(2, 1), baskets.get(0).quantities());
+        assertEquals(List.of(eggs.getId(), bread.getId()), baskets.get(1).productIds());
+
+        // Already past everything; a later status change does not move an order's payment time
+        orderService.updateOrderStatus(pending.getId(), "SHIPPED");
+        assertTrue(basketFeedService.paidSince(since, afterId, 10).baskets().isEmpty());
+    }
+
+    private static Order order(String status, Product... products) {
+        Order o = new Order();
+        o.setUsername("alice");
+        o.setStatus(status);
+        o.setDate(new Date());
+        for (Product p : products) {
+            o.addLine(p, 1);
+        }
+        return o;
+    }
+
+    private static Product product(String name) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(2.0);
+        p.setQuantity(10);
+        p.setStatus(ProductStatus.AVAILABLE);
+        p.setAddedBy("farm");
+        return p;
+    }
+}
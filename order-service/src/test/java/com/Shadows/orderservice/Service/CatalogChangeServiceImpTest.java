@@ -0,0 +1,169 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.CatalogChangeRepository;
+import com.Shadows.orderservice.repository.CatalogVersionRepository;
+import com.Shadows.orderservice.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        // Flushed by the tests themselves
+        "catalog.changes.flush-interval-ms=3600000",
+        "catalog.changes.delete-retention-days=0"
+})
+@Import({CatalogChangeServiceImp.class, ProductServiceImp.class, DashboardStatsServiceImp.class,
+        InventoryReservationServiceImp.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogChangeServiceImpTest {
+
+    @Autowired
+    private CatalogChangeServiceImp catalogChangeService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
+
+    @Autowired
+    private CatalogVersionRepository catalogVersionRepository;
+
+    @AfterEach
+    void cleanUp() {
+        catalogChangeRepository.deleteAll();
+        catalogVersionRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void feedReturnsOnlyWhatChangedSinceTheGivenVersion() {
+        Product milk = productService.createProduct(product("Milk", 10));
+        Product bread = productService.createProduct(product("Bread", 5));
+        long synced = catalogChangeService.currentVersion();
+
+        milk.setPrice(2.5);
+        productService.updateProduct(milk);
+        inventoryReservationService.reserve(Map.of(milk.getId(), 3));
+        catalogChangeService.flushStockChanges();
+        productService.deleteProduct(bread.getId());
+        productService.createProduct(product("Eggs", 12));
+
+        CatalogChangeService.Feed feed = catalogChangeService.changesSince(synced, 100);
+        assertFalse(feed.reset());
+        assertFalse(feed.hasMore());
+        assertEquals(catalogChangeService.currentVersion(), feed.version());
+        // Milk changed twice but is sent once, with its latest state
+        assertEquals(3, feed.changes().size());
+        CatalogChangeService.Entry milkEntry = entry(feed, milk.getId());
+        assertEquals(7, milkEntry.product().getQuantity());
+        assertEquals(2.5, milkEntry.product().getPrice());
+        assertTrue(entry(feed, bread.getId()).deleted());
+
+        assertTrue(catalogChangeService.changesSince(feed.version(), 100).changes().isEmpty());
+    }
+
+    @Test
+    void stockChangesAreVersionedByTheFlushOncePerProduct() {
+        Product milk = productService.createProduct(product("Milk", 10));
+        Product bread = productService.createProduct(product("Bread", 5));
+        long synced = catalogChangeService.currentVersion();
+
+        inventoryReservationService.reserve(Map.of(milk.getId(), 1));
+        inventoryReservationService.reserve(Map.of(milk.getId(), 2, bread.getId(), 1));
+        inventoryReservationService.release(Map.of(bread.getId(), 1));
+
+        // Pending until flushed: the version did not move and the feed has nothing new
+        assertEquals(synced, catalogChangeService.currentVersion());
+        assertTrue(catalogChangeService.changesSince(synced, 100).changes().isEmpty());
+
+        catalogChangeService.flushStockChanges();
+
+        assertEquals(synced + 1, catalogChangeService.currentVersion());
+        CatalogChangeService.Feed feed = catalogChangeService.changesSince(synced, 100);
+        assertEquals(2, feed.changes().size());
+        assertEquals(7, entry(feed, milk.getId()).product().getQuantity());
+        assertEquals(5, entry(feed, bread.getId()).product().getQuantity());
+        assertEquals(1, feed.changes().stream().map(CatalogChangeService.Entry::version).distinct().count());
+
+        // Duplicates were dropped and nothing is left to flush
+        catalogChangeService.flushStockChanges();
+        assertEquals(synced + 1, catalogChangeService.currentVersion());
+    }
+
+    @Test
+    void pagesDoNotSplitAVersion() {
+        for (int i = 0; i < 5; i++) {
+            productService.createProduct(product("P" + i, 1));
+        }
+        // One transaction, one version for three products
+        List<Long> ids = productRepository.findAllIds();
+        catalogChangeService.productsChanged(ids.subList(0, 3));
+
+        CatalogChangeService.Feed first = catalogChangeService.changesSince(0, 2);
+        assertTrue(first.hasMore());
+        assertEquals(2, first.changes().size());
+
+        CatalogChangeService.Feed second = catalogChangeService.changesSince(first.version(), 2);
+        assertEquals(3, second.changes().size());
+        assertEquals(1, second.changes().stream().map(CatalogChangeService.Entry::version).distinct().count());
+
+        CatalogChangeService.Feed third = catalogChangeService.changesSince(second.version(), 2);
+        assertTrue(third.changes().isEmpty());
+        assertFalse(third.hasMore());
+
+        assertEquals(5, first.changes().size() + second.changes().size());
+    }
+
+    @Test
+    void compactionKeepsLatestStateAndResetsStaleReplicas() throws InterruptedException {
+        Product milk = productService.createProduct(product("Milk", 10));
+        long beforeDelete = catalogChangeService.currentVersion();
+        Product bread = productService.createProduct(product("Bread", 5));
+        milk.setPrice(3.0);
+        productService.updateProduct(milk);
+        productService.deleteProduct(bread.getId());
+        Thread.sleep(10);
+
+        catalogChangeService.compact();
+
+        assertEquals(1, catalogChangeRepository.count());
+        CatalogChangeService.Feed full = catalogChangeService.changesSince(0, 100);
+        assertEquals(List.of(milk.getId()), full.changes().stream()
+                .map(CatalogChangeService.Entry::productId).collect(Collectors.toList()));
+        assertTrue(catalogChangeService.changesSince(beforeDelete, 100).reset());
+    }
+
+    private static CatalogChangeService.Entry entry(CatalogChangeService.Feed feed, Long productId) {
+        return feed.changes().stream().filter(e -> e.productId().equals(productId)).findFirst().orElseThrow();
+    }
+
+    private static Product product(String name, int quantity) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(1.0);
+        p.setQuantity(quantity);
+        p.setStatus(ProductStatus.AVAILABLE);
+        return p;
+    }
+}
@@ -0,0 +1,127 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.repository.DashboardStatRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import({DashboardStatsServiceImp.class, OrderServiceImp.class, ProductServiceImp.class, CatalogChangeServiceImp.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DashboardStatsServiceImpTest {
+
+    @Autowired
+    private DashboardStatsServiceImp dashboardStatsService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private DashboardStatRepository dashboardStatRepository;
+
+    @Test
+    void countersFollowWritesAndMatchRecompute() {
+        dashboardStatsService.load();
+
+        productService.createProduct(product("Milk", "dairyplus"));
+        productService.createProduct(product("Cheese", "dairyplus"));
+        Product bread = productService.createProduct(product("Bread", "bakery"));
+
+        Order first = orderService.createOrder(order("12.50"));
+        Order second = orderService.createOrder(order("7.25"));
+        orderService.updateOrderStatus(first.getId(), "PAID");
+        orderService.updateOrderStatus(first.getId(), "PAID");
+        orderService.deleteOrder(second.getId());
+        productService.deleteProduct(bread.getId());
+
+        DashboardStatsService.Snapshot live = dashboardStatsService.snapshot();
+        assertEquals(2, live.totalProducts);
+        assertEquals(1, live.totalSellers);
+        assertEquals(1, live.totalOrders);
+        assertEquals(1L, live.ordersByStatus.get("PAID"));
+        assertNull(live.ordersByStatus.get("PENDING"));
+        assertEquals(0, new BigDecimal("12.50").compareTo(live.totalRevenue));
+
+        dashboardStatsService.flush();
+        assertEquals(2, dashboardStatRepository.findById(DashboardStatsServiceImp.PRODUCTS).orElseThrow().getStatValue());
+
+        DashboardStatsService.Snapshot rebuilt = dashboardStatsService.recompute();
+        assertEquals(live.totalProducts, rebuilt.totalProducts);
+        assertEquals(live.totalSellers, rebuilt.totalSellers);
+        assertEquals(live.totalOrders, rebuilt.totalOrders);
+        assertEquals(0, live.totalRevenue.compareTo(rebuilt.totalRevenue));
+    }
+
+    @Test
+    void concurrentStatusChangesAreEachCountedOnce() throws Exception {
+        dashboardStatsService.load();
+        Order order = orderService.createOrder(order("20.00"));
+        String[] statuses = {"PAID", "SHIPPED", "CANCELLED", "PAID"};
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String status = statuses[i % statuses.length];
+                futures.add(pool.submit(() -> {
+                    startGate.await();
+                    return orderService.updateOrderStatus(order.getId(), status);
+                }));
+            }
+            startGate.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        DashboardStatsService.Snapshot live = dashboardStatsService.snapshot();
+        DashboardStatsService.Snapshot rebuilt = dashboardStatsService.recompute();
+        assertEquals(rebuilt.totalOrders, live.totalOrders);
+        assertEquals(rebuilt.ordersByStatus, live.ordersByStatus);
+        assertEquals(0, live.totalRevenue.compareTo(rebuilt.totalRevenue));
+
+        // Leaves the shared database as it found it
+        orderService.deleteOrder(order.getId());
+    }
+
+    private static Product product(String name, String seller) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(2.0);
+        p.setQuantity(10);
+        p.setAddedBy(seller);
+        return p;
+    }
+
+    private static Order order(String total) {
+        Order o = new Order();
+        o.setUsername("client");
+        o.setTotalAmount(new BigDecimal(total));
+        return o;
+    }
+}
@@ -0,0 +1,262 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.cachecommon.SecondLevelCacheAutoConfiguration;
+import com.Shadows.orderservice.model.CatalogVersion;
+import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.CatalogChangeRepository;
+import com.Shadows.orderservice.repository.CatalogVersionRepository;
+import com.Shadows.orderservice.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        // Flushed by the tests themselves
+        "catalog.changes.flush-interval-ms=3600000"
+})
+@Import({InventoryReservationServiceImp.class, CatalogChangeServiceImp.class})
+// The service's own second-level cache setup, so stale reads would show up here
+@ImportAutoConfiguration(SecondLevelCacheAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryReservationServiceImpTest {
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogChangeServiceImp catalogChangeService;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
+
+    @Autowired
+    private CatalogVersionRepository catalogVersionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        catalogChangeRepository.deleteAllInBatch();
+        catalogVersionRepository.deleteAllInBatch();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Long id = saveProduct("Milk", 50).getId();
+
+        int buyers = 300;
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(buyers, i -> {
+            try {
+                inventoryReservationService.reserve(Map.of(id, 1));
+                accepted.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        Product after = productRepository.findById(id).orElseThrow();
+        assertEquals(50, accepted.get());
+        assertEquals(buyers - 50, rejected.get());
+        assertEquals(0, after.getQuantity());
+        assertEquals(ProductStatus.OUT_OF_STOCK, after.getStatus());
+    }
+
+    @Test
+    void multiProductReservationIsAllOrNothing() {
+        Long bread = saveProduct("Bread", 5).getId();
+        Long butter = saveProduct("Butter", 1).getId();
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> inventoryReservationService.reserve(Map.of(bread, 2, butter, 3)));
+
+        assertEquals(butter, e.getProductId());
+        assertEquals(1, e.getAvailable());
+        assertEquals(3, e.getRequested());
+        assertEquals(5, productRepository.findQuantityById(bread));
+        assertEquals(1, productRepository.findQuantityById(butter));
+    }
+
+    @Test
+    void unrelatedProductsDoNotBlockEachOther() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            ids.add(saveProduct("P" + i, 20).getId());
+        }
+
+        AtomicInteger accepted = new AtomicInteger();
+        long start = System.nanoTime();
+        runConcurrently(ids.size() * 10, i -> {
+            inventoryReservationService.reserve(Map.of(ids.get(i % ids.size()), 1));
+            accepted.incrementAndGet();
+        });
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ids.size() * 10, accepted.get());
+        for (Long id : ids) {
+            assertEquals(10, productRepository.findQuantityById(id));
+        }
+        assertTrue(elapsedMs < 10_000, "reservations took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void checkoutsDoNotWaitForTheCatalogVersionLock() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(saveProduct("P" + i, 20).getId());
+        }
+        // Creates the version row
+        catalogChangeService.productsChanged(List.of(ids.get(0)));
+        long synced = catalogChangeService.currentVersion();
+
+        // A catalog edit holds the version row locked for the whole test
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread editor = new Thread(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            catalogVersionRepository.increment(CatalogVersion.ID);
+            locked.countDown();
+            try {
+                done.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            status.setRollbackOnly();
+        }));
+        editor.start();
+        try {
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+            AtomicInteger accepted = new AtomicInteger();
+            runConcurrently(ids.size() * 5, i -> {
+                inventoryReservationService.reserve(Map.of(ids.get(i % ids.size()), 1));
+                accepted.incrementAndGet();
+            });
+            assertEquals(ids.size() * 5, accepted.get());
+        } finally {
+            done.countDown();
+            editor.join();
+        }
+
+        // Once the lock is gone, the feed catches up with every product
+        catalogChangeService.flushStockChanges();
+        CatalogChangeService.Feed feed = catalogChangeService.changesSince(synced, 100);
+        assertEquals(ids.size(), feed.changes().size());
+        for (CatalogChangeService.Entry entry : feed.changes()) {
+            assertEquals(15, entry.product().getQuantity());
+        }
+    }
+
+    @Test
+    void releaseRestoresStockAndAvailability() {
+        Long id = saveProduct("Eggs", 2).getId();
+
+        inventoryReservationService.reserve(Map.of(id, 2));
+        assertEquals(ProductStatus.OUT_OF_STOCK, productRepository.findById(id).orElseThrow().getStatus());
+
+        inventoryReservationService.release(Map.of(id, 2));
+        Product after = productRepository.findById(id).orElseThrow();
+        assertEquals(2, after.getQuantity());
+        assertEquals(ProductStatus.AVAILABLE, after.getStatus());
+    }
+
+    @Test
+    void productReadAfterReserveOrReleaseIsNotServedFromAStaleCache() {
+        Long id = saveProduct("Cheese", 3).getId();
+        assertEquals(3, productRepository.findById(id).orElseThrow().getQuantity());
+        assertTrue(entityManagerFactory.getCache().contains(Product.class, id));
+
+        inventoryReservationService.reserve(Map.of(id, 3));
+        assertFalse(entityManagerFactory.getCache().contains(Product.class, id));
+        Product reserved = productRepository.findById(id).orElseThrow();
+        assertEquals(0, reserved.getQuantity());
+        assertEquals(ProductStatus.OUT_OF_STOCK, reserved.getStatus());
+
+        inventoryReservationService.release(Map.of(id, 1));
+        Product released = productRepository.findById(id).orElseThrow();
+        assertEquals(1, released.getQuantity());
+        assertEquals(ProductStatus.AVAILABLE, released.getStatus());
+    }
+
+    @Test
+    void sqlUpdateWithoutEvictionWouldBeServedStale() {
+        // What the eviction guards against: the cached row outlives a plain SQL update
+        Long id = saveProduct("Yogurt", 4).getId();
+        productRepository.findById(id).orElseThrow();
+        jdbcTemplate.update("UPDATE product SET quantity = 0 WHERE id = :id", new MapSqlParameterSource("id", id));
+
+        assertEquals(4, productRepository.findById(id).orElseThrow().getQuantity());
+        entityManagerFactory.getCache().evict(Product.class, id);
+        assertEquals(0, productRepository.findById(id).orElseThrow().getQuantity());
+    }
+
+    private Product saveProduct(String name, int quantity) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(1.0);
+        p.setQuantity(quantity);
+        p.setStatus(ProductStatus.AVAILABLE);
+        return productRepository.save(p);
+    }
+
+    private interface Task {
+        void run(int index) throws Exception;
+    }
+
+    private static void runConcurrently(int count, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    startGate.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            startGate.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
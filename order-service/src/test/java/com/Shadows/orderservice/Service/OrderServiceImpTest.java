@@ -0,0 +1,130 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.DashboardStatRepository;
+import com.Shadows.orderservice.repository.OrderRepository;
+import com.Shadows.orderservice.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static com.Shadows.orderservice.Service.OrderService.TransitionOutcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import({OrderServiceImp.class, DashboardStatsServiceImp.class, ProductServiceImp.class, CatalogChangeServiceImp.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceImpTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DashboardStatsServiceImp dashboardStatsService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private DashboardStatRepository dashboardStatRepository;
+
+    @AfterEach
+    void cleanUp() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        dashboardStatRepository.deleteAll();
+    }
+
+    @Test
+    void bulkTransitionsFollowTheSingleOrderRules() {
+        Product cheese = productRepository.save(product("Cheese", "dairyplus"));
+        Product bread = productRepository.save(product("Bread", "bakery"));
+        Order paid = orderRepository.save(order("alice", "PAID", cheese));
+        Order waiting = orderRepository.save(order("bob", "WAITING_DELIVERY", cheese));
+        Order pending = orderRepository.save(order("alice", "PENDING", cheese));
+        Order otherSeller = orderRepository.save(order("bob", "PAID", bread));
+        dashboardStatsService.recompute();
+
+        List<OrderService.TransitionResult> shipped = orderService.transitionStatuses(Arrays.asList(
+                new OrderService.StatusTransition(paid.getId(), "PAID", "SHIPPED"),
+                new OrderService.StatusTransition(waiting.getId(), null, "shipped"),
+                new OrderService.StatusTransition(pending.getId(), null, "SHIPPED"),
+                new OrderService.StatusTransition(otherSeller.getId(), null, "SHIPPED"),
+                new OrderService.StatusTransition(paid.getId(), null, "SHIPPED"),
+                new OrderService.StatusTransition(-1L, null, "SHIPPED"),
+                new OrderService.StatusTransition(paid.getId(), null, " ")
+        ), "DairyPlus", "SHOP");
+
+        assertEquals(List.of(UPDATED, UPDATED, CONFLICT, FORBIDDEN, INVALID, NOT_FOUND, INVALID),
+                shipped.stream().map(OrderService.TransitionResult::outcome).toList());
+        assertEquals("SHIPPED", status(paid));
+        assertEquals("SHIPPED", status(waiting));
+        assertEquals("PENDING", status(pending));
+        assertEquals("PAID", status(otherSeller));
+        assertNull(shipped.get(3).status());
+
+        // Owner: may pay or cancel their own orders only; a stale expected status is a conflict
+        List<OrderService.TransitionResult> owner = orderService.transitionStatuses(List.of(
+                new OrderService.StatusTransition(pending.getId(), "PENDING", "PAID"),
+                new OrderService.StatusTransition(paid.getId(), "PAID", "CANCELLED"),
+                new OrderService.StatusTransition(otherSeller.getId(), null, "CANCELLED")
+        ), "alice", "CLIENT");
+        assertEquals(List.of(UPDATED, CONFLICT, FORBIDDEN),
+                owner.stream().map(OrderService.TransitionResult::outcome).toList());
+        assertEquals("SHIPPED", owner.get(1).status());
+
+        // Replaying the same request changes nothing
+        List<OrderService.TransitionResult> replay = orderService.transitionStatuses(List.of(
+                new OrderService.StatusTransition(pending.getId(), "PENDING", "PAID")), "alice", "CLIENT");
+        assertEquals(UNCHANGED, replay.get(0).outcome());
+
+        List<OrderService.TransitionResult> admin = orderService.transitionStatuses(List.of(
+                new OrderService.StatusTransition(otherSeller.getId(), null, "CANCELLED")), "root", "ADMIN");
+        assertEquals(UPDATED, admin.get(0).outcome());
+
+        DashboardStatsService.Snapshot stats = dashboardStatsService.snapshot();
+        assertEquals(2L, stats.ordersByStatus.get("SHIPPED"));
+        assertEquals(1L, stats.ordersByStatus.get("PAID"));
+        assertEquals(1L, stats.ordersByStatus.get("CANCELLED"));
+        assertNull(stats.ordersByStatus.get("PENDING"));
+    }
+
+    private String status(Order order) {
+        return orderRepository.findById(order.getId()).orElseThrow().getStatus();
+    }
+
+    private static Order order(String username, String status, Product product) {
+        Order o = new Order();
+        o.setUsername(username);
+        o.setStatus(status);
+        o.setDate(new Date());
+        o.addLine(product, 1);
+        return o;
+    }
+
+    private static Product product(String name, String seller) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(2.0);
+        p.setQuantity(10);
+        p.setStatus(ProductStatus.AVAILABLE);
+        p.setAddedBy(seller);
+        return p;
+    }
+}
@@ -0,0 +1,95 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.model.Category;
+import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.repository.ProductRepository;
+import com.Shadows.orderservice.util.KeysetCursor;
+import com.Shadows.orderservice.util.KeysetPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import({ProductServiceImp.class, DashboardStatsServiceImp.class, CatalogChangeServiceImp.class})
+class ProductServiceImpTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void keysetPagesWalkTheWholeFilteredCatalogOnce() {
+        for (int i = 0; i < 25; i++) {
+            save("P" + i, (double) (i % 7), i % 2 == 0 ? Category.DAIRY_PRODUCTS : Category.BEVERAGES);
+        }
+
+        List<Double> prices = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<ProductRepository.ListItem> page = productService.listProducts(
+                    null, Category.DAIRY_PRODUCTS, null, "price_asc", cursor, 4);
+            assertTrue(page.items().size() <= 4);
+            page.items().forEach(p -> {
+                prices.add(p.getPrice());
+                ids.add(p.getId());
+            });
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(13, ids.size());
+        assertEquals(13, ids.stream().distinct().count());
+        assertEquals(4, pages);
+        for (int i = 1; i < prices.size(); i++) {
+            assertTrue(prices.get(i - 1) <= prices.get(i));
+        }
+    }
+
+    @Test
+    void missingLimitStillReturnsOnePage() {
+        for (int i = 0; i < KeysetCursor.DEFAULT_LIMIT + 5; i++) {
+            save("P" + i, 1.0, Category.BEVERAGES);
+        }
+
+        KeysetPage<ProductRepository.ListItem> first = productService.listProducts(
+                ProductStatus.AVAILABLE, null, null, null, null, null);
+        assertEquals(KeysetCursor.DEFAULT_LIMIT, first.limit());
+        assertEquals(KeysetCursor.DEFAULT_LIMIT, first.items().size());
+        assertNotNull(first.nextCursor());
+
+        KeysetPage<ProductRepository.ListItem> rest = productService.listProducts(
+                ProductStatus.AVAILABLE, null, null, null, first.nextCursor(), null);
+        assertEquals(5, rest.items().size());
+        assertNull(rest.nextCursor());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.listProducts(null, null, null, "newest", "not-a-cursor", 10));
+    }
+
+    private void save(String name, Double price, Category category) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(price);
+        p.setQuantity(1);
+        p.setCategory(category);
+        p.setStatus(ProductStatus.AVAILABLE);
+        productRepository.save(p);
+    }
+}
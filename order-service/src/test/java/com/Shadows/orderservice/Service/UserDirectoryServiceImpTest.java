@@ -0,0 +1,118 @@
+package com.Shadows.orderservice.Service;
+
+import com.Shadows.orderservice.client.AuthServiceClient;
+import com.Shadows.orderservice.util.KeysetPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@TestPropertySource(properties = {
+        "clients.auth.cache-ttl-ms=200",
+        "clients.auth.deadline-ms=1000"
+})
+class UserDirectoryServiceImpTest {
+
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
+    @Autowired
+    private FakeAuthServiceClient authServiceClient;
+
+    @Test
+    void countsAreFetchedConcurrentlyCachedAndServedStaleWhenAuthServiceIsSlow() throws InterruptedException {
+        // Each call waits for the other one: only completes if both run at the same time
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        authServiceClient.beforeCall = () -> {
+            bothStarted.countDown();
+            await(bothStarted, 900);
+        };
+        UserDirectoryService.UserCounts first = userDirectoryService.counts("Bearer admin");
+        assertEquals(new UserDirectoryService.UserCounts(120L, 7L, false), first);
+        assertEquals(2, authServiceClient.calls.get());
+
+        // Within the TTL nothing goes downstream
+        assertEquals(first, userDirectoryService.counts("Bearer admin"));
+        assertEquals(2, authServiceClient.calls.get());
+
+        // Expired and auth-service hangs: the last known values come back within the deadline
+        Thread.sleep(250);
+        CountDownLatch release = new CountDownLatch(1);
+        authServiceClient.beforeCall = () -> await(release, 5000);
+        authServiceClient.users.set(121);
+        long start = System.nanoTime();
+        UserDirectoryService.UserCounts stale = userDirectoryService.counts("Bearer admin");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertEquals(new UserDirectoryService.UserCounts(120L, 7L, true), stale);
+
+        // The refresh finishes in the background and updates the cache
+        release.countDown();
+        Thread.sleep(100);
+        assertEquals(121L, userDirectoryService.counts("Bearer admin").users());
+    }
+
+    private static void await(CountDownLatch latch, long millis) {
+        try {
+            latch.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class FakeAuthServiceClient implements AuthServiceClient {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicLong users = new AtomicLong(120);
+        volatile Runnable beforeCall = () -> { };
+
+        @Override
+        public Map<String, Long> countUsers(String authorization) {
+            calls.incrementAndGet();
+            beforeCall.run();
+            return Map.of("count", users.get());
+        }
+
+        @Override
+        public Map<String, Long> countSellers(String authorization) {
+            calls.incrementAndGet();
+            beforeCall.run();
+            return Map.of("count", 7L);
+        }
+
+        @Override
+        public KeysetPage<Map<String, Object>> getSellers(String authorization, Integer limit, String cursor) {
+            return new KeysetPage<>(List.of(), null, limit);
+        }
+    }
+
+    @Configuration
+    @Import(UserDirectoryServiceImp.class)
+    static class Config {
+
+        @Bean
+        FakeAuthServiceClient authServiceClient() {
+            return new FakeAuthServiceClient();
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor downstreamExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(4);
+            executor.initialize();
+            return executor;
+        }
+    }
+}
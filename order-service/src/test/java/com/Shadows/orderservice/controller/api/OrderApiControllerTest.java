@@ -0,0 +1,73 @@
+package com.Shadows.orderservice.controller.api;
+
+import com.Shadows.orderservice.Service.BasketFeedService;
+import com.Shadows.orderservice.Service.InventoryReservationService;
+import com.Shadows.orderservice.Service.OrderServiceImp;
+import com.Shadows.orderservice.Service.ProductService;
+import com.Shadows.orderservice.repository.OrderRepository;
+import com.Shadows.orderservice.repository.ProductRepository;
+import com.Shadows.orderservice.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(OrderApiController.class)
+class OrderApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private OrderServiceImp orderService;
+
+    @MockitoBean
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private ProductService productService;
+
+    @MockitoBean
+    private OrderRepository orderRepository;
+
+    @MockitoBean
+    private JwtUtil jwtUtil;
+
+    @MockitoBean
+    private InventoryReservationService inventoryReservationService;
+
+    @MockitoBean
+    private BasketFeedService basketFeedService;
+
+    @Test
+    void basketFeedNeedsAServiceOrAdminToken() throws Exception {
+        mockMvc.perform(get("/order-service/api/orders/baskets"))
+                .andExpect(status().isUnauthorized());
+
+        when(jwtUtil.validateToken("client-token")).thenReturn(true);
+        when(jwtUtil.extractRole("client-token")).thenReturn("CLIENT");
+        mockMvc.perform(get("/order-service/api/orders/baskets").header("Authorization", "Bearer client-token"))
+                .andExpect(status().isForbidden());
+        verify(basketFeedService, never()).paidSince(anyLong(), anyLong(), anyInt());
+
+        when(jwtUtil.validateToken("service-token")).thenReturn(true);
+        when(jwtUtil.extractRole("service-token")).thenReturn("SERVICE");
+        when(basketFeedService.paidSince(0L, 0L, 500))
+                .thenReturn(new BasketFeedService.Feed(0L, 0L, false, List.of()));
+        mockMvc.perform(get("/order-service/api/orders/baskets").header("Authorization", "Bearer service-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+}
@@ -0,0 +1,113 @@
+package com.Shadows.orderservice.repository;
+
+import com.Shadows.orderservice.model.Category;
+import com.Shadows.orderservice.model.Order;
+import com.Shadows.orderservice.model.Product;
+import com.Shadows.orderservice.model.ProductStatus;
+import com.Shadows.orderservice.Service.OrderServiceImp;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+class OrderLineRepositoryTest {
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void topSoldIsAggregatedByProductId() {
+        // Two sellers list the same name: counted apart
+        Product farmMilk = productRepository.save(product("Milk", "farm", Category.DAIRY_PRODUCTS));
+        Product shopMilk = productRepository.save(product("Milk", "shop", Category.DAIRY_PRODUCTS));
+        Product bread = productRepository.save(product("Bread", "farm", Category.BAKED_GOODS));
+
+        save("PAID", new Date(1_000L), farmMilk, 2, bread, 1);
+        save("SHIPPED", new Date(2_000L), farmMilk, 1, shopMilk, 5);
+        save("PENDING", null, bread, 10);
+        save("CANCELLED", null, shopMilk, 10);
+
+        List<OrderLineRepository.ProductUnits> all = orderLineRepository.findTopSold(
+                OrderServiceImp.COMPLETED_STATUSES, null, null, null, null, Limit.of(10));
+        assertEquals(List.of(shopMilk.getId(), farmMilk.getId(), bread.getId()),
+                all.stream().map(OrderLineRepository.ProductUnits::getProductId).toList());
+        assertEquals(List.of(5L, 3L, 1L), all.stream().map(OrderLineRepository.ProductUnits::getUnits).toList());
+
+        List<OrderLineRepository.ProductUnits> farm = orderLineRepository.findTopSold(
+                OrderServiceImp.COMPLETED_STATUSES, "farm", null, null, null, Limit.of(1));
+        assertEquals(List.of(farmMilk.getId()), farm.stream().map(OrderLineRepository.ProductUnits::getProductId).toList());
+
+        List<OrderLineRepository.ProductUnits> bakery = orderLineRepository.findTopSold(
+                OrderServiceImp.COMPLETED_STATUSES, null, Category.BAKED_GOODS, null, null, Limit.of(10));
+        assertEquals(List.of(bread.getId()), bakery.stream().map(OrderLineRepository.ProductUnits::getProductId).toList());
+
+        // Window on the payment time: only the first order
+        List<OrderLineRepository.ProductUnits> early = orderLineRepository.findTopSold(
+                OrderServiceImp.COMPLETED_STATUSES, null, null, new Date(0L), new Date(1_500L), Limit.of(10));
+        assertEquals(List.of(farmMilk.getId(), bread.getId()),
+                early.stream().map(OrderLineRepository.ProductUnits::getProductId).toList());
+    }
+
+    @Test
+    void sellerSalesAreTheSellersLinesOfCompletedOrders() {
+        Product farmMilk = productRepository.save(product("Milk", "farm", Category.DAIRY_PRODUCTS));
+        Product farmBread = productRepository.save(product("Bread", "farm", Category.BAKED_GOODS));
+        Product shopMilk = productRepository.save(product("Milk", "shop", Category.DAIRY_PRODUCTS));
+
+        Order paid = save("PAID", new Date(1_000L), farmMilk, 2, shopMilk, 1);
+        Order shipped = save("SHIPPED", new Date(2_000L), farmBread, 3, farmMilk, 1);
+        save("PENDING", null, farmMilk, 4);
+        save("CANCELLED", null, farmBread, 5);
+        save("WAITING_DELIVERY", new Date(3_000L), shopMilk, 6);
+
+        List<OrderLineRepository.SellerSaleRow> farm = orderLineRepository.findSellerSales("farm", OrderServiceImp.COMPLETED_STATUSES);
+        // One row per line of the seller, other sellers' lines of the same order left out
+        assertEquals(List.of(paid.getId(), shipped.getId(), shipped.getId()),
+                farm.stream().map(OrderLineRepository.SellerSaleRow::getOrderId).toList());
+        assertEquals(List.of(farmMilk.getId(), farmBread.getId(), farmMilk.getId()),
+                farm.stream().map(OrderLineRepository.SellerSaleRow::getProductId).toList());
+        assertEquals(List.of(2, 3, 1), farm.stream().map(OrderLineRepository.SellerSaleRow::getQuantity).toList());
+        assertEquals(List.of("PAID", "SHIPPED", "SHIPPED"),
+                farm.stream().map(OrderLineRepository.SellerSaleRow::getOrderStatus).toList());
+
+        assertEquals(2, orderLineRepository.findSellerSales("shop", OrderServiceImp.COMPLETED_STATUSES).size());
+        assertTrue(orderLineRepository.findSellerSales("nobody", OrderServiceImp.COMPLETED_STATUSES).isEmpty());
+    }
+
+    private Order save(String status, Date paidAt, Object... productsAndUnits) {
+        Order o = new Order();
+        o.setStatus(status);
+        o.setDate(new Date());
+        o.setPaidAt(paidAt);
+        for (int i = 0; i < productsAndUnits.length; i += 2) {
+            o.addLine((Product) productsAndUnits[i], (Integer) productsAndUnits[i + 1]);
+        }
+        return orderRepository.save(o);
+    }
+
+    private static Product product(String name, String seller, Category category) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(2.0);
+        p.setQuantity(10);
+        p.setCategory(category);
+        p.setStatus(ProductStatus.AVAILABLE);
+        p.setAddedBy(seller);
+        return p;
+    }
+}
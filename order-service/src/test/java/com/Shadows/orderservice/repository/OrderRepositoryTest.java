@@ -0,0 +1,91 @@
+package com.Shadows.orderservice.repository;
+
+import com.Shadows.orderservice.model.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void revenueIsAggregatedInTheDatabase() {
+        LocalDate day1 = LocalDate.of(2024, 3, 1);
+        LocalDate day2 = LocalDate.of(2024, 3, 2);
+        save("PAID", "10.50", day1);
+        save("PAID", "4.25", day1);
+        save("PENDING", "3.00", day2);
+        save("SHIPPED", "0.10", day2);
+
+        assertEquals(0, new BigDecimal("17.85").compareTo(orderRepository.sumTotalAmount()));
+
+        Map<String, OrderRepository.StatusTotal> byStatus = orderRepository.sumTotalAmountByStatus().stream()
+                .collect(Collectors.toMap(OrderRepository.StatusTotal::getStatus, t -> t));
+        assertEquals(2, byStatus.get("PAID").getOrders());
+        assertEquals(0, new BigDecimal("14.75").compareTo(byStatus.get("PAID").getTotal()));
+        assertEquals(0, new BigDecimal("3.00").compareTo(byStatus.get("PENDING").getTotal()));
+
+        List<OrderRepository.DayTotal> byDay = orderRepository.sumTotalAmountByDay(
+                toDate(day1), toDate(day2.plusDays(1)));
+        assertEquals(2, byDay.size());
+        assertEquals(day1, byDay.get(0).getDay());
+        assertEquals(2, byDay.get(0).getOrders());
+        assertEquals(0, new BigDecimal("14.75").compareTo(byDay.get(0).getTotal()));
+        assertEquals(day2, byDay.get(1).getDay());
+        assertEquals(0, new BigDecimal("3.10").compareTo(byDay.get(1).getTotal()));
+    }
+
+    @Test
+    void ordersArePagedNewestFirstWithFilters() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        for (int i = 0; i < 5; i++) {
+            save(i % 2 == 0 ? "PAID" : "PENDING", "1.00", day.plusDays(i));
+        }
+
+        List<OrderRepository.ListItem> firstPage = orderRepository.findPageNewestFirst(
+                "PAID", null, null, null, null, null, Limit.of(2));
+        assertEquals(2, firstPage.size());
+        assertTrue(firstPage.get(0).getId() > firstPage.get(1).getId());
+
+        List<OrderRepository.ListItem> rest = orderRepository.findPageNewestFirst(
+                "PAID", null, null, null, null, firstPage.get(1).getId(), Limit.of(2));
+        assertEquals(1, rest.size());
+
+        List<OrderRepository.ListItem> inRange = orderRepository.findPageOldestFirst(
+                null, null, null, toDate(day.plusDays(1)), toDate(day.plusDays(3)), null, Limit.unlimited());
+        assertEquals(2, inRange.size());
+        assertEquals("PENDING", inRange.get(0).getStatus());
+
+        assertTrue(orderRepository.findPageOldestFirst(
+                null, null, "nobody", null, null, null, Limit.unlimited()).isEmpty());
+    }
+
+    private void save(String status, String total, LocalDate day) {
+        Order o = new Order();
+        o.setStatus(status);
+        o.setTotalAmount(new BigDecimal(total));
+        o.setDate(toDate(day));
+        orderRepository.save(o);
+    }
+
+    private static Date toDate(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -2,17 +2,12 @@ package my.company.payment.controller;
 
 import my.company.payment.model.Payment;
 import my.company.payment.model.PaymentType;
-import my.company.payment.repository.PaymentRepository;
+import my.company.payment.service.PaymentService;
 import my.company.payment.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Date;
 import java.util.Locale;
@@ -26,13 +21,7 @@ public class PaymentApiController {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private PaymentRepository repo;
-
-    @Autowired
-    private RestTemplate restTemplate;
-
-    @Value("${gateway.url}")
-    private String gatewayUrl;
+    private PaymentService paymentService;
 
     @PostMapping("/process")
     public ResponseEntity<?> process(@RequestHeader(value = "Authorization", required = false) String authorization,
@@ -59,13 +48,11 @@ public class PaymentApiController {
 
         if (type == PaymentType.CASH_ON_DELIVERY) {
             payment.setStatus("PENDING_DELIVERY");
-            repo.save(payment);
-            updateOrderStatus(request.orderId, "WAITING_DELIVERY", token);
+            paymentService.recordPayment(payment, "WAITING_DELIVERY");
         } else {
             // For the static frontend integration we mark it as paid.
             payment.setStatus("PAID");
-            repo.save(payment);
-            updateOrderStatus(request.orderId, "PAID", token);
+            paymentService.recordPayment(payment, "PAID");
         }
 
         return ResponseEntity.ok(Map.of(
@@ -74,20 +61,6 @@ public class PaymentApiController {
         ));
     }
 
-    private void updateOrderStatus(Long orderId, String status, String token) {
-        try {
-            String url = gatewayUrl + "/order-service/api/orders/" + orderId + "/status?status=" + status;
-            HttpHeaders headers = new HttpHeaders();
-            if (token != null && !token.isBlank()) {
-                headers.set("Authorization", "Bearer " + token);
-            }
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-            restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
-        } catch (Exception ignored) {
-            // best-effort; order-service might be down
-        }
-    }
-
     private static String extractBearerToken(String authorization) {
         if (authorization == null) return null;
         String prefix = "Bearer ";
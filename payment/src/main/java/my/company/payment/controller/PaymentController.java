@@ -6,13 +6,13 @@ import com.stripe.param.checkout.SessionCreateParams;
 import my.company.payment.model.Payment;
 import my.company.payment.model.PaymentType;
 import my.company.payment.repository.PaymentRepository;
+import my.company.payment.service.PaymentService;
 import my.company.payment.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Date;
 
@@ -27,7 +27,7 @@ public class PaymentController {
     private PaymentRepository repo;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private PaymentService paymentService;
 
     @Value("${gateway.url}")
     private String gatewayUrl;
@@ -97,10 +97,9 @@ public class PaymentController {
             payment.setStatus("PENDING_DELIVERY");
             payment.setDate(new Date());
             payment.setUsername(username);
-            repo.save(payment);
 
-            // Mise à jour de la commande
-            updateOrderStatus(payment.getOrderId(), "WAITING_DELIVERY", token);
+            // Paiement + mise à jour de la commande (envoyée en arrière-plan)
+            paymentService.recordPayment(payment, "WAITING_DELIVERY");
 
             model.addAttribute("message", "Paiement à la livraison validé !");
             model.addAttribute("payment", payment);
@@ -185,10 +184,9 @@ public class PaymentController {
         payment.setType(PaymentType.CARD_STRIPE);
         payment.setDate(new Date());
         payment.setUsername(username);
-        repo.save(payment);
 
-        // Mise à jour commande
-        updateOrderStatus(orderId, "PAID", token);
+        // Paiement + mise à jour commande (envoyée en arrière-plan)
+        paymentService.recordPayment(payment, "PAID");
 
         model.addAttribute("payment", payment);
         model.addAttribute("token", token);
@@ -237,19 +235,4 @@ public class PaymentController {
         return "payment-ticket";
     }
 
-
-    // --------------------------
-    // 7️⃣ Méthode utilitaire
-    // -------------------------
-    private void updateOrderStatus(Long orderId, String status, String token) {
-        try {
-            String url = gatewayUrl + "/order-service/api/orders/" + orderId
-                    + "/status?status=" + status
-                    + "&token=" + token;
-            restTemplate.postForObject(url, null, String.class);
-        } catch (Exception e) {
-            System.out.println("Order-service indisponible : " + e.getMessage());
-        }
-    }
-
 }
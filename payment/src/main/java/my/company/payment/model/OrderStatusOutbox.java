@@ -0,0 +1,69 @@
+package my.company.payment.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Order status change to deliver to order-service, written in the same transaction as the
+ * {@link Payment} that caused it and relayed in the background.
+ */
+@Table(name = "order_status_outbox", indexes = {
+        @Index(name = "idx_outbox_due", columnList = "state, next_attempt_at"),
+        @Index(name = "idx_outbox_idempotency_key", columnList = "idempotency_key", unique = true)
+})
+@Entity
+@Data
+@NoArgsConstructor
+public class OrderStatusOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private String status;
+
+    /** Owner of the order, the relay calls order-service on their behalf */
+    private String username;
+
+    /** Sent as the Idempotency-Key header, so a retried delivery is applied once */
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxState state;
+
+    private int attempts;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "next_attempt_at", nullable = false)
+    private Date nextAttemptAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public OrderStatusOutbox(Long orderId, String status, String username) {
+        Date now = new Date();
+        this.orderId = orderId;
+        this.status = status;
+        this.username = username;
+        this.idempotencyKey = UUID.randomUUID().toString();
+        this.state = OutboxState.PENDING;
+        this.nextAttemptAt = now;
+        this.createdAt = now;
+    }
+}
@@ -0,0 +1,7 @@
+package my.company.payment.model;
+
+public enum OutboxState {
+    PENDING,
+    SENT,
+    FAILED  // rejected by order-service, will not be retried
+}
@@ -0,0 +1,39 @@
+package my.company.payment.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import my.company.payment.model.OrderStatusOutbox;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface OrderStatusOutboxRepository extends JpaRepository<OrderStatusOutbox, Long> {
+
+    /**
+     * Pending entries due for delivery, oldest first, locked for the caller. Rows already locked by
+     * another payment instance are skipped (lock timeout -2 is SKIP LOCKED) instead of waited on.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT o FROM OrderStatusOutbox o WHERE o.state = my.company.payment.model.OutboxState.PENDING "
+            + "AND o.nextAttemptAt <= :now ORDER BY o.id")
+    List<OrderStatusOutbox> claimDue(@Param("now") Date now, Limit limit);
+
+    @Query("SELECT COUNT(o) FROM OrderStatusOutbox o WHERE o.state = my.company.payment.model.OutboxState.PENDING")
+    long countPending();
+
+    @Modifying
+    @Query("DELETE FROM OrderStatusOutbox o WHERE o.state = my.company.payment.model.OutboxState.SENT "
+            + "AND o.sentAt < :before")
+    int deleteSentBefore(@Param("before") Date before);
+}
@@ -0,0 +1,15 @@
+package my.company.payment.service;
+
+public interface OrderStatusOutboxService {
+
+    /**
+     * Queues a status change for order {@code orderId}. Must run inside the transaction that
+     * saves the payment, so the change is stored if and only if the payment is.
+     */
+    void enqueue(Long orderId, String status, String username);
+
+    /**
+     * Delivers one batch of due entries to order-service and returns how many were claimed.
+     */
+    int relay();
+}
@@ -0,0 +1,239 @@
+package my.company.payment.service;
+
+import jakarta.annotation.PostConstruct;
+import my.company.payment.model.OrderStatusOutbox;
+import my.company.payment.model.OutboxState;
+import my.company.payment.repository.OrderStatusOutboxRepository;
+import my.company.payment.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox for order status changes.
+ *
+ * Payments queue the order status they imply in the same transaction as the payment row, so
+ * the request thread never waits on order-service and a crash or an order-service restart
+ * cannot lose an update. The relay claims due entries in small batches (SKIP LOCKED, so
+ * several payment instances share the work), leases them while delivering and records the
+ * outcome. Failures are retried with exponential backoff and jitter; each entry carries an
+ * idempotency key, so a delivery retried after a lost response is applied once.
+ */
+@Service
+public class OrderStatusOutboxServiceImp implements OrderStatusOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusOutboxServiceImp.class);
+
+    static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
+
+    @Autowired
+    private OrderStatusOutboxRepository outboxRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${gateway.url}")
+    private String gatewayUrl;
+
+    @Value("${payment.outbox.batch-size:50}")
+    private int batchSize;
+
+    /** How long claimed entries are hidden from other relays while being delivered */
+    @Value("${payment.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${payment.outbox.backoff.initial-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${payment.outbox.backoff.max-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${payment.outbox.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${payment.outbox.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Value("${payment.outbox.token-ttl-ms:300000}")
+    private long tokenTtlMs;
+
+    @Value("${payment.outbox.sent-retention-hours:24}")
+    private long sentRetentionHours;
+
+    RestTemplate restTemplate;
+
+    /** Set when the last batch stopped on a connection error */
+    private volatile boolean orderServiceUnreachable;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        restTemplate = restTemplateBuilder
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long orderId, String status, String username) {
+        outboxRepository.save(new OrderStatusOutbox(orderId, status, username));
+    }
+
+    /**
+     * Drains due entries batch by batch, until a batch comes back short or order-service is unreachable.
+     */
+    @Scheduled(fixedDelayString = "${payment.outbox.relay-interval-ms:1000}")
+    public void relayDue() {
+        try {
+            int claimed;
+            do {
+                claimed = relay();
+            } while (claimed == batchSize && !orderServiceUnreachable);
+        } catch (Exception e) {
+            log.warn("Order status relay failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int relay() {
+        List<OrderStatusOutbox> batch = claim();
+        boolean unreachable = false;
+        for (OrderStatusOutbox entry : batch) {
+            if (unreachable) {
+                // Same outage for the whole batch, no need to wait for every call to time out
+                retryLater(entry, "order-service unreachable");
+                continue;
+            }
+            try {
+                deliver(entry);
+                entry.setState(OutboxState.SENT);
+                entry.setSentAt(new Date());
+                entry.setLastError(null);
+            } catch (ResourceAccessException e) {
+                unreachable = true;
+                retryLater(entry, e.getMessage());
+            } catch (HttpStatusCodeException e) {
+                if (isRetryable(e.getStatusCode().value())) {
+                    retryLater(entry, e.getStatusCode().toString());
+                } else {
+                    entry.setAttempts(entry.getAttempts() + 1);
+                    entry.setState(OutboxState.FAILED);
+                    entry.setLastError(truncate(e.getStatusCode() + " " + e.getResponseBodyAsString()));
+                    log.error("Order {} status {} rejected by order-service: {}",
+                            entry.getOrderId(), entry.getStatus(), entry.getLastError());
+                }
+            } catch (Exception e) {
+                retryLater(entry, e.getMessage());
+            }
+        }
+        orderServiceUnreachable = unreachable;
+        if (!batch.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.saveAll(batch));
+        }
+        return batch.size();
+    }
+
+    /**
+     * Drops delivered entries past the retention period.
+     */
+    @Scheduled(fixedDelayString = "${payment.outbox.purge-interval-ms:3600000}",
+            initialDelayString = "${payment.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        try {
+            Date before = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(sentRetentionHours));
+            int removed = transactionTemplate.execute(status -> outboxRepository.deleteSentBefore(before));
+            if (removed > 0) {
+                log.info("Purged {} delivered order status updates", removed);
+            }
+        } catch (Exception e) {
+            log.warn("Could not purge order status outbox: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Locks the next due entries and pushes them past the lease, so they are not claimed again while in flight.
+     */
+    private List<OrderStatusOutbox> claim() {
+        return transactionTemplate.execute(status -> {
+            Date now = new Date();
+            List<OrderStatusOutbox> due = outboxRepository.claimDue(now, Limit.of(batchSize));
+            Date leaseEnd = new Date(now.getTime() + leaseMs);
+            for (OrderStatusOutbox entry : due) {
+                entry.setNextAttemptAt(leaseEnd);
+            }
+            return due;
+        });
+    }
+
+    private void deliver(OrderStatusOutbox entry) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtUtil.generateToken(entry.getUsername(), "CLIENT", tokenTtlMs));
+        headers.set(IDEMPOTENCY_HEADER, entry.getIdempotencyKey());
+        restTemplate.exchange(gatewayUrl + "/order-service/api/orders/{id}/status?status={status}",
+                HttpMethod.POST, new HttpEntity<>(headers), String.class, entry.getOrderId(), entry.getStatus());
+    }
+
+    private void retryLater(OrderStatusOutbox entry, String error) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setNextAttemptAt(new Date(System.currentTimeMillis() + backoffMs(attempts)));
+        entry.setLastError(truncate(error));
+    }
+
+    /**
+     * Exponential backoff capped at max-ms, with +/-20% jitter so retries from a burst spread out.
+     */
+    long backoffMs(int attempts) {
+        long delay = maxBackoffMs;
+        if (attempts <= 30) {
+            delay = Math.min(maxBackoffMs, initialBackoffMs << (attempts - 1));
+        }
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (delay * jitter);
+    }
+
+    private static boolean isRetryable(int status) {
+        return status >= 500
+                || status == HttpStatus.UNAUTHORIZED.value()
+                || status == HttpStatus.REQUEST_TIMEOUT.value()
+                || status == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
@@ -11,6 +11,12 @@ public interface PaymentService {
 
     Payment createPayment(Payment payment);
 
+    /**
+     * Saves the payment and, in the same transaction, queues {@code orderStatus} for its order;
+     * order-service is updated in the background.
+     */
+    Payment recordPayment(Payment payment, String orderStatus);
+
     List<Payment> getPayments();
 
     Optional<Payment> getPaymentById(Long id);
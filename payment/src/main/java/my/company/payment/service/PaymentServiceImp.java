@@ -3,6 +3,7 @@ import  my.company.payment.model.Payment;
 import  my.company.payment.repository.PaymentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,11 +14,22 @@ public class PaymentServiceImp implements PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private OrderStatusOutboxService orderStatusOutboxService;
+
     @Override
     public Payment createPayment(Payment payment) {
         return paymentRepository.save(payment);
     }
 
+    @Override
+    @Transactional
+    public Payment recordPayment(Payment payment, String orderStatus) {
+        Payment saved = paymentRepository.save(payment);
+        orderStatusOutboxService.enqueue(saved.getOrderId(), orderStatus, saved.getUsername());
+        return saved;
+    }
+
     @Override
     public List<Payment> getPayments() {
         return paymentRepository.findAll();
@@ -1,54 +1,91 @@
 package my.company.payment.util;
 
-
-import io.jsonwebtoken.*;
+import com.Shadows.jwtcommon.ForwardedIdentity;
+import com.Shadows.jwtcommon.TokenPrincipal;
+import com.Shadows.jwtcommon.TokenVerifier;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.security.Key;
+import java.util.Date;
+import java.util.Optional;
 
+/**
+ * Token checks for the controllers, backed by the shared {@link TokenVerifier}: a token is
+ * verified once, then validateToken / extractUsername / extractRole read the cached principal.
+ * With jwt.trust-gateway-headers the identity signed by the gateway is used when present.
+ * Also issues the short-lived tokens the outbox relay calls order-service with.
+ */
 @Component
 public class JwtUtil {
 
     @Value("${jwt.secret}")
     private String secretKey;
 
+    @Autowired
+    private TokenVerifier tokenVerifier;
+
+    @Autowired
+    private ForwardedIdentity forwardedIdentity;
+
+    /** Accept the signed identity headers added by the gateway instead of verifying the JWT again */
+    @Value("${jwt.trust-gateway-headers:false}")
+    private boolean trustGatewayHeaders;
+
+    private Key signingKey;
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+        if (signingKey == null) {
+            signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        }
+        return signingKey;
+    }
+
+    /**
+     * Token for {@code username}, valid for {@code ttlMillis}; used for calls made on the user's
+     * behalf after their own request is gone.
+     */
+    public String generateToken(String username, String role, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(username)
+                .claim("role", role)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + ttlMillis))
+                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public Optional<TokenPrincipal> verify(String token) {
+        if (trustGatewayHeaders) {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes instanceof ServletRequestAttributes servlet) {
+                Optional<TokenPrincipal> forwarded = forwardedIdentity.verify(servlet.getRequest()::getHeader, token);
+                if (forwarded.isPresent()) {
+                    return forwarded;
+                }
+            }
+        }
+        return tokenVerifier.verify(token);
     }
 
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).orElseThrow(() -> new JwtException("Invalid or expired token")).username();
     }
 
     public String extractRole(String token) {
-        return (String) Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role");
+        return verify(token).orElseThrow(() -> new JwtException("Invalid or expired token")).role();
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        } catch (Throwable e) {
-            // Catch potential NoClassDefFoundError or other runtime issues
-            e.printStackTrace();
-            return false;
-        }
+        return verify(token).isPresent();
     }
 }
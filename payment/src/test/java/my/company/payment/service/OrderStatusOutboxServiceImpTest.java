@@ -0,0 +1,152 @@
+package my.company.payment.service;
+
+import com.Shadows.jwtcommon.JwtCommonAutoConfiguration;
+import my.company.payment.model.OrderStatusOutbox;
+import my.company.payment.model.OutboxState;
+import my.company.payment.model.Payment;
+import my.company.payment.model.PaymentType;
+import my.company.payment.repository.OrderStatusOutboxRepository;
+import my.company.payment.repository.PaymentRepository;
+import my.company.payment.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "jwt.secret=test-secret-test-secret-test-secret-test-secret",
+        "gateway.url=http://gateway"
+})
+@ImportAutoConfiguration({JwtCommonAutoConfiguration.class, RestTemplateAutoConfiguration.class})
+@Import({PaymentServiceImp.class, OrderStatusOutboxServiceImp.class, JwtUtil.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderStatusOutboxServiceImpTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OrderStatusOutboxServiceImp outboxService;
+
+    @Autowired
+    private OrderStatusOutboxRepository outboxRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private MockRestServiceServer orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = MockRestServiceServer.bindTo(
+                AopTestUtils.<OrderStatusOutboxServiceImp>getTargetObject(outboxService).restTemplate).build();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        outboxRepository.deleteAll();
+        paymentRepository.deleteAll();
+    }
+
+    @Test
+    void paymentIsSavedWithItsOutboxEntryAndDeliveredOnceOrderServiceRecovers() {
+        Payment payment = paymentService.recordPayment(payment(42L, "alice"), "PAID");
+
+        OrderStatusOutbox entry = single();
+        assertEquals(OutboxState.PENDING, entry.getState());
+        assertEquals(42L, entry.getOrderId());
+        assertNotNull(paymentRepository.findById(payment.getId()).orElse(null));
+
+        // order-service down: the entry stays queued with a backoff
+        orderService.expect(requestTo("http://gateway/order-service/api/orders/42/status?status=PAID"))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        assertEquals(1, outboxService.relay());
+        entry = single();
+        assertEquals(OutboxState.PENDING, entry.getState());
+        assertEquals(1, entry.getAttempts());
+        assertTrue(entry.getNextAttemptAt().after(new Date()));
+        assertEquals(0, outboxService.relay());
+        orderService.verify();
+
+        // Back up: the retry carries the same idempotency key and a token for the order owner
+        makeDue(entry);
+        orderService.reset();
+        String key = entry.getIdempotencyKey();
+        orderService.expect(requestTo("http://gateway/order-service/api/orders/42/status?status=PAID"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header(OrderStatusOutboxServiceImp.IDEMPOTENCY_HEADER, key))
+                .andExpect(request -> assertEquals("alice", jwtUtil.extractUsername(
+                        request.getHeaders().getFirst("Authorization").substring("Bearer ".length()))))
+                .andRespond(withSuccess());
+        assertEquals(1, outboxService.relay());
+        orderService.verify();
+
+        entry = single();
+        assertEquals(OutboxState.SENT, entry.getState());
+        assertNotNull(entry.getSentAt());
+        assertEquals(0, outboxService.relay());
+    }
+
+    @Test
+    void rejectedUpdatesAreNotRetried() {
+        paymentService.recordPayment(payment(7L, "bob"), "WAITING_DELIVERY");
+
+        orderService.expect(requestTo("http://gateway/order-service/api/orders/7/status?status=WAITING_DELIVERY"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        outboxService.relay();
+        orderService.verify();
+
+        OrderStatusOutbox entry = single();
+        assertEquals(OutboxState.FAILED, entry.getState());
+        makeDue(entry);
+        assertEquals(0, outboxService.relay());
+    }
+
+    @Test
+    void enqueueRequiresTheCallersTransaction() {
+        assertThrows(Exception.class, () -> outboxService.enqueue(1L, "PAID", "alice"));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    private OrderStatusOutbox single() {
+        List<OrderStatusOutbox> all = outboxRepository.findAll();
+        assertEquals(1, all.size());
+        return all.get(0);
+    }
+
+    private void makeDue(OrderStatusOutbox entry) {
+        entry.setNextAttemptAt(new Date(System.currentTimeMillis() - 1000));
+        outboxRepository.save(entry);
+    }
+
+    private static Payment payment(Long orderId, String username) {
+        Payment p = new Payment();
+        p.setOrderId(orderId);
+        p.setAmount(12.5);
+        p.setUsername(username);
+        p.setDate(new Date());
+        p.setType(PaymentType.CARD_STRIPE);
+        return p;
+    }
+}
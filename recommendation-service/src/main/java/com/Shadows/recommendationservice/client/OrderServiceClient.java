@@ -1,11 +1,15 @@
 package com.Shadows.recommendationservice.client;
 
 import com.Shadows.recommendationservice.config.FeignConfig;
+import com.Shadows.recommendationservice.model.BasketFeedDto;
+import com.Shadows.recommendationservice.model.CatalogFeedDto;
 import com.Shadows.recommendationservice.model.OrderSummaryDto;
 import com.Shadows.recommendationservice.model.ProductDto;
+import com.Shadows.recommendationservice.model.TopSoldDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 import java.util.Map;
@@ -19,9 +23,20 @@ public interface OrderServiceClient {
     @GetMapping("/order-service/api/seller/sales")
     List<Map<String, Object>> getSellerSales(@RequestHeader(value = "Authorization", required = false) String authorization);
 
+    @GetMapping("/order-service/api/products/top-sold")
+    List<TopSoldDto> getTopSold(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                @RequestParam(value = "seller", required = false) String seller,
+                                @RequestParam(value = "category", required = false) String category,
+                                @RequestParam(value = "from", required = false) String from,
+                                @RequestParam("limit") int limit);
+
     @GetMapping("/order-service/api/seller/sales/grouped")
     List<OrderSummaryDto> getSellerSalesGrouped(@RequestHeader(value = "Authorization", required = false) String authorization);
 
-    @GetMapping("/order-service/products")
-    List<ProductDto> getProducts();
+    @GetMapping("/order-service/products/changes")
+    CatalogFeedDto getCatalogChanges(@RequestParam("since") long since, @RequestParam("limit") int limit);
+
+    @GetMapping("/order-service/api/orders/baskets")
+    BasketFeedDto getPaidBaskets(@RequestParam("since") long since, @RequestParam("afterId") long afterId,
+                                 @RequestParam("limit") int limit);
 }
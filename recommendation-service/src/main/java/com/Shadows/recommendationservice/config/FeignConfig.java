@@ -1,8 +1,10 @@
 package com.Shadows.recommendationservice.config;
 
+import com.Shadows.recommendationservice.util.JwtUtil;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -11,8 +13,17 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 @Configuration
 public class FeignConfig {
 
+    /** Name and role of the token the background feeds (catalog, baskets, trending) call with */
+    static final String SERVICE_USERNAME = "recommendation-service";
+    static final String SERVICE_ROLE = "SERVICE";
+
+    /**
+     * Forwards the caller's token; calls made outside a request (scheduled feeds, startup) carry
+     * a short-lived service token instead.
+     */
     @Bean
-    public RequestInterceptor requestInterceptor() {
+    public RequestInterceptor requestInterceptor(JwtUtil jwtUtil,
+                                                 @Value("${service-token.ttl-ms:300000}") long serviceTokenTtlMs) {
         return new RequestInterceptor() {
             @Override
             public void apply(RequestTemplate template) {
@@ -23,6 +34,9 @@ public class FeignConfig {
                     if (authorization != null) {
                         template.header("Authorization", authorization);
                     }
+                } else if (!template.headers().containsKey("Authorization")) {
+                    template.header("Authorization",
+                            "Bearer " + jwtUtil.generateToken(SERVICE_USERNAME, SERVICE_ROLE, serviceTokenTtlMs));
                 }
             }
         };
@@ -2,30 +2,54 @@ package com.Shadows.recommendationservice.controller;
 
 import com.Shadows.recommendationservice.model.ProductDto;
 import com.Shadows.recommendationservice.service.GeminiService;
+import com.Shadows.recommendationservice.service.TrendingService;
 import com.Shadows.recommendationservice.util.JwtUtil;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/recommendations")
 public class RecommendationController {
 
+    /** fresh, stale or fallback; with stale and fallback an upgraded answer is on its way */
+    static final String FRESHNESS_HEADER = "X-Recommendation-Freshness";
+
+    private static final int MAX_TRENDING = 50;
+
     private final GeminiService geminiService;
+    private final TrendingService trendingService;
     private final JwtUtil jwtUtil;
 
-    public RecommendationController(GeminiService geminiService, JwtUtil jwtUtil) {
+    public RecommendationController(GeminiService geminiService, TrendingService trendingService, JwtUtil jwtUtil) {
         this.geminiService = geminiService;
+        this.trendingService = trendingService;
         this.jwtUtil = jwtUtil;
     }
 
+    /**
+     * Storefront "trending this week": best sellers of the moment, overall or in one category. No login needed.
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<ProductDto>> getTrending(
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_TRENDING));
+        return ResponseEntity.ok(category == null || category.isBlank()
+                ? trendingService.overall(size)
+                : trendingService.inCategory(category.trim(), size));
+    }
+
     @GetMapping
-    public ResponseEntity<?> getRecommendations(@RequestHeader(value = "Authorization", required = false) String authorization) {
+    public ResponseEntity<?> getRecommendations(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                @RequestParam(value = "mode", required = false) String mode) {
         // Security Check
         String token = null;
         if (authorization != null && authorization.startsWith("Bearer ")) {
@@ -36,6 +60,17 @@ public class RecommendationController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized: Please log in.");
         }
 
-        return ResponseEntity.ok(geminiService.getRecommendations());
+        // mode=async: answer now with what is available, the AI answer is computed for the next call
+        if ("async".equalsIgnoreCase(mode)) {
+            GeminiService.Recommendations recommendations = geminiService.getRecommendationsNow();
+            return ResponseEntity.ok()
+                    .header(FRESHNESS_HEADER, recommendations.freshness().name().toLowerCase(Locale.ROOT))
+                    .body(recommendations.products());
+        }
+
+        List<ProductDto> recommendations = geminiService.getRecommendations();
+        return ResponseEntity.ok()
+                .header(FRESHNESS_HEADER, "fresh")
+                .body(recommendations);
     }
 }
@@ -29,12 +29,13 @@ public class SellerRecommendationController {
 
     /**
      * Get top-sold items for the seller dashboard
-     * Returns most popular products without AI processing
+     * Returns most popular products without AI processing, over the last {@code days} days if given
      */
     @GetMapping("/top-sold")
     public ResponseEntity<?> getTopSoldItems(
             @RequestHeader(value = "Authorization", required = false) String authorization,
-            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestParam(value = "days", required = false) Integer days) {
         
         // Security Check
         String token = extractAndValidateToken(authorization);
@@ -47,8 +48,9 @@ public class SellerRecommendationController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Forbidden: Only sellers and admins can access this.");
         }
         
-        // Pass authorization header to service for seller-specific queries
-        List<ProductDto> topSold = geminiService.getTopSoldItems(limit, authorization);
+        // Sellers see their own products, admins the whole shop
+        String seller = "ADMIN".equals(jwtUtil.extractRole(token)) ? null : jwtUtil.extractUsername(token);
+        List<ProductDto> topSold = geminiService.getTopSoldItems(limit, seller, days, authorization);
         System.out.println("✓ Top sold items returned: " + (topSold != null ? topSold.size() : 0) + " items");
         return ResponseEntity.ok(topSold);
     }
@@ -72,11 +74,9 @@ public class SellerRecommendationController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Forbidden: Only sellers and admins can access this.");
         }
 
-        // Extract top-sold items and catalog from payload
+        // Extract top-sold items from payload
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> topSoldMaps = (List<Map<String, Object>>) payload.get("topSoldItems");
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> catalogMaps = (List<Map<String, Object>>) payload.get("currentCatalog");
 
         if (topSoldMaps == null || topSoldMaps.isEmpty()) {
             return ResponseEntity.badRequest().body("topSoldItems is required and cannot be empty");
@@ -87,12 +87,9 @@ public class SellerRecommendationController {
                 .map(this::mapToProductDto)
                 .toList();
 
-        List<ProductDto> catalog = catalogMaps != null 
-                ? catalogMaps.stream().map(this::mapToProductDto).toList()
-                : List.of();
-
-        // Get suggestions
-        List<String> suggestions = geminiService.suggestNewProducts(topSold, catalog);
+        // Get suggestions against the seller's own inventory (the whole shop for admins)
+        String seller = "ADMIN".equals(jwtUtil.extractRole(token)) ? null : jwtUtil.extractUsername(token);
+        List<String> suggestions = geminiService.suggestNewProducts(topSold, seller);
 
         // Return both suggestions and metadata
         Map<String, Object> response = new HashMap<>();
@@ -0,0 +1,23 @@
+package com.Shadows.recommendationservice.model;
+
+import java.util.List;
+
+/**
+ * The distinct products of one paid order, from order-service's basket feed, with the units
+ * bought of each ({@code quantities.get(i)} for {@code productIds.get(i)}).
+ */
+public class BasketDto {
+    private Long orderId;
+    private long paidAt;
+    private List<Long> productIds;
+    private List<Integer> quantities;
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public long getPaidAt() { return paidAt; }
+    public void setPaidAt(long paidAt) { this.paidAt = paidAt; }
+    public List<Long> getProductIds() { return productIds; }
+    public void setProductIds(List<Long> productIds) { this.productIds = productIds; }
+    public List<Integer> getQuantities() { return quantities; }
+    public void setQuantities(List<Integer> quantities) { this.quantities = quantities; }
+}
@@ -0,0 +1,22 @@
+package com.Shadows.recommendationservice.model;
+
+import java.util.List;
+
+/**
+ * A page of order-service's paid basket feed (/order-service/api/orders/baskets).
+ */
+public class BasketFeedDto {
+    private long since;
+    private long afterId;
+    private boolean hasMore;
+    private List<BasketDto> baskets;
+
+    public long getSince() { return since; }
+    public void setSince(long since) { this.since = since; }
+    public long getAfterId() { return afterId; }
+    public void setAfterId(long afterId) { this.afterId = afterId; }
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    public List<BasketDto> getBaskets() { return baskets; }
+    public void setBaskets(List<BasketDto> baskets) { this.baskets = baskets; }
+}
@@ -0,0 +1,17 @@
+package com.Shadows.recommendationservice.model;
+
+public class CatalogChangeDto {
+    private long version;
+    private Long productId;
+    private boolean deleted;
+    private ProductDto product;
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+    public ProductDto getProduct() { return product; }
+    public void setProduct(ProductDto product) { this.product = product; }
+}
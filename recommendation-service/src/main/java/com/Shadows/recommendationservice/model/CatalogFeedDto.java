@@ -0,0 +1,22 @@
+package com.Shadows.recommendationservice.model;
+
+import java.util.List;
+
+/**
+ * A page of order-service's catalog change feed (/order-service/products/changes).
+ */
+public class CatalogFeedDto {
+    private long version;
+    private boolean reset;
+    private boolean hasMore;
+    private List<CatalogChangeDto> changes;
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public boolean isReset() { return reset; }
+    public void setReset(boolean reset) { this.reset = reset; }
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    public List<CatalogChangeDto> getChanges() { return changes; }
+    public void setChanges(List<CatalogChangeDto> changes) { this.changes = changes; }
+}
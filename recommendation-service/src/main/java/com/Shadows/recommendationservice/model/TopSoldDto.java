@@ -0,0 +1,14 @@
+package com.Shadows.recommendationservice.model;
+
+/**
+ * Units of a product sold, from order-service's top-sold ranking.
+ */
+public class TopSoldDto {
+    private Long productId;
+    private long units;
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public long getUnits() { return units; }
+    public void setUnits(long units) { this.units = units; }
+}
@@ -0,0 +1,136 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.model.ProductDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Shortlists the products worth showing Gemini, so prompts stay the same size however big the
+ * catalog grows.
+ *
+ * For a shopper: in-stock products not bought yet, co-purchased with their items first, then
+ * best sellers of the categories they bought in, then of the categories those co-purchases belong
+ * to, then overall best sellers, then whatever fills the list. For a seller: their inventory in the categories of their top
+ * sellers and of what is bought together with them.
+ */
+@Service
+public class CandidateGenerator {
+
+    private static final String AVAILABLE = "AVAILABLE";
+
+    private final CatalogReplica catalogReplica;
+    private final CoOccurrenceIndex coOccurrence;
+    private final TrendingService trending;
+    private final int maxCandidates;
+
+    public CandidateGenerator(CatalogReplica catalogReplica, CoOccurrenceIndex coOccurrence, TrendingService trending,
+                              @Value("${recommendations.prompt.max-candidates:40}") int maxCandidates) {
+        this.catalogReplica = catalogReplica;
+        this.coOccurrence = coOccurrence;
+        this.trending = trending;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Up to recommendations.prompt.max-candidates catalog products for a shopper who bought
+     * {@code purchasedItems} (name -> times bought), most relevant first.
+     */
+    public List<ProductDto> forShopper(Map<String, Long> purchasedItems, CatalogReplica.Snapshot catalog) {
+        Set<String> bought = new LinkedHashSet<>();
+        Set<String> categories = new LinkedHashSet<>();
+        List<Long> seeds = new ArrayList<>();
+        for (String name : purchasedItems.keySet()) {
+            bought.add(CatalogReplica.normalize(name));
+            for (ProductDto p : catalog.byName(name)) {
+                seeds.add(p.getId());
+                if (p.getCategory() != null) {
+                    categories.add(p.getCategory());
+                }
+            }
+        }
+
+        Map<Long, ProductDto> shortlist = new LinkedHashMap<>();
+        List<ProductDto> coPurchased = resolve(coOccurrence.recommend(
+                seeds.stream().mapToLong(Long::longValue).toArray(), null, maxCandidates), catalog);
+        addAll(shortlist, coPurchased, bought);
+        Set<String> adjacent = new LinkedHashSet<>();
+        coPurchased.stream().map(ProductDto::getCategory).filter(Objects::nonNull).forEach(adjacent::add);
+        adjacent.removeAll(categories);
+        for (String category : categories) {
+            addAll(shortlist, trending.inCategory(category, maxCandidates), bought);
+        }
+        for (String category : adjacent) {
+            addAll(shortlist, trending.inCategory(category, maxCandidates), bought);
+        }
+        addAll(shortlist, trending.overall(maxCandidates), bought);
+        // Room left (little sold yet): the rest of the shopper's categories, then anything
+        for (String category : categories) {
+            addAll(shortlist, catalog.inCategory(category), bought);
+        }
+        addAll(shortlist, catalog.products(), bought);
+        return new ArrayList<>(shortlist.values());
+    }
+
+    /**
+     * Up to recommendations.prompt.max-candidates items of the seller's {@code inventory} in
+     * the categories of {@code topSoldItems} and of what is bought together with them.
+     */
+    public List<ProductDto> forSeller(List<ProductDto> topSoldItems, List<ProductDto> inventory) {
+        Set<String> categories = new LinkedHashSet<>();
+        topSoldItems.stream().map(ProductDto::getCategory).filter(Objects::nonNull).forEach(categories::add);
+        long[] seeds = topSoldItems.stream().map(ProductDto::getId).filter(Objects::nonNull)
+                .mapToLong(Long::longValue).toArray();
+        if (seeds.length > 0) {
+            List<ProductDto> coPurchased = resolve(coOccurrence.recommend(seeds, null, maxCandidates), catalogReplica.snapshot());
+            coPurchased.stream().map(ProductDto::getCategory).filter(Objects::nonNull).forEach(categories::add);
+        }
+
+        List<ProductDto> shortlist = new ArrayList<>();
+        for (String category : categories) {
+            for (ProductDto p : inventory) {
+                if (shortlist.size() == maxCandidates) {
+                    return shortlist;
+                }
+                if (category.equals(p.getCategory())) {
+                    shortlist.add(p);
+                }
+            }
+        }
+        return shortlist;
+    }
+
+    private void addAll(Map<Long, ProductDto> shortlist, Collection<ProductDto> products, Set<String> bought) {
+        for (ProductDto p : products) {
+            if (shortlist.size() == maxCandidates) {
+                return;
+            }
+            if (isInStock(p) && !bought.contains(CatalogReplica.normalize(p.getName()))) {
+                shortlist.putIfAbsent(p.getId(), p);
+            }
+        }
+    }
+
+    private static boolean isInStock(ProductDto p) {
+        return p.getStatus() == null || AVAILABLE.equals(p.getStatus());
+    }
+
+    private static List<ProductDto> resolve(long[] ids, CatalogReplica.Snapshot catalog) {
+        List<ProductDto> products = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            ProductDto product = catalog.byId(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+}
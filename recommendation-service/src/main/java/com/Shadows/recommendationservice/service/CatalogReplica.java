@@ -0,0 +1,241 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.client.OrderServiceClient;
+import com.Shadows.recommendationservice.model.CatalogChangeDto;
+import com.Shadows.recommendationservice.model.CatalogFeedDto;
+import com.Shadows.recommendationservice.model.ProductDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory copy of order-service's catalog, so recommendations never download it per request.
+ *
+ * Kept in sync from the catalog change feed: the first sync pulls everything (since=0), later
+ * ones only what changed since the last applied version. Each sync that changes something
+ * publishes a new immutable {@link Snapshot} with hash indexes by id, normalized name and
+ * category; readers grab the current snapshot and never wait on a refresh.
+ *
+ * Besides the feed version, snapshots carry an assortment version that only moves when products
+ * are added, removed, renamed or re-categorized, not on price or stock updates; caches of
+ * recommendation results are tied to it. The assortment fingerprint is a hash of the same
+ * listing data (ids, names, categories): unlike the version it is the same after a restart or
+ * on another instance, so results kept on disk are tied to it.
+ */
+@Service
+public class CatalogReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogReplica.class);
+
+    private final OrderServiceClient client;
+    private final int pageSize;
+
+    /** Products by id, only touched while holding syncLock */
+    private final Map<Long, ProductDto> products = new HashMap<>();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /** Only touched while holding syncLock */
+    private long assortmentVersion;
+
+    public CatalogReplica(OrderServiceClient client,
+                          @Value("${catalog.replica.page-size:500}") int pageSize) {
+        this.client = client;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * The current catalog. Before the first successful sync, the caller syncs (or waits for the
+     * sync in progress); if order-service is unreachable the snapshot is empty.
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current.isLoaded()) {
+            return current;
+        }
+        syncLock.lock();
+        try {
+            if (!snapshot.isLoaded()) {
+                sync();
+            }
+        } catch (Exception e) {
+            log.error("Failed to load catalog from Order Service: {}", e.getMessage());
+        } finally {
+            syncLock.unlock();
+        }
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    /**
+     * Applies the changes since the last sync; skipped when a sync is already running.
+     */
+    @Scheduled(fixedDelayString = "${catalog.replica.refresh-interval-ms:5000}",
+            initialDelayString = "${catalog.replica.refresh-interval-ms:5000}")
+    public void refresh() {
+        if (!syncLock.tryLock()) {
+            return;
+        }
+        try {
+            sync();
+        } catch (Exception e) {
+            log.warn("Catalog replica refresh failed, keeping version {}: {}", snapshot.version(), e.getMessage());
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void sync() {
+        boolean loaded = snapshot.isLoaded();
+        long since = loaded ? snapshot.version() : 0L;
+        boolean changed = !loaded;
+        boolean assortmentChanged = !loaded;
+        while (true) {
+            CatalogFeedDto page = client.getCatalogChanges(since, pageSize);
+            if (page.isReset()) {
+                // Older than the feed's history: rebuild from scratch
+                log.info("Catalog replica at version {} is behind the change history, reloading", since);
+                products.clear();
+                since = 0L;
+                changed = true;
+                assortmentChanged = true;
+                continue;
+            }
+            if (page.getChanges() != null) {
+                for (CatalogChangeDto change : page.getChanges()) {
+                    ProductDto previous;
+                    if (change.isDeleted() || change.getProduct() == null) {
+                        previous = products.remove(change.getProductId());
+                        assortmentChanged |= previous != null;
+                    } else {
+                        previous = products.put(change.getProductId(), change.getProduct());
+                        assortmentChanged |= previous == null || !sameListing(previous, change.getProduct());
+                    }
+                    changed = true;
+                }
+            }
+            since = page.getVersion();
+            if (!page.isHasMore()) {
+                break;
+            }
+        }
+        if (assortmentChanged) {
+            assortmentVersion++;
+        }
+        if (changed || since != snapshot.version()) {
+            snapshot = Snapshot.of(since, assortmentVersion, products.values());
+            log.debug("Catalog replica at version {} ({} products)", since, products.size());
+        }
+    }
+
+    private static boolean sameListing(ProductDto a, ProductDto b) {
+        return Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getCategory(), b.getCategory());
+    }
+
+    /**
+     * Lower-cased, trimmed, inner whitespace collapsed: the key of the name index.
+     */
+    public static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable view of the catalog at one feed version.
+     */
+    public record Snapshot(long version,
+                           long assortmentVersion,
+                           long assortmentFingerprint,
+                           List<ProductDto> products,
+                           Map<Long, ProductDto> byId,
+                           Map<String, List<ProductDto>> byName,
+                           Map<String, List<ProductDto>> byCategory,
+                           Map<String, List<ProductDto>> bySeller) {
+
+        static final Snapshot EMPTY = new Snapshot(-1L, 0L, 0L, List.of(), Map.of(), Map.of(), Map.of(), Map.of());
+
+        static Snapshot of(long version, long assortmentVersion, Iterable<ProductDto> source) {
+            List<ProductDto> all = new ArrayList<>();
+            source.forEach(all::add);
+            all.sort(Comparator.comparing(ProductDto::getId));
+
+            Map<Long, ProductDto> byId = new HashMap<>(all.size() * 2);
+            Map<String, List<ProductDto>> byName = new HashMap<>();
+            Map<String, List<ProductDto>> byCategory = new LinkedHashMap<>();
+            Map<String, List<ProductDto>> bySeller = new HashMap<>();
+            long fingerprint = 1125899906842597L;
+            for (ProductDto p : all) {
+                fingerprint = 31 * fingerprint + p.getId();
+                fingerprint = 31 * fingerprint + Objects.hashCode(p.getName());
+                fingerprint = 31 * fingerprint + Objects.hashCode(p.getCategory());
+                byId.put(p.getId(), p);
+                byName.computeIfAbsent(normalize(p.getName()), k -> new ArrayList<>(1)).add(p);
+                if (p.getCategory() != null) {
+                    byCategory.computeIfAbsent(p.getCategory(), k -> new ArrayList<>()).add(p);
+                }
+                if (p.getAddedBy() != null) {
+                    bySeller.computeIfAbsent(p.getAddedBy().toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(p);
+                }
+            }
+            byName.replaceAll((k, v) -> Collections.unmodifiableList(v));
+            byCategory.replaceAll((k, v) -> Collections.unmodifiableList(v));
+            bySeller.replaceAll((k, v) -> Collections.unmodifiableList(v));
+            return new Snapshot(version, assortmentVersion, fingerprint, Collections.unmodifiableList(all), Collections.unmodifiableMap(byId),
+                    Collections.unmodifiableMap(byName), Collections.unmodifiableMap(byCategory), Collections.unmodifiableMap(bySeller));
+        }
+
+        public boolean isLoaded() {
+            return version >= 0;
+        }
+
+        public boolean isEmpty() {
+            return products.isEmpty();
+        }
+
+        public ProductDto byId(Long id) {
+            return byId.get(id);
+        }
+
+        /**
+         * Products with this name, ignoring case and extra spaces (several sellers may list the same name).
+         */
+        public List<ProductDto> byName(String name) {
+            return byName.getOrDefault(normalize(name), List.of());
+        }
+
+        public ProductDto firstByName(String name) {
+            List<ProductDto> matches = byName(name);
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+
+        public List<ProductDto> inCategory(String category) {
+            return byCategory.getOrDefault(category, List.of());
+        }
+
+        /**
+         * Everything {@code seller} lists, whatever the case of the username.
+         */
+        public List<ProductDto> bySeller(String seller) {
+            return seller == null ? List.of() : bySeller.getOrDefault(seller.toLowerCase(Locale.ROOT), List.of());
+        }
+    }
+}
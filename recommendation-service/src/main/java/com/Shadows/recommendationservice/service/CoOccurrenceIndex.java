@@ -0,0 +1,260 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.client.OrderServiceClient;
+import com.Shadows.recommendationservice.model.BasketDto;
+import com.Shadows.recommendationservice.model.BasketFeedDto;
+import com.Shadows.recommendationservice.util.IntIntHashMap;
+import com.Shadows.recommendationservice.util.LongIntHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Customers who bought X also bought": item-to-item co-purchase counts from paid orders.
+ *
+ * Products get a dense index on first sight; each one has a primitive row (neighbour index ->
+ * baskets bought together) and a count of baskets containing it. The index is built from
+ * order-service's basket feed at startup and then fed incrementally on a schedule; readers take
+ * the read lock only for the few microseconds a lookup walks the rows.
+ *
+ * Scores are cosine similarities, co(x, y) / sqrt(n(x) * n(y)), so best sellers do not end up
+ * next to everything.
+ */
+@Service
+public class CoOccurrenceIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CoOccurrenceIndex.class);
+
+    private final OrderServiceClient client;
+    private final int pageSize;
+    private final int maxBasketItems;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // Guarded by lock
+    private final LongIntHashMap indexOf = new LongIntHashMap(1024);
+    private long[] productIds = new long[1024];
+    private int[] basketCounts = new int[1024];
+    private IntIntHashMap[] rows = new IntIntHashMap[1024];
+    private int products;
+    private long baskets;
+
+    // Feed cursor, only touched while holding syncLock
+    private long since;
+    private long afterId;
+
+    public CoOccurrenceIndex(OrderServiceClient client,
+                             @Value("${recommendations.cooccurrence.page-size:500}") int pageSize,
+                             @Value("${recommendations.cooccurrence.max-basket-items:50}") int maxBasketItems) {
+        this.client = client;
+        this.pageSize = pageSize;
+        this.maxBasketItems = maxBasketItems;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    /**
+     * Adds the baskets paid since the last sync; skipped when a sync is already running.
+     */
+    @Scheduled(fixedDelayString = "${recommendations.cooccurrence.refresh-interval-ms:10000}",
+            initialDelayString = "${recommendations.cooccurrence.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (!syncLock.tryLock()) {
+            return;
+        }
+        try {
+            long added = 0;
+            BasketFeedDto page;
+            do {
+                // Fetched outside the write lock, readers only wait for the apply
+                page = client.getPaidBaskets(since, afterId, pageSize);
+                if (page.getBaskets() != null && !page.getBaskets().isEmpty()) {
+                    addAll(page.getBaskets());
+                    added += page.getBaskets().size();
+                }
+                since = page.getSince();
+                afterId = page.getAfterId();
+            } while (page.isHasMore());
+            if (added > 0) {
+                log.debug("Co-purchase index: {} baskets added, {} products", added, size());
+            }
+        } catch (Exception e) {
+            log.warn("Co-purchase index refresh failed, will resume from the same point: {}", e.getMessage());
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void addAll(List<BasketDto> page) {
+        lock.writeLock().lock();
+        try {
+            for (BasketDto basket : page) {
+                if (basket.getProductIds() != null) {
+                    add(basket.getProductIds());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(List<Long> ids) {
+        int n = Math.min(ids.size(), maxBasketItems);
+        if (n == 0) {
+            return;
+        }
+        int[] items = new int[n];
+        for (int i = 0; i < n; i++) {
+            items[i] = indexFor(ids.get(i));
+        }
+        for (int i = 0; i < n; i++) {
+            int x = items[i];
+            basketCounts[x]++;
+            for (int j = 0; j < n; j++) {
+                if (items[j] != x) {
+                    rows[x].addTo(items[j], 1);
+                }
+            }
+        }
+        baskets++;
+    }
+
+    private int indexFor(long productId) {
+        int index = indexOf.get(productId, -1);
+        if (index >= 0) {
+            return index;
+        }
+        index = products++;
+        if (index == productIds.length) {
+            int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            basketCounts = Arrays.copyOf(basketCounts, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+        }
+        productIds[index] = productId;
+        rows[index] = new IntIntHashMap(8);
+        indexOf.put(productId, index);
+        return index;
+    }
+
+    /**
+     * Up to {@code limit} product ids most bought together with {@code productId}, best first.
+     */
+    public long[] alsoBought(long productId, int limit) {
+        return recommend(new long[]{productId}, null, limit);
+    }
+
+    /**
+     * Up to {@code limit} product ids most bought together with the seeds, best first, seeds excluded.
+     * Each seed's neighbours count {@code weights[i]} times (all 1 when weights is null).
+     */
+    public long[] recommend(long[] seeds, float[] weights, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] seedIndexes = new int[seeds.length];
+            int entries = 0;
+            for (int i = 0; i < seeds.length; i++) {
+                seedIndexes[i] = indexOf.get(seeds[i], -1);
+                if (seedIndexes[i] >= 0) {
+                    entries += rows[seedIndexes[i]].size();
+                }
+            }
+            if (entries == 0 || limit <= 0) {
+                return new long[0];
+            }
+
+            // Scores sized to the seeds' neighbours, not to the whole catalog: candidate index ->
+            // position + 1 in candidates/scores (0 means not seen yet)
+            IntIntHashMap positionOf = new IntIntHashMap(entries);
+            int[] candidates = new int[entries];
+            float[] scores = new float[entries];
+            int count = 0;
+            for (int i = 0; i < seedIndexes.length; i++) {
+                int x = seedIndexes[i];
+                if (x < 0) {
+                    continue;
+                }
+                float weight = weights == null ? 1f : weights[i];
+                IntIntHashMap row = rows[x];
+                for (int slot = 0; slot < row.capacity(); slot++) {
+                    int y = row.keyAt(slot);
+                    if (y == IntIntHashMap.FREE) {
+                        continue;
+                    }
+                    int pos = positionOf.get(y) - 1;
+                    if (pos < 0) {
+                        pos = count++;
+                        positionOf.addTo(y, pos + 1);
+                        candidates[pos] = y;
+                    }
+                    scores[pos] += weight * row.valueAt(slot) / (float) Math.sqrt((double) basketCounts[x] * basketCounts[y]);
+                }
+            }
+            for (int x : seedIndexes) {
+                int pos = x < 0 ? -1 : positionOf.get(x) - 1;
+                if (pos >= 0) {
+                    scores[pos] = 0f;
+                }
+            }
+
+            // Top-k by insertion into a small sorted buffer of positions; k is a handful
+            int k = Math.min(limit, count);
+            int[] best = new int[k];
+            int found = 0;
+            for (int p = 0; p < count; p++) {
+                float score = scores[p];
+                if (score <= 0f || (found == k && score <= scores[best[k - 1]])) {
+                    continue;
+                }
+                int pos = found < k ? found++ : k - 1;
+                while (pos > 0 && scores[best[pos - 1]] < score) {
+                    best[pos] = best[pos - 1];
+                    pos--;
+                }
+                best[pos] = p;
+            }
+
+            long[] result = new long[found];
+            for (int i = 0; i < found; i++) {
+                result[i] = productIds[candidates[best[i]]];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products seen in at least one paid basket.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long basketCount() {
+        lock.readLock().lock();
+        try {
+            return baskets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
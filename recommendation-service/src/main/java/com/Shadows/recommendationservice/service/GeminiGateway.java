@@ -0,0 +1,187 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.util.TokenBudget;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every Gemini call goes through here.
+ *
+ * Identical prompts in flight at the same time share one call. Calls run on a small pool
+ * (gemini.max-concurrent threads) and take a token from a bucket refilled at the quota rate
+ * (gemini.requests-per-minute), so bursts queue here instead of hitting 429s. Waiting for a
+ * token and backing off after a 429 are scheduled on the pool, never slept on a request thread.
+ * When too many distinct prompts are pending the call fails fast and callers use their fallback.
+ *
+ * Per purpose (recommend, rerank, seller-suggestions): gemini.prompt.tokens, the estimated size of
+ * each prompt sent, and gemini.call, the latency of each attempt tagged with its outcome.
+ */
+@Service
+public class GeminiGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiGateway.class);
+
+    /** Answer handed to callers when Gemini is unavailable: no ids, so they fall back */
+    static final String NO_ANSWER = "[]";
+
+    private final ChatClient chatClient;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService scheduler;
+    private final TokenBucket tokens;
+    private final int maxRetries;
+    private final long initialBackoffMs;
+    private final int maxPending;
+
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    public GeminiGateway(ChatClient.Builder chatClientBuilder, MeterRegistry meterRegistry,
+                         @Value("${gemini.max-concurrent:4}") int maxConcurrent,
+                         @Value("${gemini.requests-per-minute:15}") double requestsPerMinute,
+                         @Value("${gemini.burst:5}") int burst,
+                         @Value("${gemini.max-retries:2}") int maxRetries,
+                         @Value("${gemini.backoff.initial-ms:1000}") long initialBackoffMs,
+                         @Value("${gemini.max-pending:100}") int maxPending) {
+        this.chatClient = chatClientBuilder.build();
+        this.meterRegistry = meterRegistry;
+        this.scheduler = Executors.newScheduledThreadPool(maxConcurrent, r -> {
+            Thread thread = new Thread(r, "gemini-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.tokens = new TokenBucket(burst, requestsPerMinute / TimeUnit.MINUTES.toNanos(1));
+        this.maxRetries = maxRetries;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Gemini's answer to {@code prompt}, shared with any identical call already in flight.
+     * Completes with {@link #NO_ANSWER} when Gemini fails or the gateway is saturated.
+     *
+     * @param purpose what the prompt is for, the tag of its metrics
+     */
+    public CompletableFuture<String> call(String purpose, String prompt) {
+        CompletableFuture<String> existing = inFlight.get(prompt);
+        if (existing != null) {
+            return existing;
+        }
+        if (inFlight.size() >= maxPending) {
+            log.warn("{} Gemini calls pending, not queueing another one", inFlight.size());
+            return CompletableFuture.completedFuture(NO_ANSWER);
+        }
+
+        CompletableFuture<String> created = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(prompt, created);
+        if (existing != null) {
+            return existing;
+        }
+        created.whenComplete((answer, error) -> inFlight.remove(prompt, created));
+        DistributionSummary.builder("gemini.prompt.tokens")
+                .description("Estimated tokens per prompt sent to Gemini")
+                .baseUnit("tokens")
+                .tag("purpose", purpose)
+                .register(meterRegistry)
+                .record(TokenBudget.estimate(prompt));
+        scheduler.execute(() -> attempt(purpose, prompt, created, 0));
+        return created;
+    }
+
+    private void attempt(String purpose, String prompt, CompletableFuture<String> result, int attempt) {
+        long waitNanos = tokens.tryAcquire();
+        if (waitNanos > 0) {
+            scheduler.schedule(() -> attempt(purpose, prompt, result, attempt), waitNanos, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            log.info("Calling Gemini via Spring AI (Attempt {})", attempt + 1);
+            String answer = chatClient.prompt()
+                    .user(prompt)
+                    .call()
+                    .content();
+            recordCall(purpose, "success", start);
+            result.complete(answer);
+        } catch (Exception e) {
+            recordCall(purpose, isQuotaError(e) ? "quota" : "error", start);
+            if (isQuotaError(e) && attempt < maxRetries) {
+                // 1s, 2s, ... with jitter, so the waiters of a burst do not retry in lockstep
+                long delay = (long) ((initialBackoffMs << attempt) * (0.8 + ThreadLocalRandom.current().nextDouble() * 0.4));
+                log.warn("Quota exceeded. Retrying in {}ms...", delay);
+                scheduler.schedule(() -> attempt(purpose, prompt, result, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } else {
+                log.warn("Failed to call Gemini after {} attempt(s): {}", attempt + 1, e.getMessage());
+                result.complete(NO_ANSWER);
+            }
+        }
+    }
+
+    private void recordCall(String purpose, String outcome, long startNanos) {
+        Timer.builder("gemini.call")
+                .description("Latency of Gemini calls")
+                .tag("purpose", purpose)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean isQuotaError(Exception e) {
+        String message = e.getMessage();
+        return message != null && (message.contains("429")
+                || message.contains("Too Many Requests")
+                || message.contains("Quota exceeded"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        inFlight.values().forEach(pending -> pending.complete(NO_ANSWER));
+    }
+
+    /**
+     * Token bucket: up to {@code capacity} calls at once, refilled at {@code tokensPerNano}.
+     */
+    static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double available;
+        private long refilledAt;
+
+        TokenBucket(double capacity, double tokensPerNano) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerNano;
+            this.available = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * Takes a token and returns 0, or returns how long to wait until one is available.
+         */
+        synchronized long tryAcquire() {
+            long now = System.nanoTime();
+            available = Math.min(capacity, available + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (available >= 1) {
+                available -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - available) / tokensPerNano);
+        }
+    }
+}
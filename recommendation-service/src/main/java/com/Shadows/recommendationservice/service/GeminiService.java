@@ -3,13 +3,28 @@ package com.Shadows.recommendationservice.service;
 import com.Shadows.recommendationservice.client.OrderServiceClient;
 import com.Shadows.recommendationservice.model.OrderSummaryDto;
 import com.Shadows.recommendationservice.model.ProductDto;
-
-import org.springframework.ai.chat.client.ChatClient;
+import com.Shadows.recommendationservice.model.TopSoldDto;
+import com.Shadows.recommendationservice.util.TokenBudget;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import java.util.AbstractMap.SimpleEntry;
@@ -24,18 +39,101 @@ public class GeminiService {
     private static final Logger log = LoggerFactory.getLogger(GeminiService.class);
     private static final Pattern COUNT_PATTERN = Pattern.compile("^(.*?) \\(x(\\d+)\\)$");
 
-    // Simple in-memory cache: Key = PurchaseHistoryString, Value = Recommendations
-    private final Map<String, List<ProductDto>> recommendationCache = new java.util.concurrent.ConcurrentHashMap<>();
-    
+    /** Products recommended to a user, as the prompt asks Gemini for */
+    private static final int RECOMMENDED = 3;
+
+    /**
+     * Recommended product ids for one purchase history (sorted name -> count), and the catalog
+     * assortment they were picked from. Products are resolved from the replica on every read,
+     * so price and stock are always current and entries stay small.
+     */
+    record RecommendedIds(long assortmentVersion, long[] ids) {
+    }
+
+    /** FRESH: computed from the current assortment; STALE: an older answer, being refreshed; FALLBACK: category picks while the AI answer is computed */
+    public enum Freshness { FRESH, STALE, FALLBACK }
+
+    public record Recommendations(List<ProductDto> products, Freshness freshness) {
+    }
+
+    // Purchase history -> recommended ids; bounded by total ids held, expired and refreshed in the background.
+    // Entries from an older assortment are kept to be served stale while they are recomputed.
+    private final LoadingCache<Map<String, Long>, RecommendedIds> recommendationCache;
+
     // Seller product suggestions cache: Key = Top-sold items signature
-    private final Map<String, List<String>> sellerSuggestionsCache = new java.util.concurrent.ConcurrentHashMap<>();
+    private final Cache<String, List<String>> sellerSuggestionsCache;
 
-    private final OrderServiceClient client;
-    private final ChatClient chatClient;
+    /** Assortment version the caches were last checked against */
+    private final AtomicLong cachedAssortment = new AtomicLong(-1L);
 
-    public GeminiService(ChatClient.Builder chatClientBuilder, OrderServiceClient client) {
+    private final OrderServiceClient client;
+    private final CatalogReplica catalogReplica;
+    private final GeminiGateway geminiGateway;
+    private final CoOccurrenceIndex coOccurrence;
+    private final TrendingService trending;
+    private final CandidateGenerator candidateGenerator;
+    private final ResultStore resultStore;
+    private final int promptMaxTokens;
+    private final long callTimeoutMs;
+    private final int candidates;
+    private final boolean rerankWithGemini;
+
+    public GeminiService(GeminiGateway geminiGateway, OrderServiceClient client, CatalogReplica catalogReplica,
+                         CoOccurrenceIndex coOccurrence, TrendingService trending,
+                         CandidateGenerator candidateGenerator, ResultStore resultStore, MeterRegistry meterRegistry,
+                         @Value("${gemini.prompt.max-tokens:1500}") int promptMaxTokens,
+                         @Value("${gemini.call-timeout-ms:20000}") long callTimeoutMs,
+                         @Value("${recommendations.cooccurrence.candidates:10}") int candidates,
+                         @Value("${recommendations.rerank-with-gemini:false}") boolean rerankWithGemini,
+                         @Value("${recommendations.cache.max-weight:100000}") long maxWeight,
+                         @Value("${recommendations.cache.ttl:PT6H}") Duration ttl,
+                         @Value("${recommendations.cache.refresh-after:PT30M}") Duration refreshAfter,
+                         @Value("${recommendations.refresh-threads:4}") int refreshThreads) {
         this.client = client;
-        this.chatClient = chatClientBuilder.build();
+        this.catalogReplica = catalogReplica;
+        this.geminiGateway = geminiGateway;
+        this.coOccurrence = coOccurrence;
+        this.trending = trending;
+        this.candidateGenerator = candidateGenerator;
+        this.resultStore = resultStore;
+        this.promptMaxTokens = promptMaxTokens;
+        this.callTimeoutMs = callTimeoutMs;
+        this.candidates = candidates;
+        this.rerankWithGemini = rerankWithGemini;
+
+        this.recommendationCache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Map<String, Long> history, RecommendedIds value) -> history.size() + value.ids().length)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refreshAfter)
+                .executor(Executors.newFixedThreadPool(refreshThreads, r -> {
+                    Thread thread = new Thread(r, "recommendation-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public RecommendedIds load(Map<String, Long> history) {
+                        // After a restart, the result kept on disk if the assortment is the same
+                        RecommendedIds stored = stored(history, catalogReplica.snapshot());
+                        return stored != null && stored.assortmentVersion() >= 0 ? stored : computeRecommendations(history);
+                    }
+
+                    @Override
+                    public RecommendedIds reload(Map<String, Long> history, RecommendedIds oldValue) {
+                        return computeRecommendations(history);
+                    }
+                });
+        this.sellerSuggestionsCache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, List<String> value) -> 1 + value.size())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size... under /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, recommendationCache, "recommendations");
+        CaffeineCacheMetrics.monitor(meterRegistry, sellerSuggestionsCache, "sellerSuggestions");
     }
 
     // init() method removed as Spring AI handles connection checks lazily or via actuator
@@ -52,8 +150,81 @@ public class GeminiService {
         return new SimpleEntry<>(rawName, 1L);
     }
 
+    /**
+     * Recommendations for the caller, waiting for Gemini on a cache miss.
+     */
     public List<ProductDto> getRecommendations() {
         // 1. Get User History
+        Map<String, Long> purchasedItems = purchaseHistory();
+
+        // 2. Get Catalog (local replica, kept in sync in the background)
+        CatalogReplica.Snapshot catalog = catalogReplica.snapshot();
+
+        if (catalog.isEmpty()) {
+            log.warn("Catalog is empty or unreachable. Returning empty recommendations.");
+            return Collections.emptyList();
+        }
+
+        // 3. If no history, return empty list so the UI prompts to buy something
+        if (purchasedItems.isEmpty()) {
+            log.info("No purchase history found. Returning empty list.");
+            return Collections.emptyList();
+        }
+
+        // Cache key: sorted copy, so {A=1, B=1} is the same as {B=1, A=1}
+        Map<String, Long> history = Collections.unmodifiableMap(new TreeMap<>(purchasedItems));
+        onAssortmentChange(catalog);
+        RecommendedIds cached = recommendationCache.get(history);
+        if (cached != null && cached.assortmentVersion() < catalog.assortmentVersion()) {
+            // Computed from an older assortment
+            recommendationCache.invalidate(history);
+            cached = recommendationCache.get(history);
+        }
+        return cached == null ? Collections.emptyList() : resolve(cached.ids(), catalog);
+    }
+
+    /**
+     * Stale-while-revalidate: answers right away with the best thing available (the cached
+     * answer, even from an older assortment, or else the co-purchase picks or the category
+     * fallback) and has the full answer computed in the background for the next call.
+     */
+    public Recommendations getRecommendationsNow() {
+        Map<String, Long> purchasedItems = purchaseHistory();
+        CatalogReplica.Snapshot catalog = catalogReplica.snapshot();
+        if (catalog.isEmpty() || purchasedItems.isEmpty()) {
+            return new Recommendations(Collections.emptyList(), Freshness.FRESH);
+        }
+
+        Map<String, Long> history = Collections.unmodifiableMap(new TreeMap<>(purchasedItems));
+        onAssortmentChange(catalog);
+        RecommendedIds cached = recommendationCache.getIfPresent(history);
+        if (cached == null) {
+            cached = stored(history, catalog);
+            if (cached != null && cached.assortmentVersion() >= 0) {
+                recommendationCache.put(history, cached);
+            }
+        }
+        if (cached != null && cached.assortmentVersion() >= catalog.assortmentVersion()) {
+            return new Recommendations(resolve(cached.ids(), catalog), Freshness.FRESH);
+        }
+
+        // Loads in the background; a refresh already running for this history is reused
+        recommendationCache.refresh(history);
+        if (cached != null) {
+            return new Recommendations(resolve(cached.ids(), catalog), Freshness.STALE);
+        }
+        List<ProductDto> local = alsoBought(purchasedItems, catalog);
+        if (!local.isEmpty()) {
+            local = new ArrayList<>(local.subList(0, Math.min(RECOMMENDED, local.size())));
+            // Without re-ranking the co-purchase picks are the final answer
+            return new Recommendations(mostBoughtFirst(local, catalog, purchasedItems),
+                    rerankWithGemini ? Freshness.FALLBACK : Freshness.FRESH);
+        }
+        List<ProductDto> fallback = new ArrayList<>(getFallbackRecommendations(catalog, purchasedItems));
+        return new Recommendations(mostBoughtFirst(fallback, catalog, purchasedItems), Freshness.FALLBACK);
+    }
+
+    private Map<String, Long> purchaseHistory() {
         List<OrderSummaryDto> orders;
         try {
             orders = client.getMyOrders();
@@ -62,56 +233,41 @@ public class GeminiService {
             orders = Collections.emptyList();
         }
 
-        Map<String, Long> purchasedItems = orders.stream()
+        return orders.stream()
                 .filter(o -> o.getProductNames() != null)
                 .flatMap(o -> o.getProductNames().stream())
                 .map(this::parseNameAndCount)
                 .collect(Collectors.groupingBy(SimpleEntry::getKey, 
                         Collectors.summingLong(SimpleEntry::getValue)));
+    }
 
-        // 2. Get Catalog
-        List<ProductDto> catalog;
-        try {
-            catalog = client.getProducts();
-        } catch (Exception e) {
-            log.error("Failed to fetch products from Order Service", e);
-            catalog = Collections.emptyList();
-        }
-
+    /**
+     * Cache loader (and background refresh): co-purchase picks, optionally re-ranked by Gemini;
+     * products nobody bought with the user's items yet go to Gemini with a shortlist of the
+     * catalog, then to category picks.
+     */
+    private RecommendedIds computeRecommendations(Map<String, Long> purchasedItems) {
+        CatalogReplica.Snapshot catalog = catalogReplica.snapshot();
         if (catalog.isEmpty()) {
-            log.warn("Catalog is empty or unreachable. Returning empty recommendations.");
-            return Collections.emptyList();
+            // Nothing to recommend from; not cached
+            return null;
         }
 
-        // 3. If no history, return empty list so the UI prompts to buy something
-        if (purchasedItems.isEmpty()) {
-            log.info("No purchase history found. Returning empty list.");
-            return Collections.emptyList();
+        List<ProductDto> local = alsoBought(purchasedItems, catalog);
+        if (!local.isEmpty()) {
+            List<ProductDto> ranked = rerankWithGemini ? rerank(purchasedItems, local, catalog) : local;
+            List<ProductDto> picks = new ArrayList<>(ranked.subList(0, Math.min(RECOMMENDED, ranked.size())));
+            long[] ids = mostBoughtFirst(picks, catalog, purchasedItems).stream()
+                    .mapToLong(ProductDto::getId).toArray();
+            return store(purchasedItems, catalog, ids);
         }
 
-        // Cache Check: Determine key from purchased items signature
-        // Sorting keys ensures {A=1, B=1} is same as {B=1, A=1}
-        String cacheKey = purchasedItems.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(e -> e.getKey() + ":" + e.getValue())
-                .collect(Collectors.joining("|"));
-
-        if (recommendationCache.containsKey(cacheKey)) {
-            log.info("Returning cached recommendations for key: {}", cacheKey);
-            return recommendationCache.get(cacheKey);
-        }
-
-        // Find Most Bought Item
-        Map.Entry<String, Long> mostBoughtEntry = purchasedItems.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .orElse(null);
-        String mostBoughtName = (mostBoughtEntry != null) ? mostBoughtEntry.getKey() : null;
-
-        // 4. Construct Prompt
-        String prompt = buildPrompt(purchasedItems, catalog, mostBoughtName);
+        // 4. Construct Prompt from the shortlist, not the whole catalog
+        List<ProductDto> shortlist = candidateGenerator.forShopper(purchasedItems, catalog);
+        String prompt = buildPrompt(purchasedItems, shortlist, mostBought(purchasedItems));
 
         // 5. Call Gemini
-        String aiResponse = callGemini(prompt);
+        String aiResponse = callGemini("recommend", prompt);
         log.info("Gemini Response: {}", aiResponse);
 
         // 6. Parse and Filter
@@ -120,63 +276,174 @@ public class GeminiService {
         // Ensure the list is mutable
         recommendations = new ArrayList<>(recommendations);
 
-        if (recommendations.isEmpty()) {
+        boolean fallback = recommendations.isEmpty();
+        if (fallback) {
              log.warn("Gemini returned no valid recommendations. Using fallback.");
              recommendations = new ArrayList<>(getFallbackRecommendations(catalog, purchasedItems));
         }
 
-        // Explicitly add the most bought item to the TOP of the recommendations
-        if (mostBoughtName != null) {
-            final String targetName = mostBoughtName;
-            ProductDto mostBoughtProduct = catalog.stream()
-                    .filter(p -> p.getName().equalsIgnoreCase(targetName))
-                    .findFirst()
-                    .orElse(null);
-            
-            if (mostBoughtProduct != null) {
-                // Remove if already present (to avoid duplicates, or move to top)
-                recommendations.removeIf(p -> p.getId().equals(mostBoughtProduct.getId()));
-                // Add to the front
-                recommendations.add(0, mostBoughtProduct);
-                log.info("Added most bought item '{}' to recommendations.", mostBoughtName);
-            }
-        }
-        
         // Trim to reasonable size (e.g., 5) if needed, but 3 is the prompt target
         
-        // Cache successful AI recommendations
-        recommendationCache.put(cacheKey, recommendations);
+        long[] ids = mostBoughtFirst(recommendations, catalog, purchasedItems).stream()
+                .mapToLong(ProductDto::getId).toArray();
+        // Fallback picks are not worth keeping across restarts
+        return fallback ? new RecommendedIds(catalog.assortmentVersion(), ids) : store(purchasedItems, catalog, ids);
+    }
+
+    private RecommendedIds store(Map<String, Long> history, CatalogReplica.Snapshot catalog, long[] ids) {
+        resultStore.put(recommendationKey(history), catalog.assortmentFingerprint(), ResultStore.encodeIds(ids));
+        return new RecommendedIds(catalog.assortmentVersion(), ids);
+    }
+
+    /**
+     * The result kept on disk for this history: with the current assortment version if it was
+     * computed from the same assortment, -1 (stale) otherwise; null when there is none.
+     */
+    private RecommendedIds stored(Map<String, Long> history, CatalogReplica.Snapshot catalog) {
+        ResultStore.Entry entry = resultStore.get(recommendationKey(history));
+        if (entry == null) {
+            return null;
+        }
+        long version = entry.fingerprint() == catalog.assortmentFingerprint() ? catalog.assortmentVersion() : -1L;
+        return new RecommendedIds(version, ResultStore.decodeIds(entry.value()));
+    }
+
+    private static String recommendationKey(Map<String, Long> history) {
+        // Histories are sorted, so the same purchases give the same signature
+        return ResultStore.key("recommendations", history.toString());
+    }
+
+    /**
+     * Catalog products most bought together with the user's items, best first; each purchased
+     * item weighs as many times as it was bought.
+     */
+    private List<ProductDto> alsoBought(Map<String, Long> purchasedItems, CatalogReplica.Snapshot catalog) {
+        List<ProductDto> seeds = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        purchasedItems.forEach((name, count) -> catalog.byName(name).forEach(p -> {
+            seeds.add(p);
+            counts.add(count);
+        }));
+        if (seeds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long[] seedIds = new long[seeds.size()];
+        float[] weights = new float[seeds.size()];
+        for (int i = 0; i < seedIds.length; i++) {
+            seedIds[i] = seeds.get(i).getId();
+            weights[i] = counts.get(i);
+        }
+        return resolve(coOccurrence.recommend(seedIds, weights, candidates), catalog);
+    }
+
+    /**
+     * Gemini's order of the co-purchase candidates; candidates it leaves out keep their local order after the others.
+     */
+    private List<ProductDto> rerank(Map<String, Long> purchasedItems, List<ProductDto> candidates,
+                                    CatalogReplica.Snapshot catalog) {
+        String task = "\nTask: Order the candidates from most to least relevant for this user.\n"
+                + "Format: Return ONLY a JSON array of the candidate Product IDs. Example: [1, 5, 10]. Do not include markdown formatting or explanations.";
+        TokenBudget budget = new TokenBudget(promptMaxTokens);
+        budget.take(task);
+        StringBuilder sb = new StringBuilder();
+        sb.append("Role: You are an expert shopping assistant.\n");
+        sb.append("User History (Purchased Items with frequency):\n");
+        budget.take(sb);
+        appendWithin(sb, budget, historyLines(purchasedItems));
+        sb.append("\nCandidates often bought together with these items (ID: Name - Category):\n");
+        appendWithin(sb, budget, catalogLines(candidates));
+        sb.append(task);
+
+        List<ProductDto> ranked = new ArrayList<>(parseRecommendations(callGemini("rerank", sb.toString()), catalog));
+        ranked.retainAll(candidates);
+        for (ProductDto p : candidates) {
+            if (!ranked.contains(p)) {
+                ranked.add(p);
+            }
+        }
+        return ranked;
+    }
+
+    private static String mostBought(Map<String, Long> purchasedItems) {
+        return purchasedItems.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    /**
+     * Explicitly puts the most bought item at the TOP of the recommendations.
+     */
+    private List<ProductDto> mostBoughtFirst(List<ProductDto> recommendations, CatalogReplica.Snapshot catalog,
+                                             Map<String, Long> purchasedItems) {
+        String mostBoughtName = mostBought(purchasedItems);
+        ProductDto mostBoughtProduct = mostBoughtName == null ? null : catalog.firstByName(mostBoughtName);
+        if (mostBoughtProduct != null) {
+            // Remove if already present (to avoid duplicates, or move to top)
+            recommendations.removeIf(p -> p.getId().equals(mostBoughtProduct.getId()));
+            // Add to the front
+            recommendations.add(0, mostBoughtProduct);
+            log.info("Added most bought item '{}' to recommendations.", mostBoughtName);
+        }
         return recommendations;
     }
 
-    private List<ProductDto> getFallbackRecommendations(List<ProductDto> catalog, Map<String, Long> purchasedItems) {
+    /**
+     * Products for cached ids, skipping any removed from the catalog since.
+     */
+    private static List<ProductDto> resolve(long[] ids, CatalogReplica.Snapshot catalog) {
+        List<ProductDto> products = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            ProductDto product = catalog.byId(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Once products were added, removed or re-categorized: seller suggestions are dropped, and
+     * cached recommendations count as stale (their entries say which assortment they came from).
+     */
+    private void onAssortmentChange(CatalogReplica.Snapshot catalog) {
+        long seen = cachedAssortment.get();
+        if (seen != catalog.assortmentVersion() && cachedAssortment.compareAndSet(seen, catalog.assortmentVersion())) {
+            if (seen >= 0) {
+                log.info("Catalog assortment changed, clearing seller suggestions");
+            }
+            sellerSuggestionsCache.invalidateAll();
+        }
+    }
+
+    private List<ProductDto> getFallbackRecommendations(CatalogReplica.Snapshot catalog, Map<String, Long> purchasedItems) {
         if (catalog.isEmpty()) return Collections.emptyList();
 
-        // 1. Identify categories of products the user has purchased
-        Set<String> purchasedProductNames = purchasedItems.keySet();
-        
-        // Find categories from the catalog based on names (simple matching)
-        Set<String> preferredCategories = catalog.stream()
-            .filter(p -> purchasedProductNames.stream().anyMatch(name -> name.equalsIgnoreCase(p.getName())))
+        // 1. Identify categories of products the user has purchased, through the name index
+        Set<String> preferredCategories = purchasedItems.keySet().stream()
+            .flatMap(name -> catalog.byName(name).stream())
             .map(ProductDto::getCategory)
             .filter(Objects::nonNull)
             .collect(Collectors.toSet());
 
         if (preferredCategories.isEmpty()) {
             // No category data found, random shuffle
-            List<ProductDto> shuffled = new ArrayList<>(catalog);
+            List<ProductDto> shuffled = new ArrayList<>(catalog.products());
             Collections.shuffle(shuffled);
             return shuffled.stream().limit(3).collect(Collectors.toList());
         }
 
         log.info("Generating weighted fallback recommendations based on categories: {}", preferredCategories);
 
-        // 2. Separate catalog into "Preferred" (same category) and "Others"
-        Map<Boolean, List<ProductDto>> partitioned = catalog.stream()
-            .collect(Collectors.partitioningBy(p -> preferredCategories.contains(p.getCategory())));
-
-        List<ProductDto> preferred = partitioned.getOrDefault(true, new ArrayList<>());
-        List<ProductDto> others = partitioned.getOrDefault(false, new ArrayList<>());
+        // 2. "Preferred" (same category) straight from the category index; "Others" only if needed
+        List<ProductDto> preferred = new ArrayList<>();
+        preferredCategories.forEach(category -> preferred.addAll(catalog.inCategory(category)));
+        List<ProductDto> others = new ArrayList<>();
+        if (preferred.size() < 3) {
+            catalog.products().stream()
+                .filter(p -> !preferredCategories.contains(p.getCategory()))
+                .forEach(others::add);
+        }
 
         // Shuffle both lists to add variety
         Collections.shuffle(preferred);
@@ -193,67 +460,81 @@ public class GeminiService {
         return result.stream().limit(3).collect(Collectors.toList());
     }
 
-    private String buildPrompt(Map<String, Long> purchased, List<ProductDto> catalog, String mostBoughtName) {
+    /**
+     * The history (most bought first) and the shortlisted products, as many lines of each as fit
+     * in gemini.prompt.max-tokens once the instructions are counted.
+     */
+    private String buildPrompt(Map<String, Long> purchased, List<ProductDto> candidates, String mostBoughtName) {
+        String task = "\nTask: Recommend 3 products from the catalog based on the user's purchase history. Heavily weigh items that are frequently bought or complement frequently bought items.\n"
+                + "Constraint: The User's Most Frequently Bought Item (" + (mostBoughtName != null ? mostBoughtName : "none") + ") is very important. Consider recommending it explicitly if it fits.\n"
+                + "Format: Return ONLY a JSON array of the recommended Product IDs. Example: [1, 5, 10]. Do not include markdown formatting or explanations.";
+        TokenBudget budget = new TokenBudget(promptMaxTokens);
+        budget.take(task);
+
         StringBuilder sb = new StringBuilder();
         sb.append("Role: You are an expert shopping assistant.\n");
-        sb.append("User History (Purchased Items with frequency):\n");
-        purchased.forEach((name, count) -> 
-            sb.append("- ").append(name).append(" (x").append(count).append(")\n")
-        );
-        
         if (mostBoughtName != null) {
-            sb.append("\nUser's Most Frequently Bought Item: ").append(mostBoughtName).append("\n");
+            sb.append("User's Most Frequently Bought Item: ").append(mostBoughtName).append("\n");
         }
+        sb.append("User History (Purchased Items with frequency):\n");
+        budget.take(sb);
+        appendWithin(sb, budget, historyLines(purchased));
 
         sb.append("\nAvailable Catalog (ID: Name - Category):\n");
-        for (ProductDto p : catalog) {
-            sb.append(p.getId()).append(": ").append(p.getName()).append(" - ").append(p.getCategory()).append("\n");
+        budget.take("\nAvailable Catalog (ID: Name - Category):\n");
+        int listed = appendWithin(sb, budget, catalogLines(candidates));
+        if (listed < candidates.size()) {
+            log.debug("Prompt budget of {} tokens reached, {} of {} candidates listed", promptMaxTokens, listed, candidates.size());
         }
-        sb.append("\nTask: Recommend 3 products from the catalog based on the user's purchase history. Heavily weigh items that are frequently bought or complement frequently bought items.\n");
-        sb.append("Constraint: The User's Most Frequently Bought Item (" + (mostBoughtName != null ? mostBoughtName : "none") + ") is very important. Consider recommending it explicitly if it fits.\n");
-        sb.append("Format: Return ONLY a JSON array of the recommended Product IDs. Example: [1, 5, 10]. Do not include markdown formatting or explanations.");
+        sb.append(task);
         return sb.toString();
     }
 
-    private String callGemini(String promptText) {
-        int maxRetries = 2; // Total attempts = 1 + retries
-        
-        for (int attempt = 0; attempt <= maxRetries; attempt++) {
-            try {
-                log.info("Attempting to call Gemini via Spring AI (Attempt {})", attempt + 1);
-                
-                // Using Spring AI ChatClient as requested
-                return chatClient.prompt()
-                        .user(promptText)
-                        .call()
-                        .content();
-                        
-            } catch (Exception e) {
-                boolean isQuotaError = e.getMessage().contains("429") || 
-                                       e.getMessage().contains("Too Many Requests") ||
-                                       e.getMessage().contains("Quota exceeded");
-                
-                if (isQuotaError) {
-                    if (attempt < maxRetries) {
-                        long waitTime = (long) Math.pow(2, attempt) * 1000; // 1s, 2s
-                        log.warn("Quota exceeded. Retrying in {}ms...", waitTime);
-                        try { Thread.sleep(waitTime); } catch (InterruptedException ignored) {}
-                        continue; 
-                    } else {
-                        log.warn("Quota exceeded after {} retries.", maxRetries);
-                    }
-                } else {
-                    log.warn("Failed to call Gemini: {}", e.getMessage());
-                    break; // Break loop to try fallback logic (handled in getRecommendations)
-                }
+    private static List<String> historyLines(Map<String, Long> purchased) {
+        return purchased.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(e -> "- " + e.getKey() + " (x" + e.getValue() + ")\n")
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> catalogLines(List<ProductDto> products) {
+        return products.stream()
+                .map(p -> p.getId() + ": " + p.getName() + " - " + p.getCategory() + "\n")
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Appends lines in order until one does not fit the budget; returns how many were appended.
+     */
+    private static int appendWithin(StringBuilder sb, TokenBudget budget, List<String> lines) {
+        int appended = 0;
+        for (String line : lines) {
+            if (!budget.take(line)) {
+                break;
             }
+            sb.append(line);
+            appended++;
         }
-        
-        log.error("All Gemini model attempts failed.");
-        return "[]";
+        return appended;
     }
 
-    private List<ProductDto> parseRecommendations(String jsonResponse, List<ProductDto> catalog) {
+    /**
+     * Waits for the gateway's answer up to gemini.call-timeout-ms; "[]" (no ids) means use the fallback.
+     */
+    private String callGemini(String purpose, String promptText) {
+        try {
+            return geminiGateway.call(purpose, promptText).get(callTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Gemini did not answer within {}ms", callTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Failed to call Gemini: {}", e.getCause().getMessage());
+        }
+        return GeminiGateway.NO_ANSWER;
+    }
+
+    private List<ProductDto> parseRecommendations(String jsonResponse, CatalogReplica.Snapshot catalog) {
         try {
             Pattern arrayPattern = Pattern.compile("\\[(.*?)\\]");
             Matcher matcher = arrayPattern.matcher(jsonResponse);
@@ -270,14 +551,14 @@ public class GeminiService {
                 return Collections.emptyList();
             }
 
-            Set<Long> ids = Arrays.stream(idsString.split(","))
+            // Id lookups in the replica, in the order Gemini ranked them
+            return Arrays.stream(idsString.split(","))
                     .map(String::trim)
                     .filter(s -> s.matches("\\d+")) 
                     .map(Long::parseLong)
-                    .collect(Collectors.toSet());
-            
-            return catalog.stream()
-                    .filter(p -> ids.contains(p.getId()))
+                    .distinct()
+                    .map(catalog::byId)
+                    .filter(Objects::nonNull)
                     .collect(Collectors.toList());
 
         } catch (Exception e) {
@@ -289,122 +570,115 @@ public class GeminiService {
     // ========== SELLER RECOMMENDATIONS METHODS ==========
 
     /**
-     * Get top sold items for seller dashboard
-     * Analyzes actual order data to determine most popular products
-     * Requires seller context via authorization header
+     * Get top sold items for seller dashboard: exact units sold per product id, counted by
+     * order-service in one GROUP BY query, for {@code seller} (overall when null) over the last
+     * {@code days} days (all time when null). When order-service cannot answer, the trending
+     * counters stand in.
      */
-    public List<ProductDto> getTopSoldItems(int limit, String authHeader) {
-        List<Map<String, Object>> sales;  // Raw sales data (SaleLine format)
-        List<ProductDto> catalog;
-        
+    public List<ProductDto> getTopSoldItems(int limit, String seller, Integer days, String authHeader) {
+        String from = days == null ? null : LocalDate.now().minusDays(Math.max(1, days) - 1L).toString();
+        List<TopSoldDto> topSold;
         try {
-            // Get seller sales - returns one entry per product per order
-            sales = client.getSellerSales(authHeader);
-            catalog = client.getProducts();
+            topSold = client.getTopSold(authHeader, seller, null, from, limit);
         } catch (Exception e) {
-            log.error("Failed to fetch seller sales or products", e);
-            return Collections.emptyList();
+            log.warn("Failed to fetch top sold products, using trending counters: {}", e.getMessage());
+            return seller == null ? trending.overall(limit) : trending.forSeller(seller, limit);
         }
 
-        if (sales == null || sales.isEmpty() || catalog.isEmpty()) {
-            log.warn("No seller sales or catalog data available");
-            return Collections.emptyList();
-        }
-
-        // Count sales by product name
-        // The sales list contains one entry per product per order
-        Map<String, Long> salesCount = new HashMap<>();
-        for (Map<String, Object> sale : sales) {
-            // Extract productName from the SaleLine object
-            String productName = (String) sale.get("productName");
-            if (productName != null) {
-                salesCount.put(productName, salesCount.getOrDefault(productName, 0L) + 1);
-            }
-        }
-
-        log.info("Seller sales count by product: {}", salesCount);
-
-        // Filter catalog to only seller's products and sort by sales count (descending)
-        // Only include products that the seller has actually sold
-        return catalog.stream()
-                .filter(product -> salesCount.containsKey(product.getName()))  // Only seller's sold products
-                .map(product -> {
-                    // Get sales count for this product
-                    long count = salesCount.getOrDefault(product.getName(), 0L);
-                    return new SimpleEntry<>(product, count);
-                })
-                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue())) // Sort by sales descending
-                .map(SimpleEntry::getKey)
-                .limit(limit)
+        // Sold products still in the catalog, in sales order
+        CatalogReplica.Snapshot catalog = catalogReplica.snapshot();
+        return topSold == null ? Collections.emptyList() : topSold.stream()
+                .map(sold -> catalog.byId(sold.getProductId()))
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
     /**
      * AI-powered suggestion for seller to add new products
-     * Based on top-sold items, suggests complementary products
+     * Based on top-sold items, suggests complementary products that {@code seller} does not list
+     * yet (that nobody lists when null, for admins). The inventory comes from the catalog replica.
      */
-    public List<String> suggestNewProducts(List<ProductDto> topSoldItems, List<ProductDto> currentCatalog) {
-        if (topSoldItems.isEmpty() || currentCatalog.isEmpty()) {
+    public List<String> suggestNewProducts(List<ProductDto> topSoldItems, String seller) {
+        CatalogReplica.Snapshot snapshot = catalogReplica.snapshot();
+        List<ProductDto> inventory = seller == null ? snapshot.products() : snapshot.bySeller(seller);
+        if (topSoldItems.isEmpty() || inventory.isEmpty()) {
             log.warn("Cannot suggest products: empty input data");
             return fallbackProductSuggestions(topSoldItems);
         }
 
-        // Create cache key from top-sold items
-        String cacheKey = topSoldItems.stream()
+        // Create cache key from the seller and their top-sold items
+        String cacheKey = (seller == null ? "*" : seller.toLowerCase(Locale.ROOT)) + "|" + topSoldItems.stream()
                 .sorted(Comparator.comparing(p -> p.getId()))
                 .map(p -> p.getName())
                 .collect(Collectors.joining("|"));
 
-        if (sellerSuggestionsCache.containsKey(cacheKey)) {
-            log.info("Returning cached product suggestions for key: {}", cacheKey);
-            return sellerSuggestionsCache.get(cacheKey);
-        }
-
-        // Build prompt for AI
-        String prompt = buildSellerSuggestionsPrompt(topSoldItems, currentCatalog);
+        onAssortmentChange(snapshot);
+        return sellerSuggestionsCache.get(cacheKey, key -> {
+            // After a restart, the suggestions kept on disk if the assortment is the same
+            String storeKey = ResultStore.key("seller-suggestions", key);
+            ResultStore.Entry stored = resultStore.get(storeKey);
+            if (stored != null && stored.fingerprint() == snapshot.assortmentFingerprint()) {
+                return List.copyOf(ResultStore.decodeStrings(stored.value()));
+            }
 
-        // Call Gemini
-        String aiResponse = callGemini(prompt);
-        log.info("Gemini Seller Suggestions Response: {}", aiResponse);
+            // Build prompt for AI, with the part of the inventory near the best sellers
+            String prompt = buildSellerSuggestionsPrompt(topSoldItems,
+                    candidateGenerator.forSeller(topSoldItems, inventory));
 
-        // Parse response
-        List<String> suggestions = parseSellerSuggestions(aiResponse);
+            // Call Gemini
+            String aiResponse = callGemini("seller-suggestions", prompt);
+            log.info("Gemini Seller Suggestions Response: {}", aiResponse);
 
-        if (suggestions.isEmpty()) {
-            log.warn("Gemini returned no suggestions. Using fallback.");
-            suggestions = fallbackProductSuggestions(topSoldItems);
-        }
+            // Parse response; the prompt only listed part of the inventory, so drop what the seller already has
+            Set<String> stocked = inventory.stream()
+                    .map(p -> CatalogReplica.normalize(p.getName()))
+                    .collect(Collectors.toSet());
+            List<String> suggestions = parseSellerSuggestions(aiResponse).stream()
+                    .filter(s -> !stocked.contains(CatalogReplica.normalize(s)))
+                    .collect(Collectors.toList());
 
-        // Cache successful suggestions
-        sellerSuggestionsCache.put(cacheKey, suggestions);
-        return suggestions;
+            if (suggestions.isEmpty()) {
+                log.warn("Gemini returned no suggestions. Using fallback.");
+                return List.copyOf(fallbackProductSuggestions(topSoldItems));
+            }
+            resultStore.put(storeKey, snapshot.assortmentFingerprint(), ResultStore.encodeStrings(suggestions));
+            return List.copyOf(suggestions);
+        });
     }
 
     /**
-     * Build prompt for seller product suggestions
+     * Build prompt for seller product suggestions, within gemini.prompt.max-tokens
      */
-    private String buildSellerSuggestionsPrompt(List<ProductDto> topSoldItems, List<ProductDto> catalog) {
+    private String buildSellerSuggestionsPrompt(List<ProductDto> topSoldItems, List<ProductDto> inventory) {
+        String task = "\nTask: Suggest 3-5 NEW product names (NOT in current inventory) that would complement the seller's top-selling items.\n"
+                + "Consider:\n"
+                + "1. Products that pair well with current best sellers (e.g., if selling beef, suggest marinades, seasonings)\n"
+                + "2. Products within the same category that aren't yet stocked\n"
+                + "3. Complementary items from adjacent categories\n"
+                + "Format: Return ONLY a JSON array of product name suggestions. Example: [\"Product A\", \"Product B\", \"Product C\"]. Do not include markdown formatting or explanations.";
+        TokenBudget budget = new TokenBudget(promptMaxTokens);
+        budget.take(task);
+
         StringBuilder sb = new StringBuilder();
         sb.append("Role: You are a retail business expert and product strategist.\n");
         sb.append("Your seller's top-selling items (by sales volume):\n");
-        topSoldItems.forEach(item -> 
-            sb.append("- ").append(item.getName()).append(" (Category: ").append(item.getCategory()).append(")\n")
-        );
-
-        sb.append("\nCurrent inventory:\n");
-        catalog.forEach(p -> 
-            sb.append("- ").append(p.getName()).append(" (Category: ").append(p.getCategory()).append(")\n")
-        );
-
-        sb.append("\nTask: Suggest 3-5 NEW product names (NOT in current inventory) that would complement the seller's top-selling items.\n");
-        sb.append("Consider:\n");
-        sb.append("1. Products that pair well with current best sellers (e.g., if selling beef, suggest marinades, seasonings)\n");
-        sb.append("2. Products within the same category that aren't yet stocked\n");
-        sb.append("3. Complementary items from adjacent categories\n");
-        sb.append("Format: Return ONLY a JSON array of product name suggestions. Example: [\"Product A\", \"Product B\", \"Product C\"]. Do not include markdown formatting or explanations.");
+        budget.take(sb);
+        appendWithin(sb, budget, inventoryLines(topSoldItems));
+
+        sb.append("\nCurrent inventory in these and related categories:\n");
+        budget.take("\nCurrent inventory in these and related categories:\n");
+        appendWithin(sb, budget, inventoryLines(inventory));
+
+        sb.append(task);
         return sb.toString();
     }
 
+    private static List<String> inventoryLines(List<ProductDto> products) {
+        return products.stream()
+                .map(p -> "- " + p.getName() + " (Category: " + p.getCategory() + ")\n")
+                .collect(Collectors.toList());
+    }
+
     /**
      * Parse seller suggestions from AI response
      */
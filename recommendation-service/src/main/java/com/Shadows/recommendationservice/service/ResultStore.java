@@ -0,0 +1,388 @@
+package com.Shadows.recommendationservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Recommendation results kept on local disk, so a restarted instance answers from them instead
+ * of asking Gemini again.
+ *
+ * The store is an append-only log of records (key, assortment fingerprint, write time, value),
+ * each framed by its length and a CRC so a torn write at the end is dropped on load. An
+ * in-memory index maps each key to its latest record; values stay on disk and are read on
+ * lookup. Loading the index, appends and compaction all run on one background thread, so
+ * neither startup nor request threads wait for the disk: lookups just miss until the index is
+ * loaded. Compaction rewrites the live records (latest per key, younger than
+ * recommendations.store.ttl) to a new file once dead ones take more than half of the log.
+ */
+@Service
+public class ResultStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultStore.class);
+
+    /** Length and CRC of the payload */
+    private static final int HEADER = 8;
+    private static final int MAX_PAYLOAD = 1 << 20;
+    /** Logs smaller than this are not worth compacting */
+    private static final long MIN_COMPACT_BYTES = 1 << 20;
+
+    private final Path file;
+    private final long ttlMillis;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "result-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Null until loaded (or if the file cannot be opened); replaced by compaction */
+    private volatile Segment current;
+
+    public ResultStore(@Value("${recommendations.store.file:data/recommendations.log}") String file,
+                       @Value("${recommendations.store.ttl:P7D}") Duration ttl) {
+        this.file = Path.of(file);
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * A stored value and the assortment fingerprint it was computed from.
+     */
+    public record Entry(long fingerprint, byte[] value) {
+    }
+
+    private record Slot(long offset, int length, long writtenAt) {
+    }
+
+    /**
+     * The open log and its index. The channel is read from any thread, everything else is only
+     * touched by the worker thread.
+     */
+    private static final class Segment {
+        final FileChannel channel;
+        final Map<String, Slot> index = new ConcurrentHashMap<>();
+        long size;
+        long liveBytes;
+
+        Segment(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void index(String key, Slot slot) {
+            Slot previous = index.put(key, slot);
+            liveBytes += slot.length() - (previous == null ? 0 : previous.length());
+        }
+    }
+
+    @PostConstruct
+    void open() {
+        worker.execute(this::load);
+    }
+
+    private void load() {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            Segment segment = new Segment(channel);
+            long end = scan(segment);
+            if (end < channel.size()) {
+                log.warn("Dropping {} bytes of a torn record at the end of {}", channel.size() - end, file);
+                channel.truncate(end);
+            }
+            segment.size = end;
+            current = segment;
+            log.info("Result store {} loaded ({} results)", file, segment.index.size());
+        } catch (IOException e) {
+            log.warn("Result store {} unavailable, results are only kept in memory: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes every complete record and returns where the valid part of the log ends.
+     */
+    private static long scan(Segment segment) throws IOException {
+        long fileSize = segment.channel.size();
+        // Not closed: closing it would close the channel
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(segment.channel.position(0))));
+        long offset = 0;
+        while (true) {
+            int length;
+            int crc;
+            try {
+                length = in.readInt();
+                crc = in.readInt();
+            } catch (EOFException e) {
+                return offset;
+            }
+            if (length <= 0 || length > MAX_PAYLOAD || offset + HEADER + length > fileSize) {
+                return offset;
+            }
+            byte[] payload = in.readNBytes(length);
+            if (payload.length < length || checksum(payload) != crc) {
+                return offset;
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+            String key = record.readUTF();
+            record.readLong(); // fingerprint
+            segment.index(key, new Slot(offset, HEADER + length, record.readLong()));
+            offset += HEADER + length;
+        }
+    }
+
+    /**
+     * The latest value stored under {@code key}, or null (none, expired, or not loaded yet).
+     */
+    public Entry get(String key) {
+        Segment segment = current;
+        Slot slot = segment == null ? null : segment.index.get(key);
+        if (slot == null || isExpired(slot, System.currentTimeMillis())) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(slot.length());
+            while (buffer.hasRemaining()) {
+                if (segment.channel.read(buffer, slot.offset() + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+            buffer.flip();
+            byte[] payload = new byte[buffer.getInt()];
+            int crc = buffer.getInt();
+            buffer.get(payload);
+            if (checksum(payload) != crc) {
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            if (!key.equals(in.readUTF())) {
+                return null;
+            }
+            long fingerprint = in.readLong();
+            in.readLong(); // written at
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            return new Entry(fingerprint, value);
+        } catch (IOException e) {
+            // Includes a channel closed by a compaction that just finished
+            log.debug("Could not read {} from the result store: {}", key, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code value} under {@code key} in the background; dropped if the store is unavailable.
+     */
+    public void put(String key, long fingerprint, byte[] value) {
+        long writtenAt = System.currentTimeMillis();
+        byte[] payload;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + value.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(key);
+            out.writeLong(fingerprint);
+            out.writeLong(writtenAt);
+            out.writeInt(value.length);
+            out.write(value);
+            payload = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (payload.length > MAX_PAYLOAD) {
+            return;
+        }
+        worker.execute(() -> append(key, payload, writtenAt));
+    }
+
+    private void append(String key, byte[] payload, long writtenAt) {
+        Segment segment = current;
+        if (segment == null) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER + payload.length);
+        record.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        try {
+            long offset = segment.size;
+            while (record.hasRemaining()) {
+                segment.channel.write(record, offset + record.position());
+            }
+            segment.size += record.limit();
+            segment.index(key, new Slot(offset, record.limit(), writtenAt));
+        } catch (IOException e) {
+            log.warn("Could not append to result store {}: {}", file, e.toString());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recommendations.store.compact-interval-ms:600000}",
+            initialDelayString = "${recommendations.store.compact-interval-ms:600000}")
+    public void compact() {
+        worker.execute(this::compactNow);
+    }
+
+    private void compactNow() {
+        Segment segment = current;
+        if (segment == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        segment.index.entrySet().removeIf(e -> {
+            if (isExpired(e.getValue(), now)) {
+                segment.liveBytes -= e.getValue().length();
+                return true;
+            }
+            return false;
+        });
+        if (segment.size < MIN_COMPACT_BYTES || segment.liveBytes * 2 > segment.size) {
+            return;
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            // Live records copied in log order; the index is only swapped once the new file is in place
+            List<Map.Entry<String, Slot>> live = new ArrayList<>(segment.index.entrySet());
+            live.sort(Comparator.comparingLong(e -> e.getValue().offset()));
+            Map<String, Slot> moved = new LinkedHashMap<>();
+            long offset = 0;
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                for (Map.Entry<String, Slot> e : live) {
+                    Slot slot = e.getValue();
+                    long copied = 0;
+                    while (copied < slot.length()) {
+                        copied += segment.channel.transferTo(slot.offset() + copied, slot.length() - copied, out);
+                    }
+                    moved.put(e.getKey(), new Slot(offset, slot.length(), slot.writtenAt()));
+                    offset += slot.length();
+                }
+                out.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Segment compacted = new Segment(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            moved.forEach(compacted::index);
+            compacted.size = offset;
+            current = compacted;
+            log.info("Result store {} compacted from {} to {} bytes", file, segment.size, compacted.size);
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("Could not compact result store {}: {}", file, e.toString());
+        }
+    }
+
+    /**
+     * Stops the writer and closes the file; later calls do nothing.
+     */
+    @PreDestroy
+    synchronized void close() throws InterruptedException {
+        worker.shutdown();
+        worker.awaitTermination(5, TimeUnit.SECONDS);
+        Segment segment = current;
+        if (segment == null) {
+            return;
+        }
+        current = null;
+        try {
+            segment.channel.force(false);
+            segment.channel.close();
+        } catch (IOException e) {
+            // ClosedChannelException and friends carry no message
+            log.warn("Could not close result store {}: {}", file, e.toString());
+        }
+    }
+
+    private boolean isExpired(Slot slot, long now) {
+        return now - slot.writtenAt() > ttlMillis;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Fixed-size store key for a {@code signature} of any length: the namespace and a SHA-256 of it.
+     */
+    public static String key(String namespace, String signature) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(signature.getBytes(StandardCharsets.UTF_8));
+            return namespace + ":" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static byte[] encodeIds(long[] ids) {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * ids.length);
+        buffer.asLongBuffer().put(ids);
+        return buffer.array();
+    }
+
+    public static long[] decodeIds(byte[] value) {
+        long[] ids = new long[value.length / 8];
+        ByteBuffer.wrap(value).asLongBuffer().get(ids);
+        return ids;
+    }
+
+    public static byte[] encodeStrings(List<String> strings) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(strings.size());
+            for (String s : strings) {
+                out.writeUTF(s);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<String> decodeStrings(byte[] value) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+            int n = in.readInt();
+            List<String> strings = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                strings.add(in.readUTF());
+            }
+            return strings;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.client.OrderServiceClient;
+import com.Shadows.recommendationservice.model.BasketDto;
+import com.Shadows.recommendationservice.model.BasketFeedDto;
+import com.Shadows.recommendationservice.model.ProductDto;
+import com.Shadows.recommendationservice.util.CountMinSketch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * What sells now, overall, per seller and per category, from the paid basket feed.
+ *
+ * Units sold are counted with exponential decay (trending.half-life) in a count-min sketch, so
+ * the long tail costs a fixed amount of memory. Counts use forward decay: a sale at time t adds
+ * units * e^(lambda (t - landmark)), and every count is read back multiplied by
+ * e^(-lambda (now - landmark)). Decay is the same factor for everything, so each scope keeps a
+ * small top-K list that never needs re-sorting as time passes, and a lookup is O(K).
+ *
+ * State (sketch, top-K lists, feed cursor) is checkpointed to trending.checkpoint-file and
+ * reloaded at startup; without a checkpoint the feed is replayed from the start, which yields
+ * the same decayed counts since sales are weighed by their payment time.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    private static final int CHECKPOINT_MAGIC = 0x54524E44;
+    private static final int CHECKPOINT_FORMAT = 1;
+    /** Moves the landmark before e^(lambda (t - landmark)) gets anywhere near overflowing */
+    private static final double MAX_EXPONENT = 50;
+
+    private static final String OVERALL = "*";
+
+    private final OrderServiceClient client;
+    private final CatalogReplica catalogReplica;
+    private final int pageSize;
+    private final int topK;
+    private final long halfLifeMillis;
+    private final double lambda;
+    private final Path checkpointFile;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // Guarded by lock
+    private final CountMinSketch sketch;
+    private final Map<String, TopK> scopes = new HashMap<>();
+    private long landmark;
+    private long since;
+    private long afterId;
+    private boolean loaded;
+    private boolean dirty;
+
+    public TrendingService(OrderServiceClient client, CatalogReplica catalogReplica,
+                           @Value("${trending.half-life:P3D}") Duration halfLife,
+                           @Value("${trending.top-k:50}") int topK,
+                           @Value("${trending.sketch.depth:4}") int depth,
+                           @Value("${trending.sketch.width:4096}") int width,
+                           @Value("${trending.page-size:500}") int pageSize,
+                           @Value("${trending.checkpoint-file:data/trending.ckpt}") String checkpointFile) {
+        this.client = client;
+        this.catalogReplica = catalogReplica;
+        this.pageSize = pageSize;
+        this.topK = topK;
+        this.halfLifeMillis = halfLife.toMillis();
+        this.lambda = Math.log(2) / halfLifeMillis;
+        this.sketch = new CountMinSketch(depth, width);
+        this.checkpointFile = Path.of(checkpointFile);
+    }
+
+    @PostConstruct
+    void restore() {
+        if (!Files.exists(checkpointFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_FORMAT || in.readLong() != halfLifeMillis) {
+                log.info("Trending checkpoint {} is from another version or half-life, rebuilding", checkpointFile);
+                return;
+            }
+            long savedLandmark = in.readLong();
+            long savedSince = in.readLong();
+            long savedAfterId = in.readLong();
+            sketch.readFrom(in);
+            Map<String, TopK> savedScopes = new HashMap<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                TopK top = new TopK(topK);
+                int n = in.readInt();
+                for (int j = 0; j < n; j++) {
+                    top.offer(in.readLong(), in.readDouble());
+                }
+                savedScopes.put(key, top);
+            }
+            landmark = savedLandmark;
+            since = savedSince;
+            afterId = savedAfterId;
+            scopes.putAll(savedScopes);
+            loaded = true;
+            log.info("Trending restored from {} ({} scopes)", checkpointFile, scopes.size());
+        } catch (IOException e) {
+            log.warn("Could not read trending checkpoint {}, rebuilding: {}", checkpointFile, e.getMessage());
+            sketch.scale(0);
+            scopes.clear();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    /**
+     * Counts the baskets paid since the last sync; skipped when a sync is already running.
+     */
+    @Scheduled(fixedDelayString = "${trending.refresh-interval-ms:10000}",
+            initialDelayString = "${trending.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (!syncLock.tryLock()) {
+            return;
+        }
+        try {
+            BasketFeedDto page;
+            do {
+                page = client.getPaidBaskets(since, afterId, pageSize);
+                apply(page);
+            } while (page.isHasMore());
+        } catch (Exception e) {
+            log.warn("Trending refresh failed, will resume from the same point: {}", e.getMessage());
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void apply(BasketFeedDto page) {
+        CatalogReplica.Snapshot catalog = catalogReplica.snapshot();
+        lock.writeLock().lock();
+        try {
+            if (page.getBaskets() != null) {
+                for (BasketDto basket : page.getBaskets()) {
+                    record(basket, catalog);
+                }
+            }
+            // Cursor moves with the counts, so a checkpoint never counts a basket twice
+            since = page.getSince();
+            afterId = page.getAfterId();
+            loaded = true;
+            dirty |= page.getBaskets() != null && !page.getBaskets().isEmpty();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void record(BasketDto basket, CatalogReplica.Snapshot catalog) {
+        List<Long> ids = basket.getProductIds();
+        if (ids == null) {
+            return;
+        }
+        if (landmark == 0) {
+            landmark = basket.getPaidAt();
+        }
+        if (lambda * (basket.getPaidAt() - landmark) > MAX_EXPONENT) {
+            moveLandmark(basket.getPaidAt());
+        }
+        double weight = Math.exp(lambda * (basket.getPaidAt() - landmark));
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            List<Integer> quantities = basket.getQuantities();
+            int units = quantities != null && i < quantities.size() ? Math.max(1, quantities.get(i)) : 1;
+            double count = sketch.add(id, units * weight);
+
+            scope(OVERALL).offer(id, count);
+            ProductDto product = catalog.byId(id);
+            if (product != null) {
+                if (product.getAddedBy() != null) {
+                    scope(sellerKey(product.getAddedBy())).offer(id, count);
+                }
+                if (product.getCategory() != null) {
+                    scope(categoryKey(product.getCategory())).offer(id, count);
+                }
+            }
+        }
+    }
+
+    private void moveLandmark(long to) {
+        double factor = Math.exp(-lambda * (to - landmark));
+        sketch.scale(factor);
+        scopes.values().forEach(top -> top.scale(factor));
+        landmark = to;
+    }
+
+    private TopK scope(String key) {
+        return scopes.computeIfAbsent(key, k -> new TopK(topK));
+    }
+
+    /**
+     * Best sellers of the moment, most units (decayed) first.
+     */
+    public List<ProductDto> overall(int limit) {
+        return top(OVERALL, limit, p -> true);
+    }
+
+    public List<ProductDto> forSeller(String seller, int limit) {
+        return top(sellerKey(seller), limit, p -> p.getAddedBy() != null && p.getAddedBy().equalsIgnoreCase(seller));
+    }
+
+    public List<ProductDto> inCategory(String category, int limit) {
+        return top(categoryKey(category), limit, p -> category.equals(p.getCategory()));
+    }
+
+    /**
+     * True once state was restored or the feed was read at least once.
+     */
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<ProductDto> top(String key, int limit, Predicate<ProductDto> stillInScope) {
+        long[] ids;
+        lock.readLock().lock();
+        try {
+            TopK top = scopes.get(key);
+            if (top == null) {
+                return List.of();
+            }
+            ids = top.sortedIds();
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Products deleted or moved to another seller/category since they were counted are skipped
+        CatalogReplica.Snapshot catalog = catalogReplica.snapshot();
+        List<ProductDto> products = new ArrayList<>(Math.min(limit, ids.length));
+        for (long id : ids) {
+            ProductDto product = catalog.byId(id);
+            if (product != null && stillInScope.test(product)) {
+                products.add(product);
+                if (products.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return products;
+    }
+
+    @Scheduled(fixedDelayString = "${trending.checkpoint-interval-ms:60000}",
+            initialDelayString = "${trending.checkpoint-interval-ms:60000}")
+    public synchronized void checkpoint() {
+        Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            if (checkpointFile.getParent() != null) {
+                Files.createDirectories(checkpointFile.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_FORMAT);
+                out.writeLong(halfLifeMillis);
+                out.writeLong(landmark);
+                out.writeLong(since);
+                out.writeLong(afterId);
+                sketch.writeTo(out);
+                out.writeInt(scopes.size());
+                for (Map.Entry<String, TopK> scope : scopes.entrySet()) {
+                    out.writeUTF(scope.getKey());
+                    scope.getValue().writeTo(out);
+                }
+            }
+            Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Writers are held off by the read lock, so nothing was counted since
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Could not write trending checkpoint {}: {}", checkpointFile, e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        checkpoint();
+    }
+
+    private static String sellerKey(String seller) {
+        return "seller:" + seller.toLowerCase(Locale.ROOT);
+    }
+
+    private static String categoryKey(String category) {
+        return "category:" + category;
+    }
+
+    /**
+     * The {@code capacity} products with the highest counts of one scope, kept in plain arrays.
+     */
+    static final class TopK {
+        private final long[] ids;
+        private final double[] counts;
+        private int size;
+
+        TopK(int capacity) {
+            ids = new long[capacity];
+            counts = new double[capacity];
+        }
+
+        /**
+         * Records {@code id}'s current count; it enters the list if it beats the lowest one.
+         */
+        void offer(long id, double count) {
+            int min = 0;
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    counts[i] = count;
+                    return;
+                }
+                if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+            if (size < ids.length) {
+                ids[size] = id;
+                counts[size++] = count;
+            } else if (count > counts[min]) {
+                ids[min] = id;
+                counts[min] = count;
+            }
+        }
+
+        void scale(double factor) {
+            for (int i = 0; i < size; i++) {
+                counts[i] *= factor;
+            }
+        }
+
+        long[] sortedIds() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(counts[b], counts[a]));
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = ids[order[i]];
+            }
+            return sorted;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(ids[i]);
+                out.writeDouble(counts[i]);
+            }
+        }
+    }
+}
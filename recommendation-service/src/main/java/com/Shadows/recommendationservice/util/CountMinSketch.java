@@ -0,0 +1,107 @@
+package com.Shadows.recommendationservice.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Count-min sketch over long keys with double counts and conservative update: a fixed
+ * depth x width table that never under-estimates and only over-estimates on collisions.
+ * Not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private final int depth;
+    private final int width;
+    private final double[][] cells;
+
+    /**
+     * @param width rounded up to a power of two
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("depth must be between 1 and " + SEEDS.length);
+        }
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.cells = new double[depth][this.width];
+    }
+
+    /**
+     * Adds {@code amount} to {@code key} and returns its new estimate.
+     */
+    public double add(long key, double amount) {
+        double estimate = estimate(key) + amount;
+        for (int row = 0; row < depth; row++) {
+            int slot = slot(key, row);
+            if (cells[row][slot] < estimate) {
+                cells[row][slot] = estimate;
+            }
+        }
+        return estimate;
+    }
+
+    public double estimate(long key) {
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, cells[row][slot(key, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Multiplies every count by {@code factor}.
+     */
+    public void scale(double factor) {
+        for (double[] row : cells) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] *= factor;
+            }
+        }
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(depth);
+        out.writeInt(width);
+        for (double[] row : cells) {
+            for (double cell : row) {
+                out.writeDouble(cell);
+            }
+        }
+    }
+
+    /**
+     * Reads counts written by {@link #writeTo}; the dimensions must match this sketch's.
+     */
+    public void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != depth || in.readInt() != width) {
+            throw new IOException("Count-min sketch dimensions changed");
+        }
+        for (double[] row : cells) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = in.readDouble();
+            }
+        }
+    }
+
+    private int slot(long key, int row) {
+        long h = (key ^ SEEDS[row]) * 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= SEEDS[(row + 1) % SEEDS.length];
+        h ^= h >>> 29;
+        return (int) h & (width - 1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.Shadows.recommendationservice.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing int -> int map without boxing; keys must be >= 0. Slots can be walked with
+ * {@link #capacity()}, {@link #keyAt(int)} and {@link #valueAt(int)} without allocating.
+ * Not thread-safe.
+ */
+public final class IntIntHashMap {
+
+    /** Key of an empty slot */
+    public static final int FREE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public IntIntHashMap(int expected) {
+        allocate(LongIntHashMap.capacityFor(expected));
+    }
+
+    /**
+     * Adds {@code delta} to the value of {@code key} (0 when absent).
+     */
+    public void addTo(int key, int delta) {
+        int slot = slot(key);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > keys.length * 3 / 4) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    public int get(int key) {
+        int slot = slot(key);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Key in {@code slot}, or {@link #FREE}.
+     */
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public int valueAt(int slot) {
+        return values[slot];
+    }
+
+    private int slot(int key) {
+        return (int) LongIntHashMap.mix(key) & mask;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                addTo(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -1,13 +1,26 @@
 package com.Shadows.recommendationservice.util;
 
+import com.Shadows.jwtcommon.ForwardedIdentity;
+import com.Shadows.jwtcommon.TokenPrincipal;
+import com.Shadows.jwtcommon.TokenVerifier;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 
+/**
+ * Issues tokens; checks go through the shared {@link TokenVerifier}, so a token is verified
+ * once and validateToken / extractUsername / extractRole read the cached principal.
+ * With jwt.trust-gateway-headers the identity signed by the gateway is used when present.
+ */
 @Component
 public class JwtUtil {
 
@@ -17,64 +30,68 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private long expirationTime;
 
+    @Autowired
+    private TokenVerifier tokenVerifier;
+
+    @Autowired
+    private ForwardedIdentity forwardedIdentity;
+
+    /** Accept the signed identity headers added by the gateway instead of verifying the JWT again */
+    @Value("${jwt.trust-gateway-headers:false}")
+    private boolean trustGatewayHeaders;
+
+    private Key signingKey;
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+        if (signingKey == null) {
+            signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        }
+        return signingKey;
     }
 
     public String generateToken(String username, String role) {
+        return generateToken(username, role, expirationTime);
+    }
+
+    public String generateToken(String username, String role, long ttlMillis) {
         return Jwts.builder()
                 .setSubject(username)
                 .claim("role", role)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMillis))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    public Optional<TokenPrincipal> verify(String token) {
+        if (trustGatewayHeaders) {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes instanceof ServletRequestAttributes servlet) {
+                Optional<TokenPrincipal> forwarded = forwardedIdentity.verify(servlet.getRequest()::getHeader, token);
+                if (forwarded.isPresent()) {
+                    return forwarded;
+                }
+            }
+        }
+        return tokenVerifier.verify(token);
+    }
+
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).orElseThrow(() -> new JwtException("Invalid or expired token")).username();
     }
 
+    /**
+     * Validate token without username (for API endpoints that don't have username
+     * upfront)
+     */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verify(token).isPresent();
     }
 
     /**
      * Extract role from token
      */
     public String extractRole(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .get("role", String.class);
-        } catch (JwtException | IllegalArgumentException e) {
-            return null;
-        }
-    }
-
-    private boolean isTokenExpired(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration()
-                .before(new Date());
+        return verify(token).map(TokenPrincipal::role).orElse(null);
     }
-}
\ No newline at end of file
+}
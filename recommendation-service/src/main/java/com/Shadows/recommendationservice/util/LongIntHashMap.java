@@ -0,0 +1,91 @@
+package com.Shadows.recommendationservice.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing long -> int map without boxing; keys must not be Long.MIN_VALUE.
+ * Not thread-safe.
+ */
+public final class LongIntHashMap {
+
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public LongIntHashMap(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    /**
+     * The value for {@code key}, or {@code missing} when absent.
+     */
+    public int get(long key, int missing) {
+        int slot = slot(key);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missing;
+    }
+
+    public void put(long key, int value) {
+        int slot = slot(key);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * 3 / 4) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        return (int) mix(key) & mask;
+    }
+
+    static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    static int capacityFor(int expected) {
+        int capacity = 4;
+        while (capacity * 3 / 4 < expected) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,35 @@
+package com.Shadows.recommendationservice.util;
+
+/**
+ * Running token count for a prompt under construction, estimated at about four characters per
+ * token (close enough for English product names to keep a prompt under a limit). Not thread-safe.
+ */
+public final class TokenBudget {
+
+    private final int maxTokens;
+    private int used;
+
+    public TokenBudget(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public static int estimate(CharSequence text) {
+        return (text.length() + 3) / 4;
+    }
+
+    /**
+     * Counts {@code text} and returns true if it still fits, otherwise leaves the budget as it is.
+     */
+    public boolean take(CharSequence text) {
+        int tokens = estimate(text);
+        if (used + tokens > maxTokens) {
+            return false;
+        }
+        used += tokens;
+        return true;
+    }
+
+    public int used() {
+        return used;
+    }
+}
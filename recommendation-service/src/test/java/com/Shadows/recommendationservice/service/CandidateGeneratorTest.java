@@ -0,0 +1,104 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.model.ProductDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.Shadows.recommendationservice.service.CatalogReplicaTest.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CandidateGeneratorTest {
+
+    private final CatalogReplica catalogReplica = mock(CatalogReplica.class);
+    private final CoOccurrenceIndex coOccurrence = mock(CoOccurrenceIndex.class);
+    private final TrendingService trending = mock(TrendingService.class);
+
+    private CatalogReplica.Snapshot catalog;
+
+    @BeforeEach
+    void setUp() {
+        ProductDto yogurt = product(3, "Yogurt", "DAIRY_PRODUCTS", 0.8);
+        yogurt.setStatus("OUT_OF_STOCK");
+        catalog = CatalogReplica.Snapshot.of(1, 1, List.of(
+                product(1, "Milk", "DAIRY_PRODUCTS", 1.2),
+                product(2, "Cheese", "DAIRY_PRODUCTS", 4.0),
+                yogurt,
+                product(4, "Bread", "BAKERY", 0.9),
+                product(5, "Croissant", "BAKERY", 1.1),
+                product(6, "Water", "BEVERAGES", 0.5),
+                product(7, "Juice", "BEVERAGES", 2.0),
+                product(8, "Butter", "DAIRY_PRODUCTS", 2.5),
+                product(9, "Chips", "SNACKS", 1.5),
+                // The same item from another seller
+                product(10, "MILK ", "DAIRY_PRODUCTS", 1.1)));
+        when(catalogReplica.snapshot()).thenReturn(catalog);
+
+        when(coOccurrence.recommend(any(), any(), anyInt())).thenReturn(new long[]{4, 3});
+        when(trending.inCategory(eq("DAIRY_PRODUCTS"), anyInt())).thenReturn(List.of(catalog.byId(2L), catalog.byId(1L)));
+        when(trending.inCategory(eq("BAKERY"), anyInt())).thenReturn(List.of(catalog.byId(5L)));
+        when(trending.overall(anyInt())).thenReturn(List.of(catalog.byId(6L), catalog.byId(2L)));
+    }
+
+    @Test
+    void shopperShortlistGoesFromMostToLeastRelated() {
+        List<ProductDto> shortlist = generator(40).forShopper(Map.of("Milk", 2L), catalog);
+
+        // Co-purchased, trending in bought then adjacent categories, trending overall,
+        // the rest of the bought categories, then anything
+        assertEquals(List.of(4L, 2L, 5L, 6L, 8L, 7L, 9L), ids(shortlist));
+    }
+
+    @Test
+    void shopperShortlistSkipsWhatIsBoughtOrOutOfStock() {
+        List<ProductDto> shortlist = generator(40).forShopper(Map.of("milk", 1L), catalog);
+
+        assertTrue(ids(shortlist).stream().noneMatch(id -> id == 1L || id == 10L), "bought under another seller");
+        assertFalse(ids(shortlist).contains(3L), "out of stock");
+        assertEquals(shortlist.size(), ids(shortlist).stream().distinct().count());
+    }
+
+    @Test
+    void shopperShortlistStopsAtMaxCandidates() {
+        assertEquals(List.of(4L, 2L, 5L), ids(generator(3).forShopper(Map.of("Milk", 2L), catalog)));
+    }
+
+    @Test
+    void newShopperGetsBestSellersThenTheCatalog() {
+        when(coOccurrence.recommend(any(), any(), anyInt())).thenReturn(new long[0]);
+
+        // Nothing bought: best sellers, then the catalog in id order
+        assertEquals(List.of(6L, 2L, 1L, 4L), ids(generator(4).forShopper(Map.of(), catalog)));
+    }
+
+    @Test
+    void sellerShortlistKeepsTheirInventoryInRelatedCategories() {
+        when(coOccurrence.recommend(any(), any(), anyInt())).thenReturn(new long[]{4});
+        List<ProductDto> inventory = List.of(
+                product(11, "Crisps", "SNACKS", 1.0),
+                product(12, "Baguette", "BAKERY", 1.0),
+                product(13, "Cream", "DAIRY_PRODUCTS", 1.0),
+                product(14, "Kefir", "DAIRY_PRODUCTS", 1.0));
+        List<ProductDto> topSold = List.of(catalog.byId(2L));
+
+        // Their category first, then the one of what is bought with their best seller
+        assertEquals(List.of(13L, 14L, 12L), ids(generator(40).forSeller(topSold, inventory)));
+        assertEquals(List.of(13L, 14L), ids(generator(2).forSeller(topSold, inventory)));
+        assertTrue(generator(40).forSeller(List.of(), inventory).isEmpty());
+    }
+
+    private CandidateGenerator generator(int maxCandidates) {
+        return new CandidateGenerator(catalogReplica, coOccurrence, trending, maxCandidates);
+    }
+
+    private static List<Long> ids(List<ProductDto> products) {
+        return products.stream().map(ProductDto::getId).toList();
+    }
+}
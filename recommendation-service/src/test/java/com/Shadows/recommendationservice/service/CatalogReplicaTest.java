@@ -0,0 +1,188 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.client.OrderServiceClient;
+import com.Shadows.recommendationservice.model.CatalogChangeDto;
+import com.Shadows.recommendationservice.model.CatalogFeedDto;
+import com.Shadows.recommendationservice.model.ProductDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogReplicaTest {
+
+    private final OrderServiceClient client = mock(OrderServiceClient.class);
+    private final CatalogReplica replica = new CatalogReplica(client, 2);
+
+    @Test
+    void firstSyncPullsTheWholeFeedPageByPage() {
+        CatalogChangeDto milk = upsert(1, "Whole Milk", "DAIRY_PRODUCTS", 1.2);
+        CatalogChangeDto otherMilk = upsert(3, "whole milk", "DAIRY_PRODUCTS", 1.1);
+        milk.getProduct().setAddedBy("alice");
+        otherMilk.getProduct().setAddedBy("Alice");
+        when(client.getCatalogChanges(0L, 2)).thenReturn(page(2, true, milk, upsert(2, "Bread", "BAKERY", 0.9)));
+        when(client.getCatalogChanges(2L, 2)).thenReturn(page(3, false, otherMilk));
+
+        CatalogReplica.Snapshot snapshot = replica.snapshot();
+
+        assertTrue(snapshot.isLoaded());
+        assertEquals(3, snapshot.version());
+        assertEquals(List.of(1L, 2L, 3L), snapshot.products().stream().map(ProductDto::getId).toList());
+        assertEquals("Bread", snapshot.byId(2L).getName());
+        // Two sellers list the same name; lookups ignore case and extra spaces
+        assertEquals(2, snapshot.byName("  WHOLE   milk ").size());
+        assertEquals(1L, snapshot.firstByName("whole milk").getId());
+        assertEquals(2, snapshot.inCategory("DAIRY_PRODUCTS").size());
+        assertTrue(snapshot.inCategory("BEVERAGES").isEmpty());
+        assertEquals(List.of(1L, 3L), snapshot.bySeller("ALICE").stream().map(ProductDto::getId).toList());
+        assertTrue(snapshot.bySeller("carol").isEmpty());
+        assertTrue(snapshot.bySeller(null).isEmpty());
+    }
+
+    @Test
+    void refreshAppliesOnlyTheChangesAndPublishesANewSnapshot() {
+        when(client.getCatalogChanges(0L, 2)).thenReturn(page(2, false,
+                upsert(1, "Milk", "DAIRY_PRODUCTS", 1.2), upsert(2, "Bread", "BAKERY", 0.9)));
+        CatalogReplica.Snapshot before = replica.snapshot();
+
+        when(client.getCatalogChanges(2L, 2)).thenReturn(page(4, false,
+                upsert(1, "Milk", "DAIRY_PRODUCTS", 1.5), delete(2)));
+        replica.refresh();
+        CatalogReplica.Snapshot after = replica.snapshot();
+
+        assertEquals(4, after.version());
+        assertEquals(1.5, after.byId(1L).getPrice());
+        assertNull(after.byId(2L));
+        assertTrue(after.inCategory("BAKERY").isEmpty());
+        // Readers holding the old snapshot keep a consistent view
+        assertEquals(2, before.version());
+        assertEquals(1.2, before.byId(1L).getPrice());
+        assertNotNull(before.byId(2L));
+
+        // Nothing new: the same snapshot stays published
+        when(client.getCatalogChanges(4L, 2)).thenReturn(page(4, false));
+        replica.refresh();
+        assertSame(after, replica.snapshot());
+    }
+
+    @Test
+    void resetRebuildsTheReplicaFromScratch() {
+        when(client.getCatalogChanges(0L, 2)).thenReturn(page(2, false,
+                upsert(1, "Milk", "DAIRY_PRODUCTS", 1.2), upsert(2, "Bread", "BAKERY", 0.9)));
+        replica.snapshot();
+
+        // The feed compacted past version 2: deletions in between are gone from its history
+        CatalogFeedDto reset = new CatalogFeedDto();
+        reset.setReset(true);
+        when(client.getCatalogChanges(2L, 2)).thenReturn(reset);
+        when(client.getCatalogChanges(0L, 2)).thenReturn(page(9, false, upsert(1, "Milk", "DAIRY_PRODUCTS", 1.2)));
+        replica.refresh();
+
+        CatalogReplica.Snapshot snapshot = replica.snapshot();
+        assertEquals(9, snapshot.version());
+        assertEquals(List.of(1L), snapshot.products().stream().map(ProductDto::getId).toList());
+    }
+
+    @Test
+    void unreachableOrderServiceGivesAnEmptyCatalogUntilASyncSucceeds() {
+        when(client.getCatalogChanges(anyLong(), anyInt())).thenThrow(new IllegalStateException("down"));
+
+        CatalogReplica.Snapshot snapshot = replica.snapshot();
+        assertFalse(snapshot.isLoaded());
+        assertTrue(snapshot.isEmpty());
+
+        doReturn(page(1, false, upsert(1, "Milk", "DAIRY_PRODUCTS", 1.2))).when(client).getCatalogChanges(anyLong(), anyInt());
+        assertEquals(1, replica.snapshot().products().size());
+    }
+
+    @Test
+    void assortmentVersionOnlyMovesWhenTheListingChanges() {
+        when(client.getCatalogChanges(0L, 2)).thenReturn(page(2, false,
+                upsert(1, "Milk", "DAIRY_PRODUCTS", 1.2), upsert(2, "Bread", "BAKERY", 0.9)));
+        CatalogReplica.Snapshot first = replica.snapshot();
+        assertEquals(1, first.assortmentVersion());
+
+        // Price and stock updates keep the assortment (and cached recommendations) as they are
+        when(client.getCatalogChanges(2L, 2)).thenReturn(page(3, false, upsert(1, "Milk", "DAIRY_PRODUCTS", 1.5)));
+        replica.refresh();
+        CatalogReplica.Snapshot repriced = replica.snapshot();
+        assertEquals(3, repriced.version());
+        assertEquals(first.assortmentVersion(), repriced.assortmentVersion());
+        assertEquals(first.assortmentFingerprint(), repriced.assortmentFingerprint());
+
+        // A rename, a new product and a removal each move it once per sync
+        when(client.getCatalogChanges(3L, 2)).thenReturn(page(4, false, upsert(2, "Rye Bread", "BAKERY", 0.9)));
+        replica.refresh();
+        assertEquals(2, replica.snapshot().assortmentVersion());
+        when(client.getCatalogChanges(4L, 2)).thenReturn(page(6, false,
+                upsert(3, "Water", "BEVERAGES", 0.5), delete(1)));
+        replica.refresh();
+        assertEquals(3, replica.snapshot().assortmentVersion());
+        assertNotEquals(first.assortmentFingerprint(), replica.snapshot().assortmentFingerprint());
+
+        // Deleting a product the replica never had is not an assortment change
+        when(client.getCatalogChanges(6L, 2)).thenReturn(page(7, false, delete(42)));
+        replica.refresh();
+        assertEquals(3, replica.snapshot().assortmentVersion());
+    }
+
+    @Test
+    void assortmentFingerprintIsTheSameAcrossReplicasOfTheSameListing() {
+        when(client.getCatalogChanges(0L, 2)).thenReturn(page(5, false,
+                upsert(2, "Bread", "BAKERY", 0.9), upsert(1, "Milk", "DAIRY_PRODUCTS", 1.2)));
+        CatalogReplica.Snapshot snapshot = replica.snapshot();
+
+        // Another instance (or this one after a restart) sees the same products in another order and price
+        OrderServiceClient otherClient = mock(OrderServiceClient.class);
+        when(otherClient.getCatalogChanges(0L, 2)).thenReturn(page(8, false,
+                upsert(1, "Milk", "DAIRY_PRODUCTS", 2.0), upsert(2, "Bread", "BAKERY", 0.9)));
+        CatalogReplica.Snapshot other = new CatalogReplica(otherClient, 2).snapshot();
+
+        assertEquals(snapshot.assortmentFingerprint(), other.assortmentFingerprint());
+        assertNotEquals(0L, snapshot.assortmentFingerprint());
+    }
+
+    @Test
+    void normalizeCollapsesCaseAndWhitespace() {
+        assertEquals("whole milk", CatalogReplica.normalize("  Whole \t MILK "));
+        assertEquals("", CatalogReplica.normalize(null));
+    }
+
+    static CatalogFeedDto page(long version, boolean hasMore, CatalogChangeDto... changes) {
+        CatalogFeedDto page = new CatalogFeedDto();
+        page.setVersion(version);
+        page.setHasMore(hasMore);
+        page.setChanges(List.of(changes));
+        return page;
+    }
+
+    static CatalogChangeDto upsert(long id, String name, String category, double price) {
+        CatalogChangeDto change = new CatalogChangeDto();
+        change.setProductId(id);
+        change.setProduct(product(id, name, category, price));
+        return change;
+    }
+
+    static CatalogChangeDto delete(long id) {
+        CatalogChangeDto change = new CatalogChangeDto();
+        change.setProductId(id);
+        change.setDeleted(true);
+        return change;
+    }
+
+    static ProductDto product(long id, String name, String category, double price) {
+        ProductDto p = new ProductDto();
+        p.setId(id);
+        p.setName(name);
+        p.setCategory(category);
+        p.setPrice(price);
+        p.setStatus("AVAILABLE");
+        return p;
+    }
+}
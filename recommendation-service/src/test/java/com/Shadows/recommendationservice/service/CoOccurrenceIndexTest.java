@@ -0,0 +1,103 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.client.OrderServiceClient;
+import com.Shadows.recommendationservice.model.BasketDto;
+import com.Shadows.recommendationservice.model.BasketFeedDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoOccurrenceIndexTest {
+
+    private static final long MILK = 1, BREAD = 2, WATER = 3, CHIPS = 4;
+
+    @Test
+    void cosineKeepsBestSellersFromCrowdingOutRealPairs() {
+        List<BasketDto> baskets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            baskets.add(basket(MILK, BREAD));
+            baskets.add(basket(MILK, WATER));
+        }
+        // Water is in every other basket too
+        for (int i = 0; i < 20; i++) {
+            baskets.add(basket(WATER, CHIPS));
+        }
+        CoOccurrenceIndex index = indexOf(50, baskets);
+
+        // Same co-purchase count, but bread is far more specific to milk than water
+        assertArrayEquals(new long[]{BREAD, WATER}, index.alsoBought(MILK, 5));
+        assertArrayEquals(new long[]{BREAD}, index.alsoBought(MILK, 1));
+        assertEquals(0, index.alsoBought(42, 5).length);
+        assertEquals(26, index.basketCount());
+    }
+
+    @Test
+    void seedsAreNeverRecommended() {
+        CoOccurrenceIndex index = indexOf(50, List.of(
+                basket(MILK, BREAD, WATER),
+                basket(MILK, BREAD),
+                basket(BREAD, CHIPS)));
+
+        long[] result = index.recommend(new long[]{MILK, BREAD}, null, 10);
+        assertEquals(2, result.length);
+        assertTrue(Arrays.stream(result).noneMatch(id -> id == MILK || id == BREAD));
+
+        // Water is next to both seeds, chips only to bread
+        assertArrayEquals(new long[]{WATER, CHIPS}, result);
+        assertArrayEquals(new long[]{CHIPS}, index.recommend(new long[]{MILK, BREAD, WATER}, new float[]{5f, 1f, 1f}, 10));
+        assertEquals(0, index.recommend(new long[]{MILK}, null, 0).length);
+    }
+
+    @Test
+    void growsPastTheInitialCapacity() {
+        List<BasketDto> baskets = new ArrayList<>();
+        for (long id = 0; id < 1500; id++) {
+            baskets.add(basket(id, id + 1));
+        }
+        CoOccurrenceIndex index = indexOf(50, baskets);
+
+        assertEquals(1501, index.size());
+        long[] neighbours = index.alsoBought(1400, 5);
+        Arrays.sort(neighbours);
+        assertArrayEquals(new long[]{1399, 1401}, neighbours);
+        assertArrayEquals(new long[]{1499}, index.alsoBought(1500, 5));
+    }
+
+    @Test
+    void largeBasketsAreCappedAtMaxBasketItems() {
+        CoOccurrenceIndex index = indexOf(3, List.of(basket(1, 2, 3, 4, 5)));
+
+        assertEquals(3, index.size());
+        long[] neighbours = index.alsoBought(1, 10);
+        Arrays.sort(neighbours);
+        assertArrayEquals(new long[]{2, 3}, neighbours);
+        assertEquals(0, index.alsoBought(5, 10).length);
+    }
+
+    private static CoOccurrenceIndex indexOf(int maxBasketItems, List<BasketDto> baskets) {
+        BasketFeedDto feed = new BasketFeedDto();
+        feed.setBaskets(baskets);
+        feed.setSince(1);
+        feed.setAfterId(baskets.size());
+        OrderServiceClient client = mock(OrderServiceClient.class);
+        when(client.getPaidBaskets(anyLong(), anyLong(), anyInt())).thenReturn(feed);
+
+        CoOccurrenceIndex index = new CoOccurrenceIndex(client, 500, maxBasketItems);
+        index.refresh();
+        return index;
+    }
+
+    private static BasketDto basket(long... productIds) {
+        BasketDto basket = new BasketDto();
+        basket.setProductIds(Arrays.stream(productIds).boxed().toList());
+        return basket;
+    }
+}
@@ -0,0 +1,174 @@
+package com.Shadows.recommendationservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GeminiGatewayTest {
+
+    private final ChatClient chatClient = mock(ChatClient.class);
+    private final ChatClient.ChatClientRequestSpec request = mock(ChatClient.ChatClientRequestSpec.class);
+    private final ChatClient.CallResponseSpec response = mock(ChatClient.CallResponseSpec.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+    private GeminiGateway gateway;
+
+    @BeforeEach
+    void stubChatClient() {
+        when(chatClient.prompt()).thenReturn(request);
+        when(request.user(anyString())).thenReturn(request);
+        when(request.call()).thenReturn(response);
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (gateway != null) {
+            gateway.shutdown();
+        }
+    }
+
+    @Test
+    void identicalPromptsInFlightShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        answer(() -> {
+            release.await();
+            return "[1]";
+        });
+        gateway = gateway(4, 6000, 10, 2, 1000, 100);
+
+        CompletableFuture<String> first = gateway.call("recommend", "same prompt");
+        CompletableFuture<String> second = gateway.call("recommend", "same prompt");
+        CompletableFuture<String> other = gateway.call("recommend", "other prompt");
+        assertSame(first, second);
+        assertNotSame(first, other);
+
+        release.countDown();
+        assertEquals("[1]", first.get(5, TimeUnit.SECONDS));
+        assertEquals("[1]", other.get(5, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+
+        // Once answered, the same prompt is a new call
+        assertEquals("[1]", gateway.call("recommend", "same prompt").get(5, TimeUnit.SECONDS));
+        assertEquals(3, calls.get());
+        assertEquals(3, meterRegistry.get("gemini.prompt.tokens").tag("purpose", "recommend").summary().count());
+    }
+
+    @Test
+    void quotaErrorsAreRetriedAfterABackoff() throws Exception {
+        answer(() -> {
+            if (calls.get() == 1) {
+                throw new IllegalStateException("429 Too Many Requests");
+            }
+            return "[7]";
+        });
+        gateway = gateway(4, 6000, 10, 2, 200, 100);
+
+        long start = System.nanoTime();
+        assertEquals("[7]", gateway.call("rerank", "prompt").get(5, TimeUnit.SECONDS));
+        // 200ms with at most 20% jitter either way
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 160);
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.get("gemini.call").tag("outcome", "quota").timer().count());
+        assertEquals(1, meterRegistry.get("gemini.call").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void failuresAnswerWithNoIds() throws Exception {
+        answer(() -> {
+            throw new IllegalStateException("Quota exceeded");
+        });
+        gateway = gateway(4, 6000, 10, 1, 10, 100);
+        assertEquals(GeminiGateway.NO_ANSWER, gateway.call("recommend", "prompt").get(5, TimeUnit.SECONDS));
+        // One retry, then give up
+        assertEquals(2, calls.get());
+
+        calls.set(0);
+        answer(() -> {
+            throw new IllegalStateException("boom");
+        });
+        assertEquals(GeminiGateway.NO_ANSWER, gateway.call("recommend", "another prompt").get(5, TimeUnit.SECONDS));
+        // Not a quota error: no retry
+        assertEquals(1, calls.get());
+        assertEquals(1, meterRegistry.get("gemini.call").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void saturatedGatewayFailsFast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        answer(() -> {
+            release.await();
+            return "[1]";
+        });
+        gateway = gateway(4, 6000, 10, 2, 1000, 1);
+
+        CompletableFuture<String> pending = gateway.call("recommend", "first");
+        CompletableFuture<String> rejected = gateway.call("recommend", "second");
+        assertTrue(rejected.isDone());
+        assertEquals(GeminiGateway.NO_ANSWER, rejected.get());
+
+        release.countDown();
+        assertEquals("[1]", pending.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void callsBeyondTheBurstWaitForTheRateWithoutBlockingTheCaller() throws Exception {
+        answer(() -> "[1]");
+        // One call at once, then one every 100ms
+        gateway = gateway(4, 600, 1, 2, 1000, 100);
+
+        long start = System.nanoTime();
+        CompletableFuture<String> first = gateway.call("recommend", "a");
+        CompletableFuture<String> second = gateway.call("recommend", "b");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 80);
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 80);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void tokenBucketHandsOutTheBurstThenTheWaitForTheNextToken() {
+        // 2 at once, then one per 100ms
+        GeminiGateway.TokenBucket bucket = new GeminiGateway.TokenBucket(2, 1.0 / TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertEquals(0, bucket.tryAcquire());
+        assertEquals(0, bucket.tryAcquire());
+        long wait = bucket.tryAcquire();
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(50) && wait <= TimeUnit.MILLISECONDS.toNanos(100), "wait " + wait);
+    }
+
+    private GeminiGateway gateway(int maxConcurrent, double requestsPerMinute, int burst,
+                                  int maxRetries, long initialBackoffMs, int maxPending) {
+        ChatClient.Builder builder = mock(ChatClient.Builder.class);
+        when(builder.build()).thenReturn(chatClient);
+        return new GeminiGateway(builder, meterRegistry, maxConcurrent, requestsPerMinute, burst,
+                maxRetries, initialBackoffMs, maxPending);
+    }
+
+    private void answer(Answer answer) {
+        doAnswer(invocation -> {
+            calls.incrementAndGet();
+            return answer.get();
+        }).when(response).content();
+    }
+
+    @FunctionalInterface
+    private interface Answer {
+        String get() throws Exception;
+    }
+}
@@ -0,0 +1,160 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.client.OrderServiceClient;
+import com.Shadows.recommendationservice.model.OrderSummaryDto;
+import com.Shadows.recommendationservice.model.ProductDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.Shadows.recommendationservice.service.CatalogReplicaTest.product;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GeminiServiceTest {
+
+    private final OrderServiceClient client = mock(OrderServiceClient.class);
+    private final CatalogReplica catalogReplica = mock(CatalogReplica.class);
+    private final GeminiGateway geminiGateway = mock(GeminiGateway.class);
+    private final CoOccurrenceIndex coOccurrence = mock(CoOccurrenceIndex.class);
+    private final CandidateGenerator candidateGenerator = mock(CandidateGenerator.class);
+    private final ResultStore resultStore = mock(ResultStore.class);
+
+    private final List<ProductDto> products = new ArrayList<>(List.of(
+            product(1, "Milk", "DAIRY_PRODUCTS", 1.2),
+            product(2, "Cheese", "DAIRY_PRODUCTS", 4.0),
+            product(3, "Bread", "BAKERY", 0.9),
+            product(4, "Water", "BEVERAGES", 0.5)));
+
+    @BeforeEach
+    void setUp() {
+        OrderSummaryDto order = new OrderSummaryDto();
+        order.setProductNames(List.of("Milk (x2)"));
+        when(client.getMyOrders()).thenReturn(List.of(order));
+        publishCatalog(1);
+        when(coOccurrence.recommend(any(), any(), anyInt())).thenReturn(new long[0]);
+        when(candidateGenerator.forShopper(any(), any())).thenAnswer(invocation -> products);
+        answer("[4]");
+    }
+
+    @Test
+    void firstCallFallsBackThenTheComputedAnswerIsFresh() {
+        GeminiService service = service(false);
+
+        GeminiService.Recommendations first = service.getRecommendationsNow();
+        assertEquals(GeminiService.Freshness.FALLBACK, first.freshness());
+        // Category picks, the most bought item first
+        assertEquals(3, first.products().size());
+        assertEquals(1L, first.products().get(0).getId());
+
+        GeminiService.Recommendations fresh = awaitFresh(service);
+        assertEquals(List.of(1L, 4L), ids(fresh));
+        verify(resultStore, atLeastOnce()).put(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void assortmentChangeServesTheOldAnswerStaleWhileItIsRecomputed() {
+        GeminiService service = service(false);
+        service.getRecommendationsNow();
+        awaitFresh(service);
+
+        products.add(product(5, "Juice", "BEVERAGES", 2.0));
+        publishCatalog(2);
+        answer("[5]");
+
+        GeminiService.Recommendations stale = service.getRecommendationsNow();
+        assertEquals(GeminiService.Freshness.STALE, stale.freshness());
+        assertEquals(List.of(1L, 4L), ids(stale));
+
+        assertEquals(List.of(1L, 5L), ids(awaitFresh(service)));
+    }
+
+    @Test
+    void coPurchasePicksAreFreshUnlessGeminiReranksThem() {
+        when(coOccurrence.recommend(any(), any(), anyInt())).thenReturn(new long[]{3});
+
+        GeminiService.Recommendations local = service(false).getRecommendationsNow();
+        assertEquals(GeminiService.Freshness.FRESH, local.freshness());
+        assertEquals(List.of(1L, 3L), ids(local));
+
+        // With re-ranking on they are only a stand-in for Gemini's order
+        assertEquals(GeminiService.Freshness.FALLBACK, service(true).getRecommendationsNow().freshness());
+    }
+
+    @Test
+    void resultKeptOnDiskIsFreshOnlyForTheSameAssortment() {
+        long fingerprint = catalogReplica.snapshot().assortmentFingerprint();
+        when(resultStore.get(anyString())).thenReturn(new ResultStore.Entry(fingerprint, ResultStore.encodeIds(new long[]{1, 2})));
+
+        GeminiService.Recommendations restored = service(false).getRecommendationsNow();
+        assertEquals(GeminiService.Freshness.FRESH, restored.freshness());
+        assertEquals(List.of(1L, 2L), ids(restored));
+        verify(geminiGateway, never()).call(anyString(), anyString());
+
+        // Written for another assortment: served, but stale
+        when(resultStore.get(anyString())).thenReturn(new ResultStore.Entry(fingerprint + 1, ResultStore.encodeIds(new long[]{1, 2})));
+        assertEquals(GeminiService.Freshness.STALE, service(false).getRecommendationsNow().freshness());
+    }
+
+    @Test
+    void emptyCatalogOrHistoryGivesNothing() {
+        when(client.getMyOrders()).thenReturn(List.of());
+        GeminiService.Recommendations none = service(false).getRecommendationsNow();
+        assertTrue(none.products().isEmpty());
+        assertEquals(GeminiService.Freshness.FRESH, none.freshness());
+    }
+
+    @Test
+    void sellerSuggestionsSkipWhatThatSellerAlreadyLists() {
+        products.forEach(p -> p.setAddedBy(p.getId() <= 2 ? "alice" : "bob"));
+        publishCatalog(1);
+        answer("[\"Cheese\", \"Bread\", \"Butter\"]");
+        List<ProductDto> topSold = List.of(products.get(0));
+
+        // Bread is bob's: still new for alice
+        assertEquals(List.of("Bread", "Butter"), service(false).suggestNewProducts(topSold, "Alice"));
+        verify(candidateGenerator).forSeller(topSold, List.of(products.get(0), products.get(1)));
+
+        // Admins see the whole shop as stocked
+        assertEquals(List.of("Butter"), service(false).suggestNewProducts(topSold, null));
+    }
+
+    private GeminiService service(boolean rerankWithGemini) {
+        return new GeminiService(geminiGateway, client, catalogReplica, coOccurrence, mock(TrendingService.class),
+                candidateGenerator, resultStore, new SimpleMeterRegistry(), 1500, 5000, 10, rerankWithGemini,
+                1000, Duration.ofHours(6), Duration.ofMinutes(30), 2);
+    }
+
+    private void publishCatalog(long assortmentVersion) {
+        CatalogReplica.Snapshot snapshot = CatalogReplica.Snapshot.of(assortmentVersion * 10, assortmentVersion, products);
+        when(catalogReplica.snapshot()).thenReturn(snapshot);
+    }
+
+    private void answer(String answer) {
+        when(geminiGateway.call(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(answer));
+    }
+
+    private static GeminiService.Recommendations awaitFresh(GeminiService service) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            GeminiService.Recommendations recommendations = service.getRecommendationsNow();
+            if (recommendations.freshness() == GeminiService.Freshness.FRESH) {
+                return recommendations;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return fail("No fresh answer within 5s");
+    }
+
+    private static List<Long> ids(GeminiService.Recommendations recommendations) {
+        return recommendations.products().stream().map(ProductDto::getId).toList();
+    }
+}
@@ -0,0 +1,196 @@
+package com.Shadows.recommendationservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<ResultStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() throws InterruptedException {
+        for (ResultStore store : opened) {
+            store.close();
+        }
+    }
+
+    @Test
+    void resultsSurviveARestart() throws Exception {
+        ResultStore store = open(Duration.ofDays(7));
+        store.put("a", 11, ResultStore.encodeIds(new long[]{1, 2, 3}));
+        store.put("b", 12, ResultStore.encodeStrings(List.of("Milk", "Bread")));
+        store.put("a", 13, ResultStore.encodeIds(new long[]{4}));
+        await(store, "b");
+        assertNull(store.get("missing"));
+        store.close();
+        // Closed for good; closing again (closeAll) does nothing
+        assertNull(store.get("b"));
+
+        ResultStore restarted = open(Duration.ofDays(7));
+        ResultStore.Entry a = await(restarted, "a");
+        assertEquals(13, a.fingerprint());
+        assertArrayEquals(new long[]{4}, ResultStore.decodeIds(a.value()));
+        assertEquals(List.of("Milk", "Bread"), ResultStore.decodeStrings(restarted.get("b").value()));
+    }
+
+    @Test
+    void tornRecordAtTheEndIsDropped() throws Exception {
+        ResultStore store = open(Duration.ofDays(7));
+        store.put("a", 1, ResultStore.encodeIds(new long[]{1}));
+        store.put("b", 2, ResultStore.encodeIds(new long[]{2}));
+        await(store, "b");
+        store.close();
+        long size = Files.size(file());
+
+        // A crash half-way through the next append: the header promises more than was written
+        Files.write(file(), new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+
+        ResultStore restarted = open(Duration.ofDays(7));
+        assertArrayEquals(new long[]{2}, ResultStore.decodeIds(await(restarted, "b").value()));
+        assertArrayEquals(new long[]{1}, ResultStore.decodeIds(restarted.get("a").value()));
+        assertEquals(size, Files.size(file()));
+
+        // Appends carry on from the end of the last complete record
+        restarted.put("c", 3, ResultStore.encodeIds(new long[]{3}));
+        await(restarted, "c");
+        restarted.close();
+        assertNotNull(await(open(Duration.ofDays(7)), "c"));
+    }
+
+    @Test
+    void recordFailingItsChecksumEndsTheLog() throws Exception {
+        ResultStore store = open(Duration.ofDays(7));
+        store.put("a", 1, ResultStore.encodeIds(new long[]{1}));
+        await(store, "a");
+        store.close();
+        long firstRecord = Files.size(file());
+
+        store = open(Duration.ofDays(7));
+        await(store, "a");
+        store.put("b", 2, ResultStore.encodeIds(new long[]{2}));
+        await(store, "b");
+        store.close();
+
+        // Flip the last byte of the second record's value
+        try (RandomAccessFile raf = new RandomAccessFile(file().toFile(), "rw")) {
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xFF);
+        }
+
+        ResultStore restarted = open(Duration.ofDays(7));
+        assertNotNull(await(restarted, "a"));
+        assertNull(restarted.get("b"));
+        assertEquals(firstRecord, Files.size(file()));
+    }
+
+    @Test
+    void compactionKeepsOnlyTheLatestRecordPerKey() throws Exception {
+        ResultStore store = open(Duration.ofDays(7));
+        byte[] big = new byte[100_000];
+        for (int i = 0; i < 20; i++) {
+            Arrays.fill(big, (byte) i);
+            store.put("big", i, big.clone());
+        }
+        store.put("small", 99, ResultStore.encodeIds(new long[]{7}));
+        await(store, "small");
+        long before = Files.size(file());
+        assertTrue(before > 2_000_000);
+
+        store.compact();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.size(file()) == before && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertTrue(Files.size(file()) < 110_000, "size " + Files.size(file()));
+        ResultStore.Entry latest = store.get("big");
+        assertEquals(19, latest.fingerprint());
+        assertEquals(19, latest.value()[0]);
+
+        // The compacted file takes new records and reloads as it was
+        store.put("after", 5, ResultStore.encodeIds(new long[]{5}));
+        await(store, "after");
+        store.close();
+        ResultStore restarted = open(Duration.ofDays(7));
+        assertEquals(19, await(restarted, "big").fingerprint());
+        assertArrayEquals(new long[]{7}, ResultStore.decodeIds(restarted.get("small").value()));
+        assertArrayEquals(new long[]{5}, ResultStore.decodeIds(restarted.get("after").value()));
+    }
+
+    @Test
+    void smallLogIsNotCompacted() throws Exception {
+        ResultStore store = open(Duration.ofDays(7));
+        for (int i = 0; i < 10; i++) {
+            store.put("a", i, ResultStore.encodeIds(new long[]{i}));
+        }
+        store.put("last", 10, ResultStore.encodeIds(new long[]{10}));
+        await(store, "last");
+        long before = Files.size(file());
+        store.compact();
+        store.close();
+        assertEquals(before, Files.size(file()));
+    }
+
+    @Test
+    void expiredResultsAreNotServed() throws Exception {
+        ResultStore store = open(Duration.ofMillis(50));
+        store.put("a", 1, ResultStore.encodeIds(new long[]{1}));
+        await(store, "a");
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        assertNull(store.get("a"));
+    }
+
+    @Test
+    void keysHaveAFixedSizePerNamespace() {
+        String shortKey = ResultStore.key("shopper", "x");
+        String longKey = ResultStore.key("shopper", "x".repeat(10_000));
+        assertTrue(shortKey.startsWith("shopper:"));
+        assertEquals(shortKey.length(), longKey.length());
+        assertNotEquals(shortKey, longKey);
+        assertEquals(shortKey, ResultStore.key("shopper", "x"));
+    }
+
+    private ResultStore open(Duration ttl) {
+        ResultStore store = new ResultStore(file().toString(), ttl);
+        store.open();
+        opened.add(store);
+        return store;
+    }
+
+    private Path file() {
+        return dir.resolve("store").resolve("results.log");
+    }
+
+    /**
+     * Loading and appends run in the background: polls until {@code key} can be read.
+     */
+    private static ResultStore.Entry await(ResultStore store, String key) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            ResultStore.Entry entry = store.get(key);
+            if (entry != null) {
+                return entry;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        return fail("Nothing stored under " + key + " within 5s");
+    }
+}
@@ -0,0 +1,156 @@
+package com.Shadows.recommendationservice.service;
+
+import com.Shadows.recommendationservice.client.OrderServiceClient;
+import com.Shadows.recommendationservice.model.BasketDto;
+import com.Shadows.recommendationservice.model.BasketFeedDto;
+import com.Shadows.recommendationservice.model.ProductDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrendingServiceTest {
+
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final long T0 = 1_700_000_000_000L;
+
+    private final OrderServiceClient client = mock(OrderServiceClient.class);
+    private final CatalogReplica catalogReplica = mock(CatalogReplica.class);
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        List<ProductDto> products = List.of(
+                product(1, "Milk", "DAIRY_PRODUCTS", "alice"),
+                product(2, "Cheese", "DAIRY_PRODUCTS", "bob"),
+                product(3, "Bread", "BAKERY", "alice"));
+        when(catalogReplica.snapshot()).thenReturn(CatalogReplica.Snapshot.of(1, 1, products));
+    }
+
+    @Test
+    void recentSalesWeighMoreThanOlderOnes() {
+        feed(10, basket(T0, 1, 4), basket(T0 + DAY, 2, 3), basket(T0 + DAY, 3, 1));
+        TrendingService trending = trending(Duration.ofDays(1));
+        trending.refresh();
+
+        // 4 units a half-life ago count as 2 now, less than 3 units today
+        assertEquals(List.of(2L, 1L, 3L), ids(trending.overall(10)));
+        assertEquals(List.of(2L), ids(trending.overall(1)));
+        assertEquals(List.of(2L, 1L), ids(trending.inCategory("DAIRY_PRODUCTS", 10)));
+        assertEquals(List.of(1L, 3L), ids(trending.forSeller("ALICE", 10)));
+        assertTrue(trending.inCategory("BEVERAGES", 10).isEmpty());
+        assertTrue(trending.isLoaded());
+    }
+
+    @Test
+    void olderSalesStillWinWithEnoughUnits() {
+        feed(10, basket(T0, 1, 5), basket(T0 + DAY, 2, 2));
+        TrendingService trending = trending(Duration.ofDays(1));
+        trending.refresh();
+
+        assertEquals(List.of(1L, 2L), ids(trending.overall(10)));
+    }
+
+    @Test
+    void landmarkMovesBeforeWeightsOverflow() {
+        // 2000 half-lives later e^(lambda (t - landmark)) is past Double.MAX_VALUE
+        long later = T0 + 2000 * Duration.ofHours(1).toMillis();
+        feed(10, basket(T0, 1, 1000), basket(later, 2, 1), basket(later, 3, 2));
+        TrendingService trending = trending(Duration.ofHours(1));
+        trending.refresh();
+
+        assertEquals(List.of(3L, 2L, 1L), ids(trending.overall(10)));
+    }
+
+    @Test
+    void checkpointRestoresCountsAndTheFeedCursor() throws Exception {
+        feed(42, basket(T0, 1, 1), basket(T0, 2, 3), basket(T0, 3, 2));
+        TrendingService trending = trending(Duration.ofDays(1));
+        trending.refresh();
+        trending.checkpoint();
+        assertTrue(Files.exists(dir.resolve("trending.ckpt")));
+
+        OrderServiceClient restartedClient = mock(OrderServiceClient.class);
+        BasketFeedDto empty = new BasketFeedDto();
+        empty.setSince(T0);
+        empty.setAfterId(42);
+        when(restartedClient.getPaidBaskets(anyLong(), anyLong(), anyInt())).thenReturn(empty);
+        TrendingService restored = new TrendingService(restartedClient, catalogReplica, Duration.ofDays(1),
+                10, 4, 64, 100, dir.resolve("trending.ckpt").toString());
+        restored.restore();
+
+        assertTrue(restored.isLoaded());
+        assertEquals(List.of(2L, 3L, 1L), ids(restored.overall(10)));
+        assertEquals(List.of(3L, 1L), ids(restored.forSeller("alice", 10)));
+        // Resumes after the last counted basket instead of replaying the feed
+        restored.refresh();
+        verify(restartedClient).getPaidBaskets(T0, 42, 100);
+    }
+
+    @Test
+    void checkpointForAnotherHalfLifeIsIgnored() {
+        feed(7, basket(T0, 1, 1));
+        TrendingService trending = trending(Duration.ofDays(1));
+        trending.refresh();
+        trending.checkpoint();
+
+        TrendingService other = trending(Duration.ofDays(3));
+        other.restore();
+        assertFalse(other.isLoaded());
+        assertTrue(other.overall(10).isEmpty());
+    }
+
+    @Test
+    void nothingCountedNothingWritten() {
+        feed(0);
+        TrendingService trending = trending(Duration.ofDays(1));
+        trending.refresh();
+        trending.checkpoint();
+
+        assertFalse(Files.exists(dir.resolve("trending.ckpt")));
+    }
+
+    private TrendingService trending(Duration halfLife) {
+        return new TrendingService(client, catalogReplica, halfLife, 10, 4, 64, 100,
+                dir.resolve("trending.ckpt").toString());
+    }
+
+    private void feed(long afterId, BasketDto... baskets) {
+        BasketFeedDto page = new BasketFeedDto();
+        page.setBaskets(List.of(baskets));
+        page.setSince(T0);
+        page.setAfterId(afterId);
+        when(client.getPaidBaskets(anyLong(), anyLong(), anyInt())).thenReturn(page);
+    }
+
+    private static BasketDto basket(long paidAt, long productId, int units) {
+        BasketDto basket = new BasketDto();
+        basket.setPaidAt(paidAt);
+        basket.setProductIds(List.of(productId));
+        basket.setQuantities(List.of(units));
+        return basket;
+    }
+
+    private static ProductDto product(long id, String name, String category, String seller) {
+        ProductDto p = CatalogReplicaTest.product(id, name, category, 1.0);
+        p.setAddedBy(seller);
+        return p;
+    }
+
+    private static List<Long> ids(List<ProductDto> products) {
+        return products.stream().map(ProductDto::getId).toList();
+    }
+}
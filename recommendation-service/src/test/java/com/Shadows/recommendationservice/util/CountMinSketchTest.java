@@ -0,0 +1,76 @@
+package com.Shadows.recommendationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+
+    @Test
+    void conservativeUpdateKeepsHeavyHittersExact() {
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        assertEquals(1000, sketch.add(-1, 1000));
+
+        // 500 light keys land in every row's cell of the heavy key many times over; a plain
+        // count-min would add each of them to it
+        for (long key = 0; key < 500; key++) {
+            double estimate = sketch.add(key, 1);
+            assertTrue(estimate >= 1, "estimate " + estimate);
+        }
+        assertEquals(1000, sketch.estimate(-1));
+    }
+
+    @Test
+    void neverUnderEstimates() {
+        CountMinSketch sketch = new CountMinSketch(3, 16);
+        double[] truth = new double[200];
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < truth.length; key++) {
+                double amount = key % 10 == 0 ? 7.5 : 0.5;
+                truth[key] += amount;
+                sketch.add(key, amount);
+            }
+        }
+        for (int key = 0; key < truth.length; key++) {
+            assertTrue(sketch.estimate(key) >= truth[key], "key " + key);
+        }
+        assertEquals(0, new CountMinSketch(3, 16).estimate(5));
+    }
+
+    @Test
+    void scaleMultipliesEveryCount() {
+        CountMinSketch sketch = new CountMinSketch(2, 32);
+        sketch.add(1, 8);
+        sketch.add(2, 4);
+        sketch.scale(0.25);
+        assertEquals(2, sketch.estimate(1));
+        assertEquals(1, sketch.estimate(2));
+    }
+
+    @Test
+    void roundTripsThroughItsBinaryForm() throws IOException {
+        CountMinSketch sketch = new CountMinSketch(4, 1000);
+        assertEquals(1024, sketch.width());
+        sketch.add(7, 3);
+        sketch.add(9, 1.5);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+
+        CountMinSketch copy = new CountMinSketch(4, 1024);
+        copy.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(3, copy.estimate(7));
+        assertEquals(1.5, copy.estimate(9));
+
+        CountMinSketch narrower = new CountMinSketch(4, 512);
+        assertThrows(IOException.class,
+                () -> narrower.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 16));
+    }
+}
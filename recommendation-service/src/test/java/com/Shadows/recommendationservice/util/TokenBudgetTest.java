@@ -0,0 +1,34 @@
+package com.Shadows.recommendationservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBudgetTest {
+
+    @Test
+    void estimateRoundsUpAtFourCharactersPerToken() {
+        assertEquals(0, TokenBudget.estimate(""));
+        assertEquals(1, TokenBudget.estimate("a"));
+        assertEquals(1, TokenBudget.estimate("milk"));
+        assertEquals(2, TokenBudget.estimate("bread"));
+        assertEquals(250, TokenBudget.estimate("x".repeat(1000)));
+    }
+
+    @Test
+    void takeStopsAtTheLimitWithoutCountingWhatDoesNotFit() {
+        TokenBudget budget = new TokenBudget(5);
+
+        assertTrue(budget.take("12345678"));
+        assertEquals(2, budget.used());
+        assertFalse(budget.take("x".repeat(16)));
+        assertEquals(2, budget.used());
+
+        // A shorter line still fits in what is left, up to the exact limit
+        assertTrue(budget.take("123456789012"));
+        assertEquals(5, budget.used());
+        assertFalse(budget.take("x"));
+        assertTrue(budget.take(""));
+        assertEquals(5, budget.used());
+    }
+}